@@ -0,0 +1,102 @@
+package dominio;
+
+import java.time.LocalDateTime;
+
+/**
+ * <b>Cursor (keyset) para recorrer por páginas los listados de pedidos.</b>
+ * <p>Representa la posición del último pedido de una página dentro del orden
+ * de los listados: primero los pedidos activos y al final los 'Entregados'
+ * (<b>grupo</b>), después por fecha de creación descendente y por ID descendente
+ * para desempatar.</p>
+ * <p>La siguiente página empieza justo después de esta posición, de modo que la
+ * base de datos no tiene que contar ni saltar las filas ya mostradas (a diferencia
+ * de <code>OFFSET</code>).</p>
+ * <p>Es inmutable; se obtiene de {@link PaginaPedidos#getSiguienteCursor()}.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public final class CursorPedidos {
+
+    /**
+     * Grupo de los pedidos que no han sido entregados.
+     */
+    public static final int GRUPO_ACTIVOS = 0;
+
+    /**
+     * Grupo de los pedidos en estado 'Entregado'.
+     */
+    public static final int GRUPO_ENTREGADOS = 1;
+
+    private final int grupo;
+    private final LocalDateTime fechaCreacion;
+    private final int idPedido;
+
+    /**
+     * Constructor que fija la posición del cursor.
+     *
+     * @param grupo {@link #GRUPO_ACTIVOS} o {@link #GRUPO_ENTREGADOS}.
+     * @param fechaCreacion Fecha de creación del último pedido mostrado.
+     * @param idPedido ID del último pedido mostrado.
+     */
+    public CursorPedidos(int grupo, LocalDateTime fechaCreacion, int idPedido) {
+        if (grupo != GRUPO_ACTIVOS && grupo != GRUPO_ENTREGADOS) {
+            throw new IllegalArgumentException("Grupo de cursor inválido: " + grupo);
+        }
+        if (fechaCreacion == null) {
+            throw new IllegalArgumentException("La fecha de creación del cursor es obligatoria.");
+        }
+        this.grupo = grupo;
+        this.fechaCreacion = fechaCreacion;
+        this.idPedido = idPedido;
+    }
+
+    /**
+     * Crea el cursor que apunta a la posición de un pedido.
+     *
+     * @param pedido Último pedido de una página.
+     * @return Cursor posicionado sobre ese pedido.
+     */
+    public static CursorPedidos despuesDe(Pedido pedido) {
+        return new CursorPedidos(grupoDe(pedido.getEstado()), pedido.getFechaCreacion(), pedido.getId());
+    }
+
+    /**
+     * Indica a qué grupo del orden pertenece un estado.
+     *
+     * @param estado Estado del pedido.
+     * @return {@link #GRUPO_ENTREGADOS} si el estado es 'Entregado'; {@link #GRUPO_ACTIVOS} en otro caso.
+     */
+    public static int grupoDe(EstadoPedido estado) {
+        return estado == EstadoPedido.Entregado ? GRUPO_ENTREGADOS : GRUPO_ACTIVOS;
+    }
+
+    /**
+     * Obtiene el grupo (activos / entregados) del último pedido mostrado.
+     * @return El grupo del cursor.
+     */
+    public int getGrupo() {
+        return grupo;
+    }
+
+    /**
+     * Obtiene la fecha de creación del último pedido mostrado.
+     * @return Un objeto <code>LocalDateTime</code>.
+     */
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    /**
+     * Obtiene el ID del último pedido mostrado.
+     * @return El ID del pedido.
+     */
+    public int getIdPedido() {
+        return idPedido;
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPedidos{" + "grupo=" + grupo + ", fechaCreacion=" + fechaCreacion + ", idPedido=" + idPedido + '}';
+    }
+}
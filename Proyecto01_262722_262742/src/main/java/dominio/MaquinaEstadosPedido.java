@@ -0,0 +1,82 @@
+package dominio;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <b>Transiciones permitidas entre los estados de un {@link Pedido}.</b>
+ * <p>Define, para cada {@link EstadoPedido}, a qué estados puede pasar:</p>
+ * <ul>
+ * <li><b>Pendiente</b> → Listo, Entregado o Cancelado.</li>
+ * <li><b>Listo</b> → Entregado, Cancelado o No reclamado.</li>
+ * <li><b>No reclamado</b> → Entregado (el cliente llegó tarde) o Cancelado.</li>
+ * <li><b>Entregado</b> y <b>Cancelado</b> son finales.</li>
+ * </ul>
+ * <p>La tabla se invierte al cargar la clase ({@link #origenesDe(EstadoPedido)}),
+ * para que la capa de persistencia pueda aplicar un cambio como un único
+ * <code>UPDATE ... WHERE estado IN (orígenes)</code> sin leer antes el pedido.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public final class MaquinaEstadosPedido {
+
+    /**
+     * Estado actual -> estados a los que puede pasar.
+     */
+    private static final Map<EstadoPedido, Set<EstadoPedido>> DESTINOS = new EnumMap<>(EstadoPedido.class);
+
+    /**
+     * Estado destino -> estados desde los que se puede llegar a él.
+     */
+    private static final Map<EstadoPedido, Set<EstadoPedido>> ORIGENES = new EnumMap<>(EstadoPedido.class);
+
+    static {
+        DESTINOS.put(EstadoPedido.Pendiente, EnumSet.of(EstadoPedido.Listo, EstadoPedido.Entregado, EstadoPedido.Cancelado));
+        DESTINOS.put(EstadoPedido.Listo, EnumSet.of(EstadoPedido.Entregado, EstadoPedido.Cancelado, EstadoPedido.No_reclamado));
+        DESTINOS.put(EstadoPedido.No_reclamado, EnumSet.of(EstadoPedido.Entregado, EstadoPedido.Cancelado));
+        DESTINOS.put(EstadoPedido.Entregado, EnumSet.noneOf(EstadoPedido.class));
+        DESTINOS.put(EstadoPedido.Cancelado, EnumSet.noneOf(EstadoPedido.class));
+
+        for (EstadoPedido destino : EstadoPedido.values()) {
+            ORIGENES.put(destino, EnumSet.noneOf(EstadoPedido.class));
+        }
+        for (Map.Entry<EstadoPedido, Set<EstadoPedido>> e : DESTINOS.entrySet()) {
+            for (EstadoPedido destino : e.getValue()) {
+                ORIGENES.get(destino).add(e.getKey());
+            }
+        }
+
+        for (EstadoPedido estado : EstadoPedido.values()) {
+            DESTINOS.put(estado, Collections.unmodifiableSet(DESTINOS.get(estado)));
+            ORIGENES.put(estado, Collections.unmodifiableSet(ORIGENES.get(estado)));
+        }
+    }
+
+    private MaquinaEstadosPedido() {
+    }
+
+    /**
+     * Indica si un pedido en el estado <code>actual</code> puede pasar a <code>destino</code>.
+     *
+     * @param actual Estado actual del pedido.
+     * @param destino Estado al que se quiere cambiar.
+     * @return <code>true</code> si la transición está permitida.
+     */
+    public static boolean permite(EstadoPedido actual, EstadoPedido destino) {
+        return actual != null && destino != null && DESTINOS.get(actual).contains(destino);
+    }
+
+    /**
+     * Estados desde los que se puede llegar a <code>destino</code>.
+     *
+     * @param destino Estado al que se quiere cambiar.
+     * @return Conjunto no modificable; vacío si ningún estado lleva a <code>destino</code>.
+     */
+    public static Set<EstadoPedido> origenesDe(EstadoPedido destino) {
+        return ORIGENES.get(destino);
+    }
+}
@@ -0,0 +1,53 @@
+package dominio;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <b>Página de resultados de un listado de pedidos.</b>
+ * <p>Contiene los pedidos de la página y, si hay más resultados, el
+ * {@link CursorPedidos} con el que se pide la siguiente.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public final class PaginaPedidos {
+
+    private final List<Pedido> pedidos;
+    private final CursorPedidos siguienteCursor;
+
+    /**
+     * Constructor de la página.
+     *
+     * @param pedidos Pedidos de la página, en el orden del listado.
+     * @param siguienteCursor Cursor de la siguiente página, o null si ésta es la última.
+     */
+    public PaginaPedidos(List<Pedido> pedidos, CursorPedidos siguienteCursor) {
+        this.pedidos = Collections.unmodifiableList(pedidos);
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    /**
+     * Obtiene los pedidos de la página.
+     * @return Lista de sólo lectura con los pedidos.
+     */
+    public List<Pedido> getPedidos() {
+        return pedidos;
+    }
+
+    /**
+     * Obtiene el cursor para solicitar la siguiente página.
+     * @return El cursor, o null si no hay más pedidos.
+     */
+    public CursorPedidos getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    /**
+     * Indica si existen más pedidos después de esta página.
+     * @return <code>true</code> si hay una siguiente página.
+     */
+    public boolean haySiguiente() {
+        return siguienteCursor != null;
+    }
+}
@@ -0,0 +1,65 @@
+package dominio;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <b>Resultado de cambiar el estado de varios pedidos a la vez.</b>
+ * <p>Indica qué pedidos cambiaron de estado y, para cada uno de los que no, el
+ * motivo (no existe, su estado actual no lo permite, requiere PIN, ...).</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public final class ResultadoCambioEstado {
+
+    private final EstadoPedido estado;
+    private final List<Integer> aplicados;
+    private final Map<Integer, String> rechazados;
+
+    /**
+     * Constructor del resultado.
+     *
+     * @param estado Estado al que se cambiaron los pedidos.
+     * @param aplicados IDs de los pedidos que cambiaron, en el orden solicitado.
+     * @param rechazados ID -> motivo de los pedidos que no cambiaron, en el orden solicitado.
+     */
+    public ResultadoCambioEstado(EstadoPedido estado, List<Integer> aplicados, Map<Integer, String> rechazados) {
+        this.estado = estado;
+        this.aplicados = Collections.unmodifiableList(aplicados);
+        this.rechazados = Collections.unmodifiableMap(rechazados);
+    }
+
+    /**
+     * Obtiene el estado al que se cambiaron los pedidos.
+     * @return El estado destino.
+     */
+    public EstadoPedido getEstado() {
+        return estado;
+    }
+
+    /**
+     * Obtiene los pedidos que cambiaron de estado.
+     * @return Lista de sólo lectura con sus IDs.
+     */
+    public List<Integer> getAplicados() {
+        return aplicados;
+    }
+
+    /**
+     * Obtiene los pedidos que no cambiaron de estado y el motivo de cada uno.
+     * @return Mapa de sólo lectura del ID al motivo.
+     */
+    public Map<Integer, String> getRechazados() {
+        return rechazados;
+    }
+
+    /**
+     * Indica si algún pedido no pudo cambiar de estado.
+     * @return <code>true</code> si hay rechazados.
+     */
+    public boolean hayRechazados() {
+        return !rechazados.isEmpty();
+    }
+}
@@ -5,6 +5,16 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.imageio.ImageIO;
 
 /**
@@ -14,6 +24,10 @@ import javax.imageio.ImageIO;
  * En lugar de guardar los archivos pesados en la base de datos, los almacena 
  * de forma local en una carpeta específica, utilizando el ID del producto 
  * como nombre de archivo.</p>
+ * <p>Las miniaturas ya escaladas se guardan en memoria en un caché LRU acotado por
+ * bytes, con llave (producto, ancho, alto, fecha de modificación del archivo), y en
+ * disco en <code>imagenes/productos/miniaturas</code>. Así, reconstruir el catálogo
+ * no vuelve a decodificar ni a escalar las fotografías originales.</p>
  *
  * @author 262722
  * @author 262742
@@ -25,6 +39,54 @@ public class ImagenProductoUtil {
      */
     private static final String DIR_PRODUCTOS = "imagenes/productos";
 
+    /**
+     * Subdirectorio con las miniaturas ya escaladas, <code>{id}_{w}x{h}.png</code>.
+     */
+    private static final String DIR_MINIATURAS = DIR_PRODUCTOS + "/miniaturas";
+
+    /**
+     * Ancho de la imagen en las tarjetas del catálogo.
+     */
+    public static final int ANCHO_MINIATURA = 180;
+
+    /**
+     * Alto de la imagen en las tarjetas del catálogo.
+     */
+    public static final int ALTO_MINIATURA = 100;
+
+    /**
+     * Tamaños que se generan al guardar la imagen de un producto.
+     */
+    private static final int[][] TAMANIOS_MINIATURA = {{ANCHO_MINIATURA, ALTO_MINIATURA}};
+
+    /**
+     * Memoria máxima del caché de miniaturas; se ajusta con <code>panaderia.miniaturas.mb</code>.
+     */
+    private static final long MAX_BYTES_CACHE = Long.getLong("panaderia.miniaturas.mb", 16L) * 1024 * 1024;
+
+    private static final Logger LOG = Logger.getLogger(ImagenProductoUtil.class.getName());
+
+    /**
+     * Caché LRU (orden de acceso). Todos los accesos se sincronizan sobre el mapa.
+     */
+    private static final LinkedHashMap<Llave, ImageIcon> CACHE = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * Hilos para decodificar y escalar imágenes en paralelo, fuera del hilo de Swing.
+     * Son demonio para no impedir que la aplicación termine.
+     */
+    private static final ExecutorService CARGADOR = crearCargador();
+
+    /**
+     * Cargas en curso, para no decodificar dos veces la misma imagen si el catálogo
+     * se reconstruye antes de que termine.
+     */
+    private static final Map<Llave, CompletableFuture<ImageIcon>> EN_CURSO = new ConcurrentHashMap<>();
+
+    private static long bytesEnCache;
+    private static long aciertos;
+    private static long fallos;
+
     /**
      * Verifica la existencia del directorio de imágenes y lo crea si no existe.
      * <p>Garantiza que la ruta física esté disponible antes de intentar guardar 
@@ -43,6 +105,8 @@ public class ImagenProductoUtil {
      * <p>El archivo original se copia al directorio de imágenes y se renombra 
      * automáticamente con el formato <code>{idProducto}.png</code>. Si ya existe 
      * una imagen para ese ID, será reemplazada.</p>
+     * <p>También genera las miniaturas de los tamaños que usa el catálogo y descarta
+     * las versiones anteriores que hubiera en memoria.</p>
      *
      * @param idProducto El identificador único del producto al que pertenece la imagen.
      * @param archivoImagen El archivo original de la imagen seleccionado por el usuario.
@@ -60,6 +124,15 @@ public class ImagenProductoUtil {
                 destino,
                 StandardCopyOption.REPLACE_EXISTING
         );
+
+        invalidar(idProducto);
+
+        BufferedImage original = ImageIO.read(destino.toFile());
+        if (original == null) return;
+
+        for (int[] tamanio : TAMANIOS_MINIATURA) {
+            guardarMiniatura(idProducto, escalar(original, tamanio[0], tamanio[1]), tamanio[0], tamanio[1]);
+        }
     }
 
     /**
@@ -67,6 +140,9 @@ public class ImagenProductoUtil {
      * <p>Busca la imagen guardada como <code>{idProducto}.png</code> y la escala 
      * dinámicamente utilizando un algoritmo que mantiene la proporción original (FIT), 
      * evitando que la foto del producto se vea deformada en la interfaz gráfica.</p>
+     * <p>Se busca primero en el caché de memoria, después en las miniaturas de disco
+     * (si no son más viejas que la original) y sólo al final se decodifica la original.
+     * Los íconos devueltos se comparten entre llamadas; no deben modificarse.</p>
      *
      * @param idProducto El identificador único del producto cuya imagen se desea cargar.
      * @param w El ancho máximo (width) deseado para el icono.
@@ -77,27 +153,290 @@ public class ImagenProductoUtil {
     public static ImageIcon cargarIconoProducto(int idProducto, int w, int h) {
         try {
             File f = new File(DIR_PRODUCTOS + "/" + idProducto + ".png");
-            if (!f.exists()) return null;
+            long modificado = f.lastModified(); // 0 si no existe
+            if (modificado == 0L) return null;
 
-            BufferedImage original = ImageIO.read(f);
-            if (original == null) return null;
+            Llave llave = new Llave(idProducto, w, h, modificado);
+            ImageIcon enCache = buscarEnCache(llave);
+            if (enCache != null) {
+                return enCache;
+            }
 
-            int ow = original.getWidth();
-            int oh = original.getHeight();
+            return cargarSinCache(llave, f);
 
-            // Escalado manteniendo proporción (FIT)
-            double sx = (double) w / ow;
-            double sy = (double) h / oh;
-            double s = Math.min(sx, sy);
+        } catch (Exception e) {
+            return null;
+        }
+    }
 
-            int nw = (int) Math.round(ow * s);
-            int nh = (int) Math.round(oh * s);
+    /**
+     * Muestra la imagen de un producto en una etiqueta sin bloquear el hilo de Swing.
+     * <p>Si la miniatura ya está en memoria se asigna de inmediato. Si no, la etiqueta
+     * muestra "Cargando..." mientras la imagen se decodifica en un grupo de hilos (uno
+     * por núcleo) y se asigna en el hilo de Swing al terminar; si no hay imagen, se
+     * muestra <code>textoSinImagen</code>. Debe llamarse desde el hilo de Swing.</p>
+     *
+     * @param destino Etiqueta donde se mostrará la imagen.
+     * @param idProducto ID del producto.
+     * @param w Ancho máximo de la imagen.
+     * @param h Alto máximo de la imagen.
+     * @param textoSinImagen Texto a mostrar si el producto no tiene imagen.
+     */
+    public static void asignarIconoProducto(JLabel destino, int idProducto, int w, int h, String textoSinImagen) {
+        File f = new File(DIR_PRODUCTOS + "/" + idProducto + ".png");
+        long modificado = f.lastModified();
+        if (modificado == 0L) {
+            destino.setText(textoSinImagen);
+            return;
+        }
+
+        Llave llave = new Llave(idProducto, w, h, modificado);
+        ImageIcon enCache = buscarEnCache(llave);
+        if (enCache != null) {
+            destino.setText("");
+            destino.setIcon(enCache);
+            return;
+        }
 
-            Image scaled = original.getScaledInstance(nw, nh, Image.SCALE_SMOOTH);
-            return new ImageIcon(scaled);
+        destino.setText("Cargando...");
+        CompletableFuture<ImageIcon> nueva = new CompletableFuture<>();
+        CompletableFuture<ImageIcon> carga = EN_CURSO.putIfAbsent(llave, nueva);
+        if (carga == null) {
+            carga = nueva;
+            CARGADOR.execute(() -> {
+                try {
+                    nueva.complete(cargarSinCache(llave, f));
+                } catch (Throwable ex) {
+                    nueva.completeExceptionally(ex);
+                } finally {
+                    EN_CURSO.remove(llave, nueva);
+                }
+            });
+        }
+
+        carga.whenComplete((icono, error) -> SwingUtilities.invokeLater(() -> {
+                    if (icono != null) {
+                        destino.setText("");
+                        destino.setIcon(icono);
+                    } else {
+                        destino.setText(textoSinImagen);
+                    }
+                }));
+    }
+
+    private static ImageIcon buscarEnCache(Llave llave) {
+        synchronized (CACHE) {
+            ImageIcon icono = CACHE.get(llave);
+            if (icono != null) {
+                aciertos++;
+                return icono;
+            }
+            fallos++;
+            return null;
+        }
+    }
+
+    /**
+     * Obtiene la miniatura de disco (o la genera desde la original) y la agrega al caché.
+     */
+    private static ImageIcon cargarSinCache(Llave llave, File original) {
+        try {
+            int w = llave.w;
+            int h = llave.h;
+            int idProducto = llave.idProducto;
+
+            BufferedImage miniatura = leerMiniatura(idProducto, w, h, llave.modificado);
+            if (miniatura == null) {
+                BufferedImage imagen = ImageIO.read(original);
+                if (imagen == null) return null;
+
+                miniatura = escalar(imagen, w, h);
+                guardarMiniatura(idProducto, miniatura, w, h);
+            }
+
+            ImageIcon icono = new ImageIcon(miniatura);
+            agregarACache(llave, icono, (long) miniatura.getWidth() * miniatura.getHeight() * 4);
+            return icono;
 
         } catch (Exception e) {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Quita del caché de memoria todas las miniaturas de un producto.
+     *
+     * @param idProducto ID del producto cuya imagen cambió.
+     */
+    public static void invalidar(int idProducto) {
+        synchronized (CACHE) {
+            Iterator<Map.Entry<Llave, ImageIcon>> it = CACHE.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Llave, ImageIcon> e = it.next();
+                if (e.getKey().idProducto == idProducto) {
+                    bytesEnCache -= e.getKey().bytes;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Memoria aproximada que ocupan las miniaturas en caché (4 bytes por pixel).
+     * @return Bytes en uso.
+     */
+    public static long getBytesEnCache() {
+        synchronized (CACHE) {
+            return bytesEnCache;
+        }
+    }
+
+    /**
+     * Número de miniaturas en el caché de memoria.
+     * @return Cantidad de entradas.
+     */
+    public static int getMiniaturasEnCache() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    /**
+     * Proporción de consultas resueltas desde el caché de memoria.
+     * @return Valor entre 0 y 1, o 0 si aún no hay consultas.
+     */
+    public static double getTasaAciertos() {
+        synchronized (CACHE) {
+            long total = aciertos + fallos;
+            return total == 0 ? 0 : (double) aciertos / total;
+        }
+    }
+
+    private static void agregarACache(Llave llave, ImageIcon icono, long bytes) {
+        if (bytes > MAX_BYTES_CACHE) return;
+
+        llave.bytes = bytes;
+        synchronized (CACHE) {
+            ImageIcon anterior = CACHE.put(llave, icono);
+            if (anterior == null) {
+                bytesEnCache += bytes;
+            }
+
+            // Desalojar los menos usados recientemente hasta caber en el límite
+            Iterator<Llave> it = CACHE.keySet().iterator();
+            while (bytesEnCache > MAX_BYTES_CACHE && it.hasNext()) {
+                Llave vieja = it.next();
+                bytesEnCache -= vieja.bytes;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Escala manteniendo proporción (FIT) a una imagen ya materializada. Las reducciones
+     * grandes se hacen por mitades para conservar calidad sin el costo de
+     * <code>SCALE_SMOOTH</code>.
+     */
+    private static BufferedImage escalar(BufferedImage original, int w, int h) {
+        int ow = original.getWidth();
+        int oh = original.getHeight();
+
+        double s = Math.min((double) w / ow, (double) h / oh);
+        int nw = Math.max(1, (int) Math.round(ow * s));
+        int nh = Math.max(1, (int) Math.round(oh * s));
+
+        BufferedImage actual = original;
+        int cw = ow;
+        int ch = oh;
+        do {
+            cw = Math.max(nw, cw / 2);
+            ch = Math.max(nh, ch / 2);
+            BufferedImage paso = new BufferedImage(cw, ch, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = paso.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(actual, 0, 0, cw, ch, null);
+            } finally {
+                g.dispose();
+            }
+            actual = paso;
+        } while (cw != nw || ch != nh);
+
+        return actual;
+    }
+
+    private static File archivoMiniatura(int idProducto, int w, int h) {
+        return new File(DIR_MINIATURAS + "/" + idProducto + "_" + w + "x" + h + ".png");
+    }
+
+    /**
+     * Lee la miniatura de disco si existe y no es anterior a la imagen original.
+     */
+    private static BufferedImage leerMiniatura(int idProducto, int w, int h, long modificadoOriginal) {
+        File f = archivoMiniatura(idProducto, w, h);
+        if (f.lastModified() < modificadoOriginal) return null;
+        try {
+            return ImageIO.read(f);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Escribe la miniatura en disco. Es una optimización: si falla sólo se registra.
+     */
+    private static void guardarMiniatura(int idProducto, BufferedImage miniatura, int w, int h) {
+        try {
+            Files.createDirectories(Paths.get(DIR_MINIATURAS));
+            ImageIO.write(miniatura, "png", archivoMiniatura(idProducto, w, h));
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "No se pudo guardar la miniatura del producto " + idProducto, ex);
+        }
+    }
+
+    private static ExecutorService crearCargador() {
+        AtomicInteger contador = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread hilo = new Thread(r, "imagenes-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Llave del caché. <code>bytes</code> no forma parte de la igualdad.
+     */
+    private static final class Llave {
+
+        private final int idProducto;
+        private final int w;
+        private final int h;
+        private final long modificado;
+        private long bytes;
+
+        private Llave(int idProducto, int w, int h, long modificado) {
+            this.idProducto = idProducto;
+            this.w = w;
+            this.h = h;
+            this.modificado = modificado;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Llave)) return false;
+            Llave otra = (Llave) o;
+            return idProducto == otra.idProducto && w == otra.w && h == otra.h && modificado == otra.modificado;
+        }
+
+        @Override
+        public int hashCode() {
+            int r = Integer.hashCode(idProducto);
+            r = 31 * r + w;
+            r = 31 * r + h;
+            r = 31 * r + Long.hashCode(modificado);
+            return r;
+        }
+    }
+}
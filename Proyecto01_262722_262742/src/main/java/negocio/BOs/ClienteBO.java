@@ -10,10 +10,13 @@ import dominio.Telefono;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 import negocio.Excepciones.NegocioException;
+import negocio.util.EjecutorAutenticacion;
 import negocio.util.PasswordUtil;
 import persistencia.DAOs.iClienteDAO;
+import persistencia.DAOs.iUsuarioDAO;
 import persistencia.Excepciones.PersistenciaException;
 
 /**
@@ -29,14 +32,17 @@ public class ClienteBO implements iClienteBO{
     
     //DAO comun
     private iClienteDAO clienteDAO;
+    private iUsuarioDAO usuarioDAO;
     private static final Logger LOG = Logger.getLogger(ProductoBO.class.getName());
     
     /**
-     * Constructor que inyecta el DAO de cliente necesario para las operaciones.
+     * Constructor que inyecta los DAOs necesarios para las operaciones.
      * @param clienteDAO Interfaz del DAO de persistencia.
+     * @param usuarioDAO DAO de usuarios, para volver a generar el hash de la contraseña.
      */
-    public ClienteBO(iClienteDAO clienteDAO){
+    public ClienteBO(iClienteDAO clienteDAO, iUsuarioDAO usuarioDAO){
         this.clienteDAO = clienteDAO;
+        this.usuarioDAO = usuarioDAO;
     }
     
 
@@ -176,15 +182,22 @@ public class ClienteBO implements iClienteBO{
                 throw new NegocioException("Usuario o contraseña incorrectos");
             }
 
-            if(!PasswordUtil.verificar(contrasenia, cliente.getContrasenia())){
+            if(!EjecutorAutenticacion.esperar(EjecutorAutenticacion.compartido().verificar(contrasenia, cliente.getContrasenia()))){
                 throw new NegocioException("Usuario o contraseña incorrectos");
             }
+
+            String hashNuevo = UsuarioBO.actualizarHashSiHaceFalta(usuarioDAO, cliente.getId(), contrasenia, cliente.getContrasenia());
+            if (hashNuevo != null) {
+                cliente.setContrasenia(hashNuevo);
+            }
             
             return cliente;
 
         } catch (PersistenciaException ex) {
             LOG.warning("Error al consultar al cliente. " + ex);
             throw new NegocioException("Error al consultar cliente. " + ex.getMessage(), ex);
+        } catch (RejectedExecutionException ex) {
+            throw new NegocioException(ex.getMessage(), ex);
         }
     }
 
@@ -425,5 +438,4 @@ public class ClienteBO implements iClienteBO{
             throw new NegocioException("No se pudieron agregar los teléfonos.", e);
         }
     }
-    
-}
\ No newline at end of file
+}
@@ -5,7 +5,9 @@
 package negocio.BOs;
 
 import dominio.DetallePedido;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 import negocio.Excepciones.NegocioException;
 import persistencia.DAOs.iDetallePedidoDAO;
@@ -82,4 +84,33 @@ public class DetallePedidoBO implements iDetallePedidoBO {
         }
         
     }
+
+    /**
+     * Recupera los detalles de varios pedidos a la vez.
+     * @param idsPedidos Identificadores de los pedidos.
+     * @return Mapa del ID de cada pedido a su lista de <code>DetallePedido</code>.
+     * @throws NegocioException Si algún ID es inválido o ocurre un error en la base de datos.
+     */
+    @Override
+    public Map<Integer, List<DetallePedido>> listarDetallesPorPedidos(Collection<Integer> idsPedidos) throws NegocioException {
+        validarIds(idsPedidos);
+
+        try {
+            return detallePedidoDAO.listarDetallesPorPedidos(idsPedidos);
+        } catch (PersistenciaException ex) {
+            LOG.warning("No se pudieron listar los detalles de los pedidos. " + ex);
+            throw new NegocioException("No se pudieron listar los detalles de los pedidos. " + ex.getMessage(), ex);
+        }
+    }
+
+    private void validarIds(Collection<Integer> idsPedidos) throws NegocioException {
+        if (idsPedidos == null) {
+            throw new NegocioException("La lista de pedidos es obligatoria.");
+        }
+        for (Integer id : idsPedidos) {
+            if (id == null || id <= 0) {
+                throw new NegocioException("Id de pedido invalido: " + id);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -6,8 +6,10 @@ package negocio.BOs;
 
 import dominio.Empleado;
 import dominio.RolUsuario;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 import negocio.Excepciones.NegocioException;
+import negocio.util.EjecutorAutenticacion;
 import negocio.util.PasswordUtil;
 import persistencia.DAOs.iEmpleadoDAO;
 import persistencia.Excepciones.PersistenciaException;
@@ -91,7 +93,7 @@ public class EmpleadoBO implements iEmpleadoBO {
     /**
      * Valida las credenciales de un empleado para el inicio de sesión.
      * <p>Busca al empleado por su usuario y compara la contraseña proporcionada 
-     * con el hash almacenado mediante el método <code>PasswordUtil.verificar</code>.</p>
+     * con el hash almacenado mediante <code>EjecutorAutenticacion.verificar</code>.</p>
      * @param usuario Nombre de usuario del empleado.
      * @param contrasenia Contraseña en texto plano ingresada en el login.
      * @return El objeto <code>Empleado</code> si la autenticación es exitosa.
@@ -114,7 +116,7 @@ public class EmpleadoBO implements iEmpleadoBO {
                 throw new NegocioException("Usuario o contraseña incorrectos.");
             }
 
-            if (!PasswordUtil.verificar(contrasenia, empleado.getContrasenia())) {
+            if (!EjecutorAutenticacion.esperar(EjecutorAutenticacion.compartido().verificar(contrasenia, empleado.getContrasenia()))) {
                 throw new NegocioException("Usuario o contraseña incorrectos.");
             }
 
@@ -123,6 +125,8 @@ public class EmpleadoBO implements iEmpleadoBO {
         } catch (PersistenciaException ex) {
             LOG.warning("Error al consultar al empleado. " + ex);
             throw new NegocioException("Error al consultar empleado. " + ex.getMessage(), ex);
+        } catch (RejectedExecutionException ex) {
+            throw new NegocioException(ex.getMessage(), ex);
         }
     }
 }
\ No newline at end of file
@@ -4,21 +4,24 @@
  */
 package negocio.BOs;
 
-import dominio.Cupon;
+import dominio.CursorPedidos;
 import dominio.DetallePedido;
 import dominio.EstadoPedido;
+import dominio.PaginaPedidos;
 import dominio.Pedido;
 import dominio.PedidoExpress;
 import dominio.PedidoProgramado;
+import dominio.ResultadoCambioEstado;
 import java.security.SecureRandom;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.logging.Logger;
 import negocio.Excepciones.NegocioException;
-import negocio.util.PasswordUtil;
-import persistencia.DAOs.iCuponDAO;
-import persistencia.DAOs.iDetallePedidoDAO;
+import negocio.util.PinUtil;
+import persistencia.Conexion.UnidadTrabajo;
+import persistencia.Conexion.iTransaccionesBD;
 import persistencia.DAOs.iPedidoDAO;
 import persistencia.Excepciones.PersistenciaException;
 
@@ -38,24 +41,36 @@ import persistencia.Excepciones.PersistenciaException;
 public class PedidoBO implements iPedidoBO {
 
     private iPedidoDAO pedidoDAO;
-    private iDetallePedidoDAO detallePedidoDAO;
-    private iCuponDAO cuponDAO;
+    private iTransaccionesBD transacciones;
     private static final Logger LOG = Logger.getLogger(ProductoBO.class.getName());
 
     /**
-     * Constructor que inyecta los DAOs necesarios para la operación de pedidos.
+     * Consecutivo máximo de folio: "PE" más 8 dígitos ocupa los 10 caracteres de la columna.
+     */
+    private static final long CONSECUTIVO_FOLIO_MAXIMO = 99_999_999L;
+
+    /**
+     * Tamaño máximo de página permitido en los listados paginados.
+     */
+    private static final int TAMANIO_PAGINA_MAXIMO = 200;
+
+    /**
+     * Constructor que inyecta el DAO necesario para la operación de pedidos.
+     * <p>El DAO de pedidos registra los detalles y canjea el cupón en la misma
+     * transacción que el pedido.</p>
      * @param pedido DAO para pedidos.
-     * @param detallePedidoDAO DAO para los detalles/partidas del pedido.
-     * @param cuponDAO DAO para la validación y actualización de cupones.
+     * @param transacciones Proveedor de unidades de trabajo; los DAOs deben usar su misma
+     * conexión para unirse a ellas.
      */
-    public PedidoBO(iPedidoDAO pedido, iDetallePedidoDAO detallePedidoDAO, iCuponDAO cuponDAO) {
+    public PedidoBO(iPedidoDAO pedido, iTransaccionesBD transacciones) {
         this.pedidoDAO = pedido;
-        this.detallePedidoDAO = detallePedidoDAO;
-        this.cuponDAO = cuponDAO;
+        this.transacciones = transacciones;
     }
 
     /**
-     * Obtiene el siguiente número de secuencia para un pedido desde la base de datos.
+     * Obtiene el siguiente número de secuencia para un pedido.
+     * <p>Los números se toman de bloques reservados en la base de datos, por lo que
+     * normalmente no requieren consulta alguna.</p>
      * @return Número de pedido incremental.
      * @throws NegocioException Si hay un error al consultar la secuencia.
      */
@@ -72,7 +87,12 @@ public class PedidoBO implements iPedidoBO {
     /**
      * Registra un nuevo pedido programado con sus validaciones correspondientes.
      * <p>Verifica que el cliente exista, que no exceda el límite de pedidos activos 
-     * y que, en caso de usar cupón, este sea válido y no haya expirado.</p>
+     * y que, en caso de usar cupón, este sea válido y no haya expirado. El uso del
+     * cupón se registra junto con el pedido: si el cupón no se puede canjear, el
+     * pedido no se guarda.</p>
+     * <p>Todo corre en una sola {@link UnidadTrabajo}: el conteo de pedidos activos
+     * bloquea al cliente hasta el commit, de modo que el límite se respeta aunque dos
+     * terminales registren pedidos del mismo cliente al mismo tiempo.</p>
      * @param pedidoProgramado Datos del pedido.
      * @param detalles Lista de productos y cantidades.
      * @return El pedido registrado con ID y folio generado.
@@ -111,39 +131,24 @@ public class PedidoBO implements iPedidoBO {
                 }
             }
 
-            int pedidosActivos = pedidoDAO.contarPedidosActivosPorCliente(pedidoProgramado.getCliente().getId());
-
-            if (pedidosActivos >= 3) {
-                throw new NegocioException("Limite alcanzado: Ya tienes 3 pedidos activos.");
-            }
-
-            // Insertar pedido (debe regresar con ID seteado)
-            PedidoProgramado pedidoGuardado = pedidoDAO.insertarPedidoProgramado(pedidoProgramado, detalles);
-
-            //aumentar un uso del cupon si es que se usó
-            if (pedidoProgramado.getCupon() != null) {
-                try {
-                    Cupon cupon = cuponDAO.consultarCupon(pedidoProgramado.getCupon().getNombre());
+            // Conteo, inserción y canje del cupón en una sola conexión y un solo commit
+            try (UnidadTrabajo unidad = transacciones.iniciar()) {
+                int pedidosActivos = pedidoDAO.contarPedidosActivosPorCliente(pedidoProgramado.getCliente().getId());
 
-                    cuponDAO.incrementarUsoCupon(cupon.getId());
-
-                    if (cupon.getFechaVencimiento().isBefore(LocalDate.now()) || cupon.getFechaVencimiento().equals(LocalDate.now())) {
-                        throw new NegocioException("La fecha de vencimiento del cupon expiró");
-                    }
+                if (pedidosActivos >= 3) {
+                    throw new NegocioException("Limite alcanzado: Ya tienes 3 pedidos activos.");
+                }
 
-                    if (cupon.getNumUsos() >= cupon.getTopeUsos()) {
-                        throw new NegocioException("El cupon llegó a su limite de usos");
-                    }
+                // Insertar pedido (debe regresar con ID seteado). Si lleva cupón, el DAO
+                // lo canjea en la misma transacción y rechaza el pedido si no es válido.
+                PedidoProgramado pedidoGuardado = pedidoDAO.insertarPedidoProgramado(pedidoProgramado, detalles);
 
-                } catch (PersistenciaException e) {
-                    throw new NegocioException("El pedido se guardó, pero no se pudo actualizar el uso del cupón: " + e.getMessage(), e);
-                }
+                unidad.confirmar();
+                return pedidoGuardado;
             }
-
-            return pedidoGuardado;
         } catch (PersistenciaException ex) {
             LOG.warning("No se pudo agregar el pedido programado " + ex);
-            throw new NegocioException("No se pudo agregar el pedido programado. ", ex);
+            throw new NegocioException("No se pudo agregar el pedido programado. " + ex.getMessage(), ex);
         }
     }
 
@@ -166,7 +171,8 @@ public class PedidoBO implements iPedidoBO {
      * Cambia el estado actual de un pedido (ej. de Pendiente a En Proceso).
      * @param idPedido ID del pedido a modificar.
      * @param estado Nuevo estado (Enum <code>EstadoPedido</code>).
-     * @throws NegocioException Si el ID es inválido o el estado es nulo.
+     * @throws NegocioException Si el ID es inválido, el estado es nulo o el pedido no
+     * puede pasar a ese estado desde el que tiene.
      */
     @Override
     public void actualizarEstadoPedido(int idPedido, EstadoPedido estado) throws NegocioException {
@@ -184,6 +190,37 @@ public class PedidoBO implements iPedidoBO {
         }
     }
 
+    /**
+     * Cambia varios pedidos al mismo estado en una sola transacción.
+     * <p>Entregar un pedido express requiere su PIN, así que al cambiar a 'Entregado'
+     * los pedidos express se rechazan y deben entregarse uno por uno.</p>
+     * @param idsPedidos IDs de los pedidos a modificar.
+     * @param estado Nuevo estado (Enum <code>EstadoPedido</code>).
+     * @return Los pedidos que cambiaron y el motivo de cada rechazado.
+     * @throws NegocioException Si la lista está vacía, algún ID es inválido, el estado es
+     * nulo o falla la actualización.
+     */
+    @Override
+    public ResultadoCambioEstado actualizarEstadoPedidos(Collection<Integer> idsPedidos, EstadoPedido estado) throws NegocioException {
+        try {
+            if (idsPedidos == null || idsPedidos.isEmpty()) {
+                throw new NegocioException("Selecciona al menos un pedido.");
+            }
+            for (Integer id : idsPedidos) {
+                if (id == null || id <= 0) {
+                    throw new NegocioException("Id de pedido invalido: " + id);
+                }
+            }
+            if (estado == null) {
+                throw new NegocioException("El estado es obligatorio.");
+            }
+            return pedidoDAO.actualizarEstadoPedidos(idsPedidos, estado, estado == EstadoPedido.Entregado);
+        } catch (PersistenciaException ex) {
+            LOG.warning("No se pudo actualizar el estado de los pedidos. " + ex);
+            throw new NegocioException("No se pudo actualizar el estado de los pedidos. " + ex.getMessage(), ex);
+        }
+    }
+
     /**
      * Recupera el historial de pedidos de un cliente específico.
      * @param idCliente ID del cliente.
@@ -225,24 +262,22 @@ public class PedidoBO implements iPedidoBO {
     }
 
     /**
-     * Genera un folio único con formato "PE####" verificando que no exista en la BD.
+     * Genera un folio único con formato "PE####" a partir de un consecutivo reservado.
+     * <p>El costo es constante: el consecutivo sale de un bloque en memoria y no se
+     * sondean folios existentes. Al pasar de <code>PE9999</code> el folio no se reinicia,
+     * sino que crece de ancho (<code>PE10000</code>, <code>PE10001</code>, ...) hasta
+     * <code>PE99999999</code>, el máximo que cabe en la columna VARCHAR(10).</p>
      * @return Folio de pedido único.
-     * @throws NegocioException Si falla la verificación de existencia en persistencia.
+     * @throws NegocioException Si falla la reserva del consecutivo o se agotaron los folios.
      */
     @Override
     public String generarFolio() throws NegocioException {
-        int contador = 1;
         try {
-            String folio;
-            boolean existe;
-            do {
-                folio = String.format("PE%04d", contador);
-                existe = pedidoDAO.existeFolio(folio);
-                if (existe) {
-                    contador++;
-                }
-            } while (existe);
-            return folio;
+            long consecutivo = pedidoDAO.obtenerSiguienteConsecutivoDeFolio();
+            if (consecutivo > CONSECUTIVO_FOLIO_MAXIMO) {
+                throw new NegocioException("Se agotaron los folios de pedidos express.");
+            }
+            return String.format("PE%04d", consecutivo);
         } catch (PersistenciaException ex) {
             LOG.warning("No se pudo generar el folio de pedido. " + ex);
             throw new NegocioException("Error generando número de folio", ex);
@@ -263,7 +298,7 @@ public class PedidoBO implements iPedidoBO {
     /**
      * Registra un pedido express, hasheando el PIN para almacenamiento seguro.
      * <p>Aplica la misma restricción de máximo 3 pedidos activos si el pedido 
-     * está ligado a un cliente registrado.</p>
+     * está ligado a un cliente registrado, en la misma transacción que la inserción.</p>
      * @param pedidoExpress Datos del pedido express (incluye PIN y Folio).
      * @param detalles Partidas del pedido.
      * @return El pedido express registrado.
@@ -297,18 +332,23 @@ public class PedidoBO implements iPedidoBO {
                 }
             }
 
-            //hashear pin
-            String hash = PasswordUtil.hash(pedidoExpress.getPin());
+            //hashear pin (HMAC o PBKDF2, ver PinUtil)
+            String hash = PinUtil.hash(pedidoExpress.getPin());
             pedidoExpress.setPin(hash);
 
-            if (pedidoExpress.getCliente() != null) {
-                int pedidosActivos = pedidoDAO.contarPedidosActivosPorCliente(pedidoExpress.getCliente().getId());
-                if (pedidosActivos >= 3) {
-                    throw new NegocioException("Limite alcanzado: Ya tienes 3 pedidos activos.");
+            try (UnidadTrabajo unidad = transacciones.iniciar()) {
+                if (pedidoExpress.getCliente() != null) {
+                    int pedidosActivos = pedidoDAO.contarPedidosActivosPorCliente(pedidoExpress.getCliente().getId());
+                    if (pedidosActivos >= 3) {
+                        throw new NegocioException("Limite alcanzado: Ya tienes 3 pedidos activos.");
+                    }
                 }
-            }
 
-            return pedidoDAO.insertarPedidoExpress(pedidoExpress, detalles);
+                PedidoExpress pedidoGuardado = pedidoDAO.insertarPedidoExpress(pedidoExpress, detalles);
+
+                unidad.confirmar();
+                return pedidoGuardado;
+            }
         } catch (PersistenciaException ex) {
             LOG.warning("No se pudo agregar el pedido express " + ex);
             throw new NegocioException("No se pudo agregar el pedido express. " + ex.getMessage(), ex);
@@ -341,14 +381,10 @@ public class PedidoBO implements iPedidoBO {
                 throw new NegocioException("Debes ingresar el PIN para entregar el pedido express.");
             }
 
-            Pedido pedido = pedidoDAO.consultarPedidoPorId(idPedido);
-
-            if (!(pedido instanceof PedidoExpress)) {
-                throw new NegocioException("Este pedido no es express, no requiere PIN para entregarse.");
-            }
+            // Sólo el hash del PIN; el estado lo valida el UPDATE condicional del DAO
+            String hashPin = pedidoDAO.obtenerPinHashPorPedido(idPedido);
 
-            PedidoExpress pe = (PedidoExpress) pedido;
-            boolean ok = PasswordUtil.verificar(pinIngresado.trim(), pe.getPin());
+            boolean ok = PinUtil.verificar(pinIngresado.trim(), hashPin);
             if (!ok) {
                 throw new NegocioException("PIN incorrecto. No se pudo marcar como entregado.");
             }
@@ -374,6 +410,48 @@ public class PedidoBO implements iPedidoBO {
         }
     }
 
+    /**
+     * Obtiene una página del listado general de pedidos.
+     * @param tamanioPagina Número de pedidos por página (1 a 200).
+     * @param cursor Cursor de la página anterior, o null para la primera.
+     * @return Página de pedidos con el cursor de la siguiente.
+     * @throws NegocioException Si el tamaño de página es inválido o falla la consulta.
+     */
+    @Override
+    public PaginaPedidos listarPedidosPagina(int tamanioPagina, CursorPedidos cursor) throws NegocioException {
+        validarTamanioPagina(tamanioPagina);
+        try {
+            return pedidoDAO.listarPedidosPagina(tamanioPagina, cursor);
+        } catch (PersistenciaException ex) {
+            LOG.warning("No se pudo listar la página de pedidos. " + ex);
+            throw new NegocioException("No se pudieron listar los pedidos. " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Obtiene una página del listado de pedidos filtrado por folio, teléfono o rango de fechas.
+     * @param tamanioPagina Número de pedidos por página (1 a 200).
+     * @param cursor Cursor de la página anterior, o null para la primera.
+     * @return Página de pedidos filtrados con el cursor de la siguiente.
+     * @throws NegocioException Si el tamaño de página es inválido o falla la consulta.
+     */
+    @Override
+    public PaginaPedidos listarPedidosFiltroPagina(String folio, String telefono, LocalDate fechaInicio, LocalDate fechaFin,
+            int tamanioPagina, CursorPedidos cursor) throws NegocioException {
+        validarTamanioPagina(tamanioPagina);
+        try {
+            return pedidoDAO.listarPedidosFiltroPagina(folio, telefono, fechaInicio, fechaFin, tamanioPagina, cursor);
+        } catch (PersistenciaException ex) {
+            throw new NegocioException("No se pudieron filtrar los pedidos. " + ex.getMessage(), ex);
+        }
+    }
+
+    private void validarTamanioPagina(int tamanioPagina) throws NegocioException {
+        if (tamanioPagina <= 0 || tamanioPagina > TAMANIO_PAGINA_MAXIMO) {
+            throw new NegocioException("El tamaño de página debe estar entre 1 y " + TAMANIO_PAGINA_MAXIMO + ".");
+        }
+    }
+
     /**
      * Método especializado para la entrega física de pedidos express mediante PIN.
      * @param idPedido ID del pedido express.
@@ -391,7 +469,7 @@ public class PedidoBO implements iPedidoBO {
             }
 
             String hashBD = pedidoDAO.obtenerPinHashPorPedido(idPedido);
-            boolean ok = PasswordUtil.verificar(pinPlano.trim(), hashBD);
+            boolean ok = PinUtil.verificar(pinPlano.trim(), hashBD);
             if (!ok) {
                 throw new NegocioException("PIN incorrecto. No se pudo entregar el pedido.");
             }
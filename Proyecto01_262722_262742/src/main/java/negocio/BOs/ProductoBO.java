@@ -4,8 +4,13 @@
  */
 package negocio.BOs;
 
+import dominio.EstadoProducto;
 import dominio.Producto;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import negocio.Excepciones.NegocioException;
 import persistencia.DAOs.iProductoDAO;
@@ -16,6 +21,11 @@ import persistencia.Excepciones.PersistenciaException;
  * <p>Esta clase encapsula la lógica de negocio relacionada con los productos 
  * que se ofrecen (panes, pasteles, etc.). Se asegura de que la información 
  * ingresada sea íntegra antes de interactuar con la capa de persistencia.</p>
+ * <p>El catálogo de productos disponibles se guarda en memoria como una instantánea
+ * inmutable: las lecturas no consultan la base de datos ni toman candados, sólo leen
+ * la referencia <code>volatile</code> vigente. Las altas y cambios hechos por esta
+ * terminal reemplazan la instantánea por una copia actualizada (copy-on-write); los
+ * cambios hechos por otras terminales se ven al vencer el tiempo de vida (TTL).</p>
  * * @author 262722
  * @author 262742
  */
@@ -25,12 +35,53 @@ public class ProductoBO implements iProductoBO {
     private iProductoDAO productoDAO;
     private static final Logger LOG = Logger.getLogger(ProductoBO.class.getName());
 
+    /**
+     * Tiempo de vida por defecto del catálogo en memoria.
+     */
+    public static final Duration TTL_CATALOGO_DEFECTO = Duration.ofMinutes(2);
+
+    /**
+     * Catálogo en memoria; null cuando no se ha cargado o fue invalidado.
+     */
+    private volatile Instantanea catalogo;
+
+    private final long ttlNanos;
+    private final Object candadoCarga = new Object();
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+
+    /**
+     * Productos disponibles tal como se leyeron (o se actualizaron) y el momento de la
+     * última carga completa desde la base de datos. Nunca se modifica después de publicarse.
+     */
+    private static final class Instantanea {
+
+        private final List<Producto> productos;
+        private final long cargadaEn;
+
+        Instantanea(List<Producto> productos, long cargadaEn) {
+            this.productos = Collections.unmodifiableList(productos);
+            this.cargadaEn = cargadaEn;
+        }
+    }
+
     /**
      * Constructor que inyecta la dependencia del DAO de productos.
      * @param producto Implementación de la interfaz iProductoDAO.
      */
     public ProductoBO(iProductoDAO producto) {
+        this(producto, TTL_CATALOGO_DEFECTO);
+    }
+
+    /**
+     * Constructor que además configura el tiempo de vida del catálogo en memoria.
+     * @param producto Implementación de la interfaz iProductoDAO.
+     * @param ttlCatalogo Tiempo tras el cual el catálogo se vuelve a leer de la base de datos
+     * (<code>Duration.ZERO</code> desactiva la caché).
+     */
+    public ProductoBO(iProductoDAO producto, Duration ttlCatalogo) {
         this.productoDAO = producto;
+        this.ttlNanos = Math.max(0, ttlCatalogo.toNanos());
     }
 
     /**
@@ -96,7 +147,9 @@ public class ProductoBO implements iProductoBO {
     public Producto insertarProducto(Producto producto) throws NegocioException {
         try {
             validarProducto(producto);
-            return productoDAO.insertarProducto(producto);
+            Producto insertado = productoDAO.insertarProducto(producto);
+            reflejarEnCatalogo(insertado);
+            return insertado;
 
         } catch (PersistenciaException ex) {
             LOG.warning("Error al agregar el producto " + ex);
@@ -122,7 +175,9 @@ public class ProductoBO implements iProductoBO {
             }
             validarProducto(producto);
 
-            return productoDAO.actualizarProducto(producto);
+            Producto actualizado = productoDAO.actualizarProducto(producto);
+            reflejarEnCatalogo(actualizado);
+            return actualizado;
 
         } catch (PersistenciaException ex) {
             LOG.warning("Error al actualizar el producto " + ex);
@@ -131,17 +186,116 @@ public class ProductoBO implements iProductoBO {
     }
 
     /**
-     * Recupera la lista completa de todos los productos en el sistema.
+     * Recupera la lista de productos disponibles.
+     * <p>Se sirve desde el catálogo en memoria mientras no haya vencido su TTL; si venció
+     * o no existe, una sola llamada lo recarga desde la base de datos y las demás esperan
+     * ese resultado. Cada llamada recibe copias de los productos, así que modificarlos no
+     * altera el catálogo.</p>
      * * @return Una lista de objetos <code>Producto</code>.
      * @throws NegocioException Si ocurre un problema al comunicarse con la base de datos.
      */
     @Override
     public List<Producto> listarProductos() throws NegocioException {
-        try {
-            return productoDAO.listarProductos();
-        } catch (PersistenciaException ex) {
-            LOG.warning("No se pudieron listar los productos. " + ex);
-            throw new NegocioException("No se pudieron listar los productos.", ex);
+        Instantanea actual = catalogo;
+        if (vigente(actual)) {
+            aciertos.incrementAndGet();
+            return copiar(actual.productos);
         }
+
+        synchronized (candadoCarga) {
+            actual = catalogo;
+            if (vigente(actual)) {
+                aciertos.incrementAndGet();
+                return copiar(actual.productos);
+            }
+
+            fallos.incrementAndGet();
+            try {
+                List<Producto> productos = productoDAO.listarProductos();
+                actual = new Instantanea(copiar(productos), System.nanoTime());
+                catalogo = actual;
+                return copiar(actual.productos);
+            } catch (PersistenciaException ex) {
+                LOG.warning("No se pudieron listar los productos. " + ex);
+                throw new NegocioException("No se pudieron listar los productos.", ex);
+            }
+        }
+    }
+
+    /**
+     * Descarta el catálogo en memoria; la siguiente consulta lo lee de la base de datos.
+     */
+    @Override
+    public void invalidarCatalogo() {
+        catalogo = null;
+    }
+
+    /**
+     * Obtiene cuántas consultas del catálogo se resolvieron desde memoria.
+     * @return Número de aciertos de la caché del catálogo.
+     */
+    @Override
+    public long getAciertosCatalogo() {
+        return aciertos.get();
+    }
+
+    /**
+     * Obtiene cuántas consultas del catálogo tuvieron que leer la base de datos.
+     * @return Número de fallos de la caché del catálogo.
+     */
+    @Override
+    public long getFallosCatalogo() {
+        return fallos.get();
+    }
+
+    private boolean vigente(Instantanea instantanea) {
+        return instantanea != null && System.nanoTime() - instantanea.cargadaEn < ttlNanos;
+    }
+
+    /**
+     * Publica una nueva instantánea con el producto insertado o actualizado: se agrega o
+     * reemplaza si está disponible y se quita si dejó de estarlo. La hora de carga se
+     * conserva, de modo que los cambios de otras terminales se siguen viendo al vencer el TTL.
+     */
+    private void reflejarEnCatalogo(Producto producto) {
+        if (producto == null) {
+            invalidarCatalogo();
+            return;
+        }
+
+        synchronized (candadoCarga) {
+            Instantanea actual = catalogo;
+            if (actual == null) {
+                return;
+            }
+
+            List<Producto> nuevos = new ArrayList<>(actual.productos.size() + 1);
+            boolean reemplazado = false;
+            for (Producto p : actual.productos) {
+                if (p.getId() != producto.getId()) {
+                    nuevos.add(p);
+                } else if (producto.getEstado() == EstadoProducto.Disponible) {
+                    nuevos.add(copiar(producto));
+                    reemplazado = true;
+                }
+            }
+            if (!reemplazado && producto.getEstado() == EstadoProducto.Disponible) {
+                nuevos.add(copiar(producto));
+            }
+
+            catalogo = new Instantanea(nuevos, actual.cargadaEn);
+        }
+    }
+
+    private static List<Producto> copiar(List<Producto> productos) {
+        List<Producto> copias = new ArrayList<>(productos.size());
+        for (Producto p : productos) {
+            copias.add(copiar(p));
+        }
+        return copias;
+    }
+
+    private static Producto copiar(Producto p) {
+        return new Producto(p.getId(), p.getNombre(), p.getTipo(), p.getPrecio(), p.getEstado(), p.getDescripcion());
     }
-}
\ No newline at end of file
+}
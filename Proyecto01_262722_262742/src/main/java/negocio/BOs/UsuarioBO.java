@@ -6,8 +6,11 @@ package negocio.BOs;
 
 import dominio.Cliente;
 import dominio.Empleado;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 import negocio.Excepciones.NegocioException;
+import negocio.util.EjecutorAutenticacion;
+import negocio.util.PasswordUtil;
 import persistencia.DAOs.iUsuarioDAO;
 import persistencia.Excepciones.PersistenciaException;
 
@@ -63,17 +66,21 @@ public class UsuarioBO implements iUsuarioBO {
 
             String hashBD = empleado.getContrasenia();
 
-            boolean ok = org.mindrot.jbcrypt.BCrypt.checkpw(contrasenia, hashBD);
+            boolean ok = EjecutorAutenticacion.esperar(EjecutorAutenticacion.compartido().verificar(contrasenia, hashBD));
 
             if (!ok) {
                 throw new NegocioException("Usuario o contraseña incorrectos.");
             }
 
+            actualizarHashSiHaceFalta(usuarioDAO, empleado.getId(), contrasenia, hashBD);
+
             return empleado;
 
         } catch (PersistenciaException ex) {
             LOG.warning("Error al iniciar sesión empleado. " + ex);
             throw new NegocioException("Error al iniciar sesión empleado: " + ex.getMessage(), ex);
+        } catch (RejectedExecutionException ex) {
+            throw new NegocioException(ex.getMessage(), ex);
         }
     }
 
@@ -108,17 +115,48 @@ public class UsuarioBO implements iUsuarioBO {
 
             String hashBD = cliente.getContrasenia();
 
-            boolean ok = org.mindrot.jbcrypt.BCrypt.checkpw(contrasenia, hashBD);
+            boolean ok = EjecutorAutenticacion.esperar(EjecutorAutenticacion.compartido().verificar(contrasenia, hashBD));
 
             if (!ok) {
                 throw new NegocioException("Usuario o contraseña incorrectos.");
             }
 
+            actualizarHashSiHaceFalta(usuarioDAO, cliente.getId(), contrasenia, hashBD);
+
             return cliente;
 
         } catch (PersistenciaException ex) {
             LOG.warning("Error al iniciar sesión cliente. " + ex);
             throw new NegocioException("Error al iniciar sesión cliente: " + ex.getMessage(), ex);
+        } catch (RejectedExecutionException ex) {
+            throw new NegocioException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Si el hash se generó con un costo menor al configurado, lo vuelve a generar con
+     * la contraseña recién verificada y lo guarda. Una falla aquí no impide el inicio de sesión.
+     * <p>Lo comparten los inicios de sesión de {@link UsuarioBO} y {@link ClienteBO}.</p>
+     *
+     * @param usuarioDAO DAO con el que se guarda el hash nuevo.
+     * @param idUsuario ID del usuario autenticado.
+     * @param contrasenia Contraseña en texto plano, ya verificada.
+     * @param hashBD Hash con el que se verificó.
+     * @return El hash nuevo si se guardó; <code>null</code> si no hacía falta o no se pudo.
+     */
+    static String actualizarHashSiHaceFalta(iUsuarioDAO usuarioDAO, int idUsuario, String contrasenia, String hashBD) {
+        if (!PasswordUtil.necesitaRehash(hashBD)) {
+            return null;
+        }
+        try {
+            String hashNuevo = EjecutorAutenticacion.esperar(EjecutorAutenticacion.compartido().hash(contrasenia));
+            if (usuarioDAO.actualizarContrasenia(idUsuario, hashBD, hashNuevo)) {
+                LOG.info("Hash de contraseña actualizado al costo " + PasswordUtil.getCosto() + " para el usuario " + idUsuario);
+                return hashNuevo;
+            }
+        } catch (PersistenciaException | RejectedExecutionException ex) {
+            LOG.warning("No se pudo actualizar el hash de la contraseña. " + ex);
         }
+        return null;
     }
-}
\ No newline at end of file
+}
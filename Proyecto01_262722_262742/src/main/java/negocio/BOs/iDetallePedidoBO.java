@@ -5,7 +5,9 @@
 package negocio.BOs;
 
 import dominio.DetallePedido;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import negocio.Excepciones.NegocioException;
 
 /**
@@ -37,4 +39,14 @@ public interface iDetallePedidoBO {
      * @throws NegocioException Si el ID es inválido o ocurre un error durante la consulta o el cálculo.
      */
     public float obtenerSubtotalPedido(int idPedido) throws NegocioException;
+
+    /**
+     * Recupera los detalles de varios pedidos en una sola consulta.
+     *
+     * @param idsPedidos Identificadores de los pedidos a consultar.
+     * @return Mapa del ID de cada pedido a sus detalles; los pedidos sin detalles
+     * tienen una lista vacía.
+     * @throws NegocioException Si algún ID es inválido o ocurre un error en la capa de persistencia.
+     */
+    public Map<Integer, List<DetallePedido>> listarDetallesPorPedidos(Collection<Integer> idsPedidos) throws NegocioException;
 }
\ No newline at end of file
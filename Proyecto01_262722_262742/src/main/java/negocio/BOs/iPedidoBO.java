@@ -4,12 +4,16 @@
  */
 package negocio.BOs;
 
+import dominio.CursorPedidos;
 import dominio.DetallePedido;
 import dominio.EstadoPedido;
+import dominio.PaginaPedidos;
 import dominio.Pedido;
 import dominio.PedidoExpress;
 import dominio.PedidoProgramado;
+import dominio.ResultadoCambioEstado;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import negocio.Excepciones.NegocioException;
 
@@ -63,6 +67,20 @@ public interface iPedidoBO {
      */
     public void actualizarEstadoPedido(int idPedido, EstadoPedido estado) throws NegocioException;
 
+    /**
+     * Cambia varios pedidos al mismo estado con una sola operación (ej. marcar como
+     * 'Listo' todas las charolas de una horneada).
+     * <p>Los pedidos que no pueden cambiar (no existen, su estado no lo permite, o son
+     * express y se quieren entregar sin PIN) se reportan con su motivo sin detener
+     * a los demás.</p>
+     *
+     * @param idsPedidos Identificadores de los pedidos a actualizar.
+     * @param estado El nuevo {@link EstadoPedido} que se asignará.
+     * @return Los pedidos que cambiaron y el motivo de cada rechazado.
+     * @throws NegocioException Si la lista o el estado son inválidos, o falla la actualización.
+     */
+    public ResultadoCambioEstado actualizarEstadoPedidos(Collection<Integer> idsPedidos, EstadoPedido estado) throws NegocioException;
+
     /**
      * Obtiene el historial completo de pedidos realizados por un cliente en específico.
      *
@@ -133,6 +151,31 @@ public interface iPedidoBO {
      */
     public List<Pedido> listarPedidosFiltro(String folio, String telefono, LocalDate fechaInicio, LocalDate fechaFin) throws NegocioException;
 
+    /**
+     * Obtiene una página del listado general de pedidos (activos primero, luego los entregados).
+     *
+     * @param tamanioPagina Número de pedidos por página.
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página.
+     * @return La página de pedidos con el cursor de la siguiente.
+     * @throws NegocioException Si el tamaño de página es inválido o falla la consulta.
+     */
+    public PaginaPedidos listarPedidosPagina(int tamanioPagina, CursorPedidos cursor) throws NegocioException;
+
+    /**
+     * Obtiene una página del listado de pedidos aplicando filtros opcionales.
+     *
+     * @param folio Folio exacto del pedido (puede ser null).
+     * @param telefono Teléfono asociado al cliente (puede ser null).
+     * @param fechaInicio Fecha inicial del rango (puede ser null).
+     * @param fechaFin Fecha final del rango (puede ser null).
+     * @param tamanioPagina Número de pedidos por página.
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página.
+     * @return La página de pedidos con el cursor de la siguiente.
+     * @throws NegocioException Si el tamaño de página es inválido o falla la consulta.
+     */
+    public PaginaPedidos listarPedidosFiltroPagina(String folio, String telefono, LocalDate fechaInicio, LocalDate fechaFin,
+            int tamanioPagina, CursorPedidos cursor) throws NegocioException;
+
     
     /**
      * Valida el PIN proporcionado y, de ser correcto, transiciona un pedido exprés específicamente al estado 'Entregado'.
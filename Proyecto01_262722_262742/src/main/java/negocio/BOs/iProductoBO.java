@@ -51,4 +51,21 @@ public interface iProductoBO {
      * @throws NegocioException Si ocurre un error al procesar la solicitud en la capa de datos.
      */
     public List<Producto> listarProductos() throws NegocioException;
+
+    /**
+     * Descarta el catálogo en memoria para que la siguiente consulta lo lea de la base de datos.
+     */
+    public void invalidarCatalogo();
+
+    /**
+     * Obtiene cuántas consultas del catálogo se resolvieron desde memoria.
+     * @return Número de aciertos de la caché del catálogo.
+     */
+    public long getAciertosCatalogo();
+
+    /**
+     * Obtiene cuántas consultas del catálogo tuvieron que leer la base de datos.
+     * @return Número de fallos de la caché del catálogo.
+     */
+    public long getFallosCatalogo();
 }
\ No newline at end of file
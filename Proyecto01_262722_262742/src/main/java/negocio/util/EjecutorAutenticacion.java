@@ -0,0 +1,233 @@
+package negocio.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * <b>Ejecutor dedicado para el trabajo de autenticación (BCrypt).</b>
+ * <p>Verificar o generar un hash BCrypt cuesta cientos de milisegundos de CPU. Si
+ * se hace en el hilo de eventos de Swing la ventana se congela, y si varias
+ * terminales inician sesión a la vez cada una compite por todos los núcleos.
+ * Este ejecutor corre esas tareas en un grupo fijo de hilos (uno por núcleo,
+ * dejando uno libre para la interfaz) y entrega el resultado como
+ * {@link CompletableFuture}.</p>
+ * <p>La cola de espera es acotada: si se llena, la tarea se rechaza de inmediato
+ * (el futuro termina con {@link RejectedExecutionException}) en lugar de acumular
+ * trabajo que el usuario ya no está esperando.</p>
+ * <p>Sólo se envía aquí el cálculo BCrypt ({@link #hash(String)},
+ * {@link #verificar(String, String)}); las consultas a la base de datos corren en
+ * el hilo que llama (en las pantallas, el de <code>AccesoAsincrono</code>), que
+ * espera el resultado con {@link #esperar(CompletableFuture)}.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public final class EjecutorAutenticacion {
+
+    /**
+     * Tareas que pueden esperar turno antes de rechazar nuevas.
+     */
+    public static final int CAPACIDAD_COLA_DEFECTO = 32;
+
+    private static final Logger LOG = Logger.getLogger(EjecutorAutenticacion.class.getName());
+
+    private static final EjecutorAutenticacion COMPARTIDO = new EjecutorAutenticacion(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), CAPACIDAD_COLA_DEFECTO);
+
+    private final ThreadPoolExecutor ejecutor;
+
+    private final AtomicLong completadas = new AtomicLong();
+    private final AtomicLong rechazadas = new AtomicLong();
+    private final AtomicLong nanosTotales = new AtomicLong();
+    private final AtomicLong nanosMaximo = new AtomicLong();
+
+    /**
+     * Crea un ejecutor con hilos y cola propios.
+     *
+     * @param hilos Número de hilos de trabajo (mínimo 1).
+     * @param capacidadCola Tareas que pueden esperar turno (mínimo 1).
+     */
+    public EjecutorAutenticacion(int hilos, int capacidadCola) {
+        int n = Math.max(1, hilos);
+        this.ejecutor = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capacidadCola)),
+                crearFabricaHilos(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Obtiene el ejecutor compartido por toda la aplicación.
+     *
+     * @return La instancia compartida.
+     */
+    public static EjecutorAutenticacion compartido() {
+        return COMPARTIDO;
+    }
+
+    /**
+     * Programa una tarea de cálculo de autenticación; no debe incluir consultas a la base de datos.
+     *
+     * @param <T> Tipo del resultado.
+     * @param tarea Trabajo a ejecutar; puede lanzar excepciones de negocio.
+     * @return Futuro con el resultado. Si la tarea lanza una excepción, el futuro termina
+     * con ella; si la cola está llena, termina con {@link RejectedExecutionException}.
+     */
+    public <T> CompletableFuture<T> ejecutar(Callable<T> tarea) {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+
+        try {
+            ejecutor.execute(() -> {
+                if (futuro.isDone()) {
+                    return; // cancelado mientras esperaba en la cola
+                }
+                long inicio = System.nanoTime();
+                try {
+                    futuro.complete(tarea.call());
+                } catch (Throwable ex) {
+                    futuro.completeExceptionally(ex);
+                } finally {
+                    registrarDuracion(System.nanoTime() - inicio);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rechazadas.incrementAndGet();
+            LOG.warning("Cola de autenticación llena (" + ejecutor.getQueue().size() + " en espera); se rechaza la tarea.");
+            futuro.completeExceptionally(new RejectedExecutionException(
+                    "Hay demasiadas solicitudes en proceso. Intenta de nuevo en unos segundos.", ex));
+        }
+
+        return futuro;
+    }
+
+    /**
+     * Genera el hash BCrypt de un valor fuera del hilo que llama.
+     *
+     * @param textoPlano Contraseña o PIN en texto plano.
+     * @return Futuro con el hash.
+     * @see PasswordUtil#hash(String)
+     */
+    public CompletableFuture<String> hash(String textoPlano) {
+        return ejecutar(() -> PasswordUtil.hash(textoPlano));
+    }
+
+    /**
+     * Verifica un valor contra su hash fuera del hilo que llama.
+     *
+     * @param textoPlano Valor ingresado por el usuario.
+     * @param hash Hash almacenado.
+     * @return Futuro con <code>true</code> si coinciden.
+     * @see PasswordUtil#verificar(String, String)
+     */
+    public CompletableFuture<Boolean> verificar(String textoPlano, String hash) {
+        return ejecutar(() -> PasswordUtil.verificar(textoPlano, hash));
+    }
+
+    /**
+     * Espera el resultado de una tarea de este ejecutor. No debe llamarse desde el
+     * hilo de eventos de Swing.
+     *
+     * @param <T> Tipo del resultado.
+     * @param futuro Futuro devuelto por {@link #hash(String)}, {@link #verificar(String, String)}
+     * o {@link #ejecutar(Callable)}.
+     * @return El resultado de la tarea.
+     * @throws RejectedExecutionException Si la cola estaba llena.
+     * @throws IllegalStateException Si la tarea terminó con una excepción verificada.
+     */
+    public static <T> T esperar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException ex) {
+            Throwable causa = ex.getCause();
+            if (causa instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (causa instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(causa);
+        }
+    }
+
+    private void registrarDuracion(long nanos) {
+        completadas.incrementAndGet();
+        nanosTotales.addAndGet(nanos);
+        nanosMaximo.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Tareas esperando turno en este momento.
+     * @return Profundidad actual de la cola.
+     */
+    public int getTareasEnCola() {
+        return ejecutor.getQueue().size();
+    }
+
+    /**
+     * Tareas ejecutándose en este momento.
+     * @return Número de hilos ocupados.
+     */
+    public int getTareasActivas() {
+        return ejecutor.getActiveCount();
+    }
+
+    /**
+     * Tareas terminadas (con éxito o con error) desde el arranque.
+     * @return Total de tareas completadas.
+     */
+    public long getTareasCompletadas() {
+        return completadas.get();
+    }
+
+    /**
+     * Tareas rechazadas por tener la cola llena desde el arranque.
+     * @return Total de tareas rechazadas.
+     */
+    public long getTareasRechazadas() {
+        return rechazadas.get();
+    }
+
+    /**
+     * Duración promedio de ejecución de una tarea (sin contar la espera en cola).
+     * @return Promedio en milisegundos, o 0 si aún no hay tareas completadas.
+     */
+    public double getDuracionPromedioMs() {
+        long n = completadas.get();
+        return n == 0 ? 0 : nanosTotales.get() / (double) n / 1_000_000;
+    }
+
+    /**
+     * Duración de la tarea más lenta desde el arranque.
+     * @return Máximo en milisegundos.
+     */
+    public double getDuracionMaximaMs() {
+        return nanosMaximo.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EjecutorAutenticacion{enCola=%d, activas=%d, completadas=%d, rechazadas=%d, promedioMs=%.1f, maximoMs=%.1f}",
+                getTareasEnCola(), getTareasActivas(), getTareasCompletadas(), getTareasRechazadas(),
+                getDuracionPromedioMs(), getDuracionMaximaMs());
+    }
+
+    /**
+     * Hilos demonio con nombre, para no impedir que la aplicación termine.
+     */
+    private static ThreadFactory crearFabricaHilos() {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread hilo = new Thread(r, "autenticacion-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package negocio.util;
+
+/**
+ * <b>Estrategia de hash para los PIN de pedidos express.</b>
+ * <p>Cada estrategia genera hashes que empiezan con su propio prefijo (por ejemplo
+ * <code>$hmac-sha256$</code>), de modo que {@link PinUtil} sabe con cuál verificar
+ * un hash guardado sin columnas extra en la base de datos.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public interface HasherPin {
+
+    /**
+     * Indica si un hash guardado fue generado por esta estrategia.
+     *
+     * @param hash Hash almacenado.
+     * @return <code>true</code> si el prefijo corresponde a esta estrategia.
+     */
+    boolean reconoce(String hash);
+
+    /**
+     * Genera el hash de un PIN, incluyendo prefijo y parámetros.
+     *
+     * @param pin PIN en texto plano.
+     * @return Hash autodescriptivo listo para guardarse (máximo 100 caracteres).
+     */
+    String hash(String pin);
+
+    /**
+     * Verifica un PIN contra un hash de esta estrategia.
+     *
+     * @param pin PIN en texto plano.
+     * @param hash Hash almacenado.
+     * @return <code>true</code> si el PIN corresponde al hash.
+     */
+    boolean verificar(String pin, String hash);
+}
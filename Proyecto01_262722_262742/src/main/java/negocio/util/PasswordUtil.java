@@ -1,5 +1,7 @@
 package negocio.util;
 
+import java.time.Duration;
+import java.util.logging.Logger;
 import org.mindrot.jbcrypt.BCrypt;
 
 /**
@@ -13,6 +15,29 @@ import org.mindrot.jbcrypt.BCrypt;
  * @author 262742
  */
 public class PasswordUtil {
+
+    /**
+     * Costo (log_rounds) cuando no se configura otro.
+     */
+    public static final int COSTO_DEFECTO = 12;
+
+    /**
+     * Costo mínimo aceptado, aun si la calibración sugiere uno menor.
+     */
+    public static final int COSTO_MINIMO = 10;
+
+    /**
+     * Costo máximo que se prueba al calibrar.
+     */
+    public static final int COSTO_MAXIMO = 16;
+
+    private static final Logger LOG = Logger.getLogger(PasswordUtil.class.getName());
+
+    /**
+     * Costo con el que se generan los hashes nuevos. Se toma de la propiedad
+     * <code>panaderia.bcrypt.costo</code> o se ajusta con {@link #calibrar(Duration)}.
+     */
+    private static volatile int costo = limitar(Integer.getInteger("panaderia.bcrypt.costo", COSTO_DEFECTO));
     
     /**
      * Constructor privado de la clase <b>PasswordUtil</b>.
@@ -24,16 +49,16 @@ public class PasswordUtil {
 
     /**
      * Encripta (aplica un hash) a una contraseña en texto plano.
-     * <p>Utiliza el algoritmo BCrypt para generar un "salt" aleatorio con una 
-     * carga de trabajo (log_rounds) de 12, lo cual ofrece un excelente equilibrio 
-     * entre seguridad y rendimiento.</p>
+     * <p>Utiliza el algoritmo BCrypt para generar un "salt" aleatorio con la 
+     * carga de trabajo (log_rounds) configurada, 12 por defecto, lo cual ofrece un
+     * excelente equilibrio entre seguridad y rendimiento.</p>
      *
      * @param plainPassword La contraseña original ingresada por el usuario.
      * @return Un <code>String</code> que contiene el hash seguro (y su salt) 
      * listo para ser guardado en la base de datos.
      */
     public static String hash(String plainPassword) {
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(12));
+        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(costo));
     }
 
     /**
@@ -52,4 +77,83 @@ public class PasswordUtil {
         if (plainPassword == null || hashedPassword == null) return false;
         return BCrypt.checkpw(plainPassword, hashedPassword);
     }
-}
\ No newline at end of file
+
+    /**
+     * Indica si un hash válido fue generado con un costo menor al configurado.
+     * <p>Se consulta después de un {@link #verificar(String, String)} exitoso: como en
+     * ese momento se tiene la contraseña en texto plano, se puede generar el hash con
+     * el costo actual y guardarlo, sin pedirle al usuario que la cambie. Un hash con
+     * costo mayor se conserva: nunca se baja la protección de una contraseña.</p>
+     *
+     * @param hashedPassword Hash almacenado (formato <code>$2a$12$...</code>).
+     * @return <code>true</code> si su costo es menor al actual; <code>false</code> si es igual
+     * o mayor, o si el formato no se reconoce.
+     */
+    public static boolean necesitaRehash(String hashedPassword) {
+        if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(3) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(hashedPassword.substring(4, 6)) < costo;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Elige el costo más alto cuyo hash tarda a lo más <code>objetivo</code> en este equipo.
+     * <p>Mide un hash con {@link #COSTO_MINIMO} y sube de uno en uno mientras el siguiente
+     * (que tarda el doble) quepa en el objetivo. Nunca baja de {@link #COSTO_MINIMO} ni
+     * sube de {@link #COSTO_MAXIMO}. Todas las terminales que comparten la base de datos
+     * deben usar el mismo costo; si no, los hashes suben al costo de la terminal más alta.</p>
+     *
+     * @param objetivo Tiempo máximo deseado para generar (o verificar) un hash.
+     * @return El costo elegido, que queda como costo actual.
+     */
+    public static int calibrar(Duration objetivo) {
+        long objetivoNanos = objetivo.toNanos();
+        BCrypt.hashpw("calentamiento", BCrypt.gensalt(4)); // que la primera medición no incluya la carga de clases
+
+        int elegido = COSTO_MINIMO;
+        long nanos = medir(elegido);
+
+        while (elegido < COSTO_MAXIMO && nanos * 2 <= objetivoNanos) {
+            elegido++;
+            nanos = medir(elegido);
+            if (nanos > objetivoNanos) {
+                elegido--;
+                break;
+            }
+        }
+
+        costo = elegido;
+        LOG.info(String.format("Costo BCrypt calibrado: %d (objetivo %d ms)", elegido, objetivo.toMillis()));
+        return elegido;
+    }
+
+    private static long medir(int costoPrueba) {
+        long inicio = System.nanoTime();
+        BCrypt.hashpw("calibracion", BCrypt.gensalt(costoPrueba));
+        return System.nanoTime() - inicio;
+    }
+
+    /**
+     * Obtiene el costo con el que se generan los hashes nuevos.
+     * @return El costo (log_rounds) actual.
+     */
+    public static int getCosto() {
+        return costo;
+    }
+
+    /**
+     * Cambia el costo con el que se generan los hashes nuevos.
+     * @param nuevoCosto Costo deseado; se ajusta al rango permitido.
+     */
+    public static void setCosto(int nuevoCosto) {
+        costo = limitar(nuevoCosto);
+    }
+
+    private static int limitar(int valor) {
+        return Math.max(COSTO_MINIMO, Math.min(COSTO_MAXIMO, valor));
+    }
+}
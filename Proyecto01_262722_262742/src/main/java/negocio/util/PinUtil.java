@@ -0,0 +1,245 @@
+package negocio.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.logging.Logger;
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * <b>Clase utilitaria para el hash y verificación de los PIN de pedidos express.</b>
+ * <p>Un PIN se verifica una sola vez, en el mostrador, al entregar el pedido. Con
+ * BCrypt de costo 12 esa verificación tomaba cientos de milisegundos de CPU, así que
+ * los PIN nuevos usan una estrategia más ligera, elegida al arrancar:</p>
+ * <ul>
+ * <li><b>HMAC-SHA256 con pimienta</b> (<code>$hmac-sha256$</code>): si se configura
+ * la pimienta en la propiedad <code>panaderia.pin.pimienta</code> o en la variable de
+ * entorno <code>PANADERIA_PIN_PIMIENTA</code>. La pimienta no se guarda en la base de
+ * datos, así que quien robe la tabla no puede probar los PIN por fuerza bruta.</li>
+ * <li><b>PBKDF2-SHA256</b> (<code>$pbkdf2-sha256$</code>): si no hay pimienta. Las
+ * iteraciones se ajustan con <code>panaderia.pin.iteraciones</code>.</li>
+ * </ul>
+ * <p>Los hashes BCrypt (<code>$2a$</code>, <code>$2b$</code>, <code>$2y$</code>) de
+ * pedidos ya registrados se siguen verificando con BCrypt.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public final class PinUtil {
+
+    /**
+     * Iteraciones de PBKDF2 cuando no se configuran otras.
+     */
+    public static final int ITERACIONES_DEFECTO = 100_000;
+
+    private static final int BYTES_SAL = 16;
+
+    private static final Logger LOG = Logger.getLogger(PinUtil.class.getName());
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final Base64.Encoder B64 = Base64.getEncoder().withoutPadding();
+
+    private static final Base64.Decoder B64_DEC = Base64.getDecoder();
+
+    private static final byte[] PIMIENTA = leerPimienta();
+
+    private static final HasherPin HMAC = new HasherPinHmac(PIMIENTA);
+
+    private static final HasherPin PBKDF2 = new HasherPinPbkdf2(
+            Integer.getInteger("panaderia.pin.iteraciones", ITERACIONES_DEFECTO));
+
+    private static final HasherPin BCRYPT = new HasherPinBCrypt();
+
+    /**
+     * Estrategia con la que se generan los PIN nuevos.
+     */
+    private static final HasherPin ACTUAL = PIMIENTA != null ? HMAC : PBKDF2;
+
+    /**
+     * Estrategias con las que se puede verificar un hash guardado.
+     */
+    private static final List<HasherPin> CONOCIDAS = List.of(HMAC, PBKDF2, BCRYPT);
+
+    private PinUtil() {}
+
+    /**
+     * Genera el hash de un PIN con la estrategia configurada.
+     *
+     * @param pin PIN en texto plano.
+     * @return Hash con prefijo, listo para guardarse en <code>PedidosExpress.pin</code>.
+     */
+    public static String hash(String pin) {
+        return ACTUAL.hash(pin);
+    }
+
+    /**
+     * Verifica un PIN contra su hash, sea cual sea la estrategia con que se generó.
+     *
+     * @param pin PIN ingresado en el mostrador.
+     * @param hash Hash almacenado.
+     * @return <code>true</code> si coinciden; <code>false</code> si no, si alguno es nulo
+     * o si el formato del hash no se reconoce.
+     */
+    public static boolean verificar(String pin, String hash) {
+        if (pin == null || hash == null) return false;
+
+        for (HasherPin hasher : CONOCIDAS) {
+            if (hasher.reconoce(hash)) {
+                try {
+                    return hasher.verificar(pin, hash);
+                } catch (IllegalArgumentException ex) {
+                    LOG.warning("Hash de PIN mal formado: " + ex.getMessage());
+                    return false;
+                }
+            }
+        }
+
+        LOG.warning("Formato de hash de PIN no reconocido.");
+        return false;
+    }
+
+    private static byte[] leerPimienta() {
+        String valor = System.getProperty("panaderia.pin.pimienta", System.getenv("PANADERIA_PIN_PIMIENTA"));
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        return valor.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] sal() {
+        byte[] sal = new byte[BYTES_SAL];
+        RANDOM.nextBytes(sal);
+        return sal;
+    }
+
+    /**
+     * <code>$hmac-sha256$sal$mac</code>, con mac = HMAC-SHA256(pimienta, sal || pin).
+     */
+    private static final class HasherPinHmac implements HasherPin {
+
+        private static final String PREFIJO = "$hmac-sha256$";
+
+        private final byte[] pimienta;
+
+        private HasherPinHmac(byte[] pimienta) {
+            this.pimienta = pimienta;
+        }
+
+        @Override
+        public boolean reconoce(String hash) {
+            return hash.startsWith(PREFIJO);
+        }
+
+        @Override
+        public String hash(String pin) {
+            byte[] sal = sal();
+            return PREFIJO + B64.encodeToString(sal) + "$" + B64.encodeToString(mac(sal, pin));
+        }
+
+        @Override
+        public boolean verificar(String pin, String hash) {
+            if (pimienta == null) {
+                LOG.severe("Hay PIN con HMAC pero no se configuró la pimienta (panaderia.pin.pimienta).");
+                return false;
+            }
+
+            String[] partes = hash.substring(PREFIJO.length()).split("\\$");
+            if (partes.length != 2) {
+                return false;
+            }
+            byte[] esperado = B64_DEC.decode(partes[1]);
+            return MessageDigest.isEqual(esperado, mac(B64_DEC.decode(partes[0]), pin));
+        }
+
+        private byte[] mac(byte[] sal, String pin) {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(pimienta, "HmacSHA256"));
+                mac.update(sal);
+                return mac.doFinal(pin.getBytes(StandardCharsets.UTF_8));
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HMAC-SHA256 no disponible", ex);
+            }
+        }
+    }
+
+    /**
+     * <code>$pbkdf2-sha256$iteraciones$sal$hash</code>.
+     */
+    private static final class HasherPinPbkdf2 implements HasherPin {
+
+        private static final String PREFIJO = "$pbkdf2-sha256$";
+
+        private static final int BITS_HASH = 256;
+
+        private final int iteraciones;
+
+        private HasherPinPbkdf2(int iteraciones) {
+            this.iteraciones = Math.max(1, iteraciones);
+        }
+
+        @Override
+        public boolean reconoce(String hash) {
+            return hash.startsWith(PREFIJO);
+        }
+
+        @Override
+        public String hash(String pin) {
+            byte[] sal = sal();
+            return PREFIJO + iteraciones + "$" + B64.encodeToString(sal) + "$"
+                    + B64.encodeToString(derivar(pin, sal, iteraciones));
+        }
+
+        @Override
+        public boolean verificar(String pin, String hash) {
+            String[] partes = hash.substring(PREFIJO.length()).split("\\$");
+            if (partes.length != 3) {
+                return false;
+            }
+            // Se usan las iteraciones guardadas: cambiar la configuración no invalida PIN viejos
+            int iteracionesHash = Integer.parseInt(partes[0]);
+            byte[] esperado = B64_DEC.decode(partes[2]);
+            return MessageDigest.isEqual(esperado, derivar(pin, B64_DEC.decode(partes[1]), iteracionesHash));
+        }
+
+        private static byte[] derivar(String pin, byte[] sal, int iteraciones) {
+            PBEKeySpec spec = new PBEKeySpec(pin.toCharArray(), sal, iteraciones, BITS_HASH);
+            try {
+                return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("PBKDF2WithHmacSHA256 no disponible", ex);
+            } finally {
+                spec.clearPassword();
+            }
+        }
+    }
+
+    /**
+     * Hashes BCrypt de los pedidos registrados antes del cambio. Sólo se verifican.
+     */
+    private static final class HasherPinBCrypt implements HasherPin {
+
+        @Override
+        public boolean reconoce(String hash) {
+            return hash.startsWith("$2a$") || hash.startsWith("$2b$") || hash.startsWith("$2y$");
+        }
+
+        @Override
+        public String hash(String pin) {
+            return PasswordUtil.hash(pin);
+        }
+
+        @Override
+        public boolean verificar(String pin, String hash) {
+            return BCrypt.checkpw(pin, hash);
+        }
+    }
+}
@@ -20,8 +20,10 @@ public class ConexionBD implements iConexionBD {
     
     /**
      * Cadena de conexión JDBC que apunta al servidor local y a la base de datos 'Panaderia'.
+     * <p><code>rewriteBatchedStatements</code> permite que el driver envíe cada lote de
+     * inserciones como un solo <code>INSERT</code> de varias filas.</p>
      */
-    private final String CADENA_CONEXION = "jdbc:mysql://localhost:3306/Panaderia";
+    private final String CADENA_CONEXION = "jdbc:mysql://localhost:3306/Panaderia?rewriteBatchedStatements=true";
 
     /**
      * Identificador de usuario para la autenticación en el servidor de base de datos.
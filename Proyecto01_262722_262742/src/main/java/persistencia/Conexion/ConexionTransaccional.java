@@ -0,0 +1,170 @@
+package persistencia.Conexion;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import persistencia.Excepciones.PersistenciaException;
+
+/**
+ * <b>Proveedor de conexiones que permite a los DAOs unirse a una unidad de trabajo.</b>
+ * <p>Envuelve a otro {@link iConexionBD} (normalmente {@link PoolConexionesBD}).
+ * Si el hilo actual no tiene una {@link UnidadTrabajo} abierta, cada llamada a
+ * {@link #crearConexion()} se delega tal cual. Si la tiene, se entrega un envoltorio
+ * de la conexión de la unidad, de modo que varios DAOs trabajan sobre la misma
+ * transacción sin cambiar su código:</p>
+ * <ul>
+ * <li><code>close()</code> no cierra nada; la conexión se devuelve al cerrar la unidad.</li>
+ * <li><code>commit()</code> y <code>setAutoCommit(...)</code> no hacen nada; el commit
+ * lo hace {@link UnidadTrabajo#confirmar()}.</li>
+ * <li><code>rollback()</code> marca la unidad para revertirse; el error que lo provocó
+ * llega a la capa de negocio por la excepción del DAO.</li>
+ * <li><code>unwrap(UnidadTrabajo.class)</code> entrega la unidad, para registrar
+ * acciones posteriores al commit.</li>
+ * </ul>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public class ConexionTransaccional implements iConexionBD, iTransaccionesBD {
+
+    private final iConexionBD origen;
+
+    /**
+     * Unidad de trabajo abierta en cada hilo (la más interna, si hay varias).
+     */
+    private final ThreadLocal<UnidadTrabajo> actual = new ThreadLocal<>();
+
+    /**
+     * Crea el proveedor sobre otro proveedor de conexiones.
+     *
+     * @param origen Proveedor de las conexiones reales.
+     */
+    public ConexionTransaccional(iConexionBD origen) {
+        if (origen == null) {
+            throw new IllegalArgumentException("El origen de conexiones es obligatorio.");
+        }
+        this.origen = origen;
+    }
+
+    /**
+     * Entrega la conexión de la unidad de trabajo del hilo actual, o una conexión
+     * nueva del origen si no hay unidad abierta.
+     *
+     * @return Una {@link Connection} lista para usarse; siempre debe cerrarse.
+     * @throws SQLException Si el origen no puede entregar una conexión.
+     */
+    @Override
+    public Connection crearConexion() throws SQLException {
+        UnidadTrabajo unidad = actual.get();
+        if (unidad == null) {
+            return origen.crearConexion();
+        }
+        return unirse(unidad);
+    }
+
+    /**
+     * Proveedor de las conexiones reales, que nunca se unen a una unidad de trabajo.
+     * <p>Para trabajo que debe confirmarse por su cuenta aunque el hilo tenga una
+     * unidad abierta, como reservar un bloque de usos de cupón.</p>
+     *
+     * @return El proveedor envuelto.
+     */
+    public iConexionBD getOrigen() {
+        return origen;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UnidadTrabajo iniciar() throws PersistenciaException {
+        UnidadTrabajo externa = actual.get();
+        if (externa != null) {
+            UnidadTrabajo interna = new UnidadTrabajo(this, externa.getConexion(), externa);
+            actual.set(interna);
+            return interna;
+        }
+
+        Connection conn = null;
+        try {
+            conn = origen.crearConexion();
+            conn.setAutoCommit(false);
+        } catch (SQLException ex) {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            throw new PersistenciaException("No se pudo iniciar la transacción: " + ex.getMessage(), ex);
+        }
+
+        UnidadTrabajo unidad = new UnidadTrabajo(this, conn, null);
+        actual.set(unidad);
+        return unidad;
+    }
+
+    /**
+     * Quita una unidad cerrada del hilo actual, dejando ligada la externa (si la hay).
+     */
+    void desligar(UnidadTrabajo unidad, UnidadTrabajo externa) {
+        if (actual.get() == unidad) {
+            if (externa != null) {
+                actual.set(externa);
+            } else {
+                actual.remove();
+            }
+        }
+    }
+
+    /**
+     * Envuelve la conexión de la unidad para que el DAO no la cierre ni haga commit.
+     */
+    private Connection unirse(UnidadTrabajo unidad) {
+        Connection conexion = unidad.getConexion();
+
+        InvocationHandler manejador = (proxy, metodo, args) -> {
+            switch (metodo.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        unidad.marcarSoloReversion();
+                        return null;
+                    }
+                    break; // rollback(Savepoint) sí se aplica
+                case "unwrap":
+                    if (args[0] == UnidadTrabajo.class) {
+                        return unidad;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (args[0] == UnidadTrabajo.class) {
+                        return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionTransaccional[" + conexion + "]";
+                default:
+                    break;
+            }
+
+            try {
+                return metodo.invoke(conexion, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        };
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, manejador);
+    }
+}
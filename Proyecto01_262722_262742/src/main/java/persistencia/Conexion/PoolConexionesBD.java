@@ -0,0 +1,394 @@
+package persistencia.Conexion;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <b>Implementación de la conexión a la base de datos mediante un pool acotado.</b>
+ * <p>En lugar de negociar una conexión nueva (TCP + autenticación) en cada llamada
+ * a {@link #crearConexion()}, esta clase reutiliza un conjunto limitado de conexiones
+ * físicas obtenidas de otro {@link iConexionBD} (normalmente {@link ConexionBD}).</p>
+ * <p>Los DAOs no necesitan cambios: la conexión entregada es un envoltorio cuyo
+ * <code>close()</code> regresa la conexión física al pool en lugar de cerrarla.
+ * Al devolverse, se revierte cualquier transacción abierta y se restablece el
+ * <code>autoCommit</code>.</p>
+ * <ul>
+ * <li><b>Validación al prestar:</b> las conexiones inactivas se validan con
+ * <code>isValid</code> antes de entregarse.</li>
+ * <li><b>Desalojo por inactividad:</b> se cierran las conexiones que superan el tiempo
+ * máximo sin uso, conservando un mínimo de conexiones listas.</li>
+ * <li><b>Vida máxima:</b> las conexiones se renuevan al superar su tiempo de vida.</li>
+ * <li><b>Tiempo de espera:</b> si el pool está agotado, se espera un tiempo acotado
+ * y después se lanza una excepción con un mensaje claro.</li>
+ * <li><b>Detección de fugas:</b> si una conexión permanece prestada demasiado tiempo,
+ * se registra en el log la pila de llamadas de quien la pidió.</li>
+ * </ul>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public class PoolConexionesBD implements iConexionBD {
+
+    /**
+     * Logger para registrar el desalojo de conexiones y las posibles fugas.
+     */
+    private static final Logger LOG = Logger.getLogger(PoolConexionesBD.class.getName());
+
+    /**
+     * Si una conexión se usó hace menos de este tiempo, se omite la validación al prestarla.
+     */
+    private static final long VALIDACION_OMITIDA_MS = 500;
+
+    /**
+     * Segundos que se espera la respuesta de <code>isValid</code> al validar una conexión.
+     */
+    private static final int VALIDACION_TIMEOUT_SEG = 2;
+
+    /**
+     * Periodo en segundos de la tarea de mantenimiento (desalojo y detección de fugas).
+     */
+    private static final long PERIODO_MANTENIMIENTO_SEG = 5;
+
+    /**
+     * Proveedor de las conexiones físicas.
+     */
+    private final iConexionBD origen;
+
+    private final int tamanioMaximo;
+    private final int minimoInactivas;
+    private final long esperaMaximaMs;
+    private final long inactividadMaximaMs;
+    private final long vidaMaximaMs;
+    private final long umbralFugaMs;
+
+    /**
+     * Permisos disponibles; acota el número de conexiones prestadas al tamaño máximo.
+     */
+    private final Semaphore permisos;
+
+    /**
+     * Conexiones listas para prestarse. Se usan en orden LIFO para mantener "calientes"
+     * las más recientes y dejar que las demás caduquen por inactividad.
+     */
+    private final LinkedBlockingDeque<ConexionFisica> inactivas = new LinkedBlockingDeque<>();
+
+    /**
+     * Conexiones actualmente en uso por algún DAO.
+     */
+    private final Set<ConexionFisica> prestadas = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService mantenimiento;
+
+    private volatile boolean cerrado;
+
+    /**
+     * Crea un pool con valores por defecto: 10 conexiones como máximo, 2 inactivas
+     * como mínimo, 5 segundos de espera, 10 minutos de inactividad, 30 minutos de
+     * vida máxima y 60 segundos como umbral de fuga.
+     *
+     * @param origen Proveedor de conexiones físicas (ej. {@link ConexionBD}).
+     */
+    public PoolConexionesBD(iConexionBD origen) {
+        this(origen, 10, 2, 5_000, 600_000, 1_800_000, 60_000);
+    }
+
+    /**
+     * Crea un pool con todos sus parámetros configurables.
+     *
+     * @param origen Proveedor de conexiones físicas (ej. {@link ConexionBD}).
+     * @param tamanioMaximo Número máximo de conexiones prestadas al mismo tiempo.
+     * @param minimoInactivas Conexiones inactivas que no se desalojan por inactividad.
+     * @param esperaMaximaMs Tiempo máximo de espera para obtener una conexión.
+     * @param inactividadMaximaMs Tiempo sin uso tras el cual una conexión se cierra.
+     * @param vidaMaximaMs Tiempo de vida tras el cual una conexión se renueva.
+     * @param umbralFugaMs Tiempo prestada tras el cual se reporta una posible fuga.
+     */
+    public PoolConexionesBD(iConexionBD origen, int tamanioMaximo, int minimoInactivas,
+            long esperaMaximaMs, long inactividadMaximaMs, long vidaMaximaMs, long umbralFugaMs) {
+        if (origen == null) {
+            throw new IllegalArgumentException("El origen de conexiones es obligatorio.");
+        }
+        if (tamanioMaximo <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo del pool debe ser mayor a 0.");
+        }
+        this.origen = origen;
+        this.tamanioMaximo = tamanioMaximo;
+        this.minimoInactivas = Math.max(0, Math.min(minimoInactivas, tamanioMaximo));
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.inactividadMaximaMs = inactividadMaximaMs;
+        this.vidaMaximaMs = vidaMaximaMs;
+        this.umbralFugaMs = umbralFugaMs;
+        this.permisos = new Semaphore(tamanioMaximo, true);
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-conexiones-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        this.mantenimiento.scheduleWithFixedDelay(this::mantener,
+                PERIODO_MANTENIMIENTO_SEG, PERIODO_MANTENIMIENTO_SEG, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool, creando una nueva si no hay inactivas válidas.
+     * <p>La conexión debe cerrarse (idealmente con try-with-resources) para regresar al pool.</p>
+     *
+     * @return Una {@link Connection} lista para usarse.
+     * @throws SQLException Si el pool está cerrado, si se agota el tiempo de espera o si
+     * no se puede abrir una conexión física.
+     */
+    @Override
+    public Connection crearConexion() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado.");
+        }
+
+        try {
+            if (!permisos.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Tiempo de espera agotado: no se obtuvo una conexión del pool en "
+                        + esperaMaximaMs + " ms (" + prestadas.size() + " de " + tamanioMaximo + " conexiones en uso).");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Se interrumpió la espera de una conexión del pool.", ex);
+        }
+
+        try {
+            ConexionFisica fisica = tomarInactivaValida();
+            if (fisica == null) {
+                fisica = new ConexionFisica(origen.crearConexion());
+            }
+            fisica.prestar();
+            prestadas.add(fisica);
+            return fisica.envolver();
+        } catch (SQLException | RuntimeException ex) {
+            permisos.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Obtiene la conexión inactiva más reciente que siga vigente y válida.
+     *
+     * @return Una conexión reutilizable, o <code>null</code> si no hay ninguna.
+     */
+    private ConexionFisica tomarInactivaValida() {
+        ConexionFisica fisica;
+        while ((fisica = inactivas.pollFirst()) != null) {
+            long ahora = System.currentTimeMillis();
+
+            if (ahora - fisica.creada >= vidaMaximaMs) {
+                cerrarFisica(fisica);
+                continue;
+            }
+
+            if (ahora - fisica.ultimoUso >= VALIDACION_OMITIDA_MS && !esValida(fisica)) {
+                cerrarFisica(fisica);
+                continue;
+            }
+
+            return fisica;
+        }
+        return null;
+    }
+
+    private boolean esValida(ConexionFisica fisica) {
+        try {
+            return fisica.conexion.isValid(VALIDACION_TIMEOUT_SEG);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Regresa una conexión al pool, dejándola sin transacción pendiente.
+     * <p>Si el pool está cerrado, la conexión caducó o no se pudo restablecer,
+     * la conexión física se cierra en lugar de reutilizarse.</p>
+     */
+    private void devolver(ConexionFisica fisica) {
+        prestadas.remove(fisica);
+        try {
+            boolean reutilizable = !cerrado
+                    && System.currentTimeMillis() - fisica.creada < vidaMaximaMs
+                    && restablecer(fisica);
+
+            if (reutilizable) {
+                fisica.ultimoUso = System.currentTimeMillis();
+                inactivas.offerFirst(fisica);
+            } else {
+                cerrarFisica(fisica);
+            }
+        } finally {
+            permisos.release();
+        }
+    }
+
+    private boolean restablecer(ConexionFisica fisica) {
+        try {
+            Connection conn = fisica.conexion;
+            if (conn.isClosed()) {
+                return false;
+            }
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException ex) {
+            LOG.log(Level.FINE, "No se pudo restablecer la conexión; se descarta.", ex);
+            return false;
+        }
+    }
+
+    private void cerrarFisica(ConexionFisica fisica) {
+        try {
+            fisica.conexion.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /**
+     * Tarea periódica: desaloja conexiones inactivas o caducadas y reporta posibles fugas.
+     */
+    private void mantener() {
+        try {
+            long ahora = System.currentTimeMillis();
+
+            Iterator<ConexionFisica> it = inactivas.descendingIterator();
+            while (it.hasNext()) {
+                ConexionFisica fisica = it.next();
+                boolean caducada = ahora - fisica.creada >= vidaMaximaMs;
+                boolean ociosa = ahora - fisica.ultimoUso >= inactividadMaximaMs
+                        && inactivas.size() > minimoInactivas;
+
+                if ((caducada || ociosa) && inactivas.remove(fisica)) {
+                    cerrarFisica(fisica);
+                }
+            }
+
+            for (ConexionFisica fisica : prestadas) {
+                if (!fisica.fugaReportada && ahora - fisica.prestada >= umbralFugaMs) {
+                    fisica.fugaReportada = true;
+                    LOG.log(Level.WARNING, "Posible fuga de conexión: lleva " + (ahora - fisica.prestada)
+                            + " ms prestada sin cerrarse. Pila de quien la solicitó:", fisica.origenPrestamo);
+                }
+            }
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Error en el mantenimiento del pool de conexiones", ex);
+        }
+    }
+
+    /**
+     * Número de conexiones actualmente prestadas.
+     *
+     * @return Conexiones en uso.
+     */
+    public int getConexionesPrestadas() {
+        return prestadas.size();
+    }
+
+    /**
+     * Número de conexiones físicas abiertas y listas para prestarse.
+     *
+     * @return Conexiones inactivas.
+     */
+    public int getConexionesInactivas() {
+        return inactivas.size();
+    }
+
+    /**
+     * Cierra el pool: detiene el mantenimiento y cierra las conexiones inactivas.
+     * <p>Las conexiones prestadas se cierran conforme se devuelven.</p>
+     */
+    public void cerrar() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+
+        ConexionFisica fisica;
+        while ((fisica = inactivas.pollFirst()) != null) {
+            cerrarFisica(fisica);
+        }
+    }
+
+    /**
+     * Conexión física administrada por el pool junto con sus marcas de tiempo.
+     */
+    private final class ConexionFisica {
+
+        private final Connection conexion;
+        private final long creada = System.currentTimeMillis();
+        private volatile long ultimoUso = creada;
+        private volatile long prestada;
+        private volatile Throwable origenPrestamo;
+        private volatile boolean fugaReportada;
+
+        private ConexionFisica(Connection conexion) {
+            this.conexion = conexion;
+        }
+
+        private void prestar() {
+            prestada = System.currentTimeMillis();
+            origenPrestamo = new Throwable("Conexión solicitada por el hilo " + Thread.currentThread().getName());
+            fugaReportada = false;
+        }
+
+        /**
+         * Crea el envoltorio que se entrega al DAO. Su <code>close()</code> devuelve
+         * la conexión al pool una sola vez; después de cerrarse, cualquier otra
+         * operación falla como lo haría una conexión cerrada.
+         */
+        private Connection envolver() {
+            InvocationHandler manejador = new InvocationHandler() {
+                private boolean devuelta;
+
+                @Override
+                public synchronized Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+                    switch (metodo.getName()) {
+                        case "close":
+                            if (!devuelta) {
+                                devuelta = true;
+                                devolver(ConexionFisica.this);
+                            }
+                            return null;
+                        case "isClosed":
+                            return devuelta || conexion.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "PoolConexionesBD[" + conexion + "]";
+                        default:
+                            if (devuelta) {
+                                throw new SQLException("La conexión ya fue devuelta al pool.");
+                            }
+                    }
+
+                    try {
+                        return metodo.invoke(conexion, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                }
+            };
+
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, manejador);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package persistencia.Conexion;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import persistencia.Excepciones.PersistenciaException;
+
+/**
+ * <b>Transacción compartida por todos los DAOs que trabajan en el mismo hilo.</b>
+ * <p>Se obtiene con {@link iTransaccionesBD#iniciar()} y se usa así:</p>
+ * <pre>
+ * try (UnidadTrabajo unidad = transacciones.iniciar()) {
+ *     ...llamadas a DAOs...
+ *     unidad.confirmar();
+ * }
+ * </pre>
+ * <p>Si una unidad se abre dentro de otra en el mismo hilo, la interna sólo
+ * participa: su {@link #confirmar()} no hace commit, y si se cierra sin
+ * confirmar marca la externa para revertirse.</p>
+ * <p>Un DAO que necesite hacer algo sólo cuando el commit sea real (por ejemplo,
+ * actualizar un caché) obtiene la unidad con
+ * <code>conn.unwrap(UnidadTrabajo.class)</code> y registra la acción con
+ * {@link #alConfirmar(Runnable)}, o con {@link #alRevertir(Runnable)} si debe
+ * deshacer algo que no forma parte de la transacción (por ejemplo, devolver un uso
+ * de cupón tomado de un bloque reservado en memoria).</p>
+ * <p>Las reservas de secuencias ({@link persistencia.DAOs.SecuenciaDAO}) deben
+ * hacerse fuera de una unidad: si la unidad se revierte, el bloque reservado
+ * también, pero el asignador ya lo habría entregado.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public final class UnidadTrabajo implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(UnidadTrabajo.class.getName());
+
+    private final ConexionTransaccional duenio;
+
+    /**
+     * Conexión real de la transacción (la del pool o la física).
+     */
+    private final Connection conexion;
+
+    /**
+     * Unidad externa a la que se une esta, o <code>null</code> si esta es la externa.
+     */
+    private final UnidadTrabajo externa;
+
+    /**
+     * Acciones que se ejecutan después del commit de la unidad externa.
+     */
+    private final List<Runnable> trasConfirmar = new ArrayList<>();
+
+    /**
+     * Acciones que se ejecutan si la unidad externa se revierte.
+     */
+    private final List<Runnable> trasRevertir = new ArrayList<>();
+
+    private boolean soloReversion;
+    private boolean confirmada;
+    private boolean cerrada;
+
+    UnidadTrabajo(ConexionTransaccional duenio, Connection conexion, UnidadTrabajo externa) {
+        this.duenio = duenio;
+        this.conexion = conexion;
+        this.externa = externa;
+    }
+
+    /**
+     * Hace commit de todo lo hecho en la unidad.
+     * <p>En una unidad interna no hace nada: el commit lo hace la externa.</p>
+     *
+     * @throws PersistenciaException Si algún DAO revirtió la transacción o si falla el commit.
+     */
+    public void confirmar() throws PersistenciaException {
+        if (cerrada) {
+            throw new PersistenciaException("La unidad de trabajo ya está cerrada.");
+        }
+        if (raiz().soloReversion) {
+            throw new PersistenciaException("La transacción se revirtió por un error anterior; no se puede confirmar.");
+        }
+
+        confirmada = true;
+        if (externa != null) {
+            return;
+        }
+
+        try {
+            conexion.commit();
+        } catch (SQLException ex) {
+            confirmada = false;
+            throw new PersistenciaException("No se pudo confirmar la transacción: " + ex.getMessage(), ex);
+        }
+
+        trasRevertir.clear();
+        ejecutar(trasConfirmar, "Falló una acción posterior al commit");
+    }
+
+    /**
+     * Registra una acción para después del commit. Si la unidad se revierte, la
+     * acción se descarta.
+     *
+     * @param accion Acción a ejecutar una vez que la transacción quedó guardada.
+     */
+    public void alConfirmar(Runnable accion) {
+        raiz().trasConfirmar.add(accion);
+    }
+
+    /**
+     * Registra una acción para cuando la transacción se revierta. Si la unidad se
+     * confirma, la acción se descarta.
+     *
+     * @param accion Acción que deshace algo hecho fuera de la transacción.
+     */
+    public void alRevertir(Runnable accion) {
+        raiz().trasRevertir.add(accion);
+    }
+
+    /**
+     * Cierra la unidad. Si no se confirmó, revierte la transacción (o, en una unidad
+     * interna, marca la externa para revertirse). La conexión se devuelve al terminar
+     * la unidad externa.
+     */
+    @Override
+    public void close() {
+        if (cerrada) {
+            return;
+        }
+        cerrada = true;
+
+        if (externa != null) {
+            if (!confirmada) {
+                externa.soloReversion = true;
+            }
+            duenio.desligar(this, externa);
+            return;
+        }
+
+        try {
+            if (!confirmada) {
+                conexion.rollback();
+            }
+            conexion.setAutoCommit(true);
+        } catch (SQLException ex) {
+            LOG.log(Level.WARNING, "No se pudo revertir la unidad de trabajo", ex);
+        } finally {
+            duenio.desligar(this, null);
+            try {
+                conexion.close();
+            } catch (SQLException ignored) {
+            }
+        }
+
+        if (!confirmada) {
+            trasConfirmar.clear();
+            ejecutar(trasRevertir, "Falló una acción posterior a la reversión");
+        }
+    }
+
+    private static void ejecutar(List<Runnable> acciones, String mensajeError) {
+        for (Runnable accion : acciones) {
+            try {
+                accion.run();
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, mensajeError, ex);
+            }
+        }
+        acciones.clear();
+    }
+
+    /**
+     * Marca la transacción para revertirse; la pide un DAO que llamó a <code>rollback()</code>.
+     */
+    void marcarSoloReversion() {
+        raiz().soloReversion = true;
+    }
+
+    Connection getConexion() {
+        return conexion;
+    }
+
+    private UnidadTrabajo raiz() {
+        return externa != null ? externa : this;
+    }
+}
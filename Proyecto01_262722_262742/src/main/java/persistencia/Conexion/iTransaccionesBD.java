@@ -0,0 +1,26 @@
+package persistencia.Conexion;
+
+import persistencia.Excepciones.PersistenciaException;
+
+/**
+ * <b>Interfaz para abrir unidades de trabajo sobre la base de datos.</b>
+ * <p>Permite que la capa de negocio agrupe varias operaciones de distintos DAOs
+ * en una sola conexión y un solo commit, sin que los DAOs cambien su firma.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public interface iTransaccionesBD {
+
+    /**
+     * Abre una unidad de trabajo ligada al hilo actual.
+     * <p>Mientras esté abierta, toda conexión que pida un DAO en este hilo es la
+     * misma conexión de la unidad. Debe cerrarse siempre (idealmente con
+     * try-with-resources); si se cierra sin {@link UnidadTrabajo#confirmar()}, se
+     * revierte todo lo hecho.</p>
+     *
+     * @return La unidad de trabajo abierta.
+     * @throws PersistenciaException Si no se pudo obtener la conexión.
+     */
+    UnidadTrabajo iniciar() throws PersistenciaException;
+}
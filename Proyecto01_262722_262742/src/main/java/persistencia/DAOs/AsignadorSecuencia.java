@@ -0,0 +1,84 @@
+package persistencia.DAOs;
+
+import java.util.concurrent.atomic.AtomicLong;
+import persistencia.Excepciones.PersistenciaException;
+
+/**
+ * <b>Asignador de valores por bloques (hi/lo) sobre una secuencia de la base de datos.</b>
+ * <p>En lugar de consultar la base de datos por cada valor, reserva rangos completos
+ * mediante {@link iSecuenciaDAO#reservarBloque(String, int)} y los entrega desde memoria
+ * con un {@link AtomicLong}. En el caso común, obtener un valor no requiere viajes a la
+ * base de datos ni bloqueos; sólo al agotarse el bloque se reserva uno nuevo.</p>
+ * <p>Como cada terminal reserva rangos disjuntos, no hay duplicados entre terminales.
+ * A cambio, los valores no usados de un bloque se pierden al cerrar la aplicación,
+ * por lo que la secuencia puede tener huecos.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public class AsignadorSecuencia {
+
+    private final iSecuenciaDAO secuenciaDAO;
+    private final String nombre;
+    private final int tamanioBloque;
+
+    /**
+     * Bloque vigente. Se reemplaza completo al agotarse, nunca se modifica su límite.
+     */
+    private volatile Bloque actual = new Bloque(1, 0);
+
+    /**
+     * Constructor del asignador.
+     *
+     * @param secuenciaDAO DAO que reserva los bloques en la base de datos.
+     * @param nombre Nombre de la secuencia en la tabla <code>Secuencias</code>.
+     * @param tamanioBloque Cantidad de valores que se reservan en cada viaje.
+     */
+    public AsignadorSecuencia(iSecuenciaDAO secuenciaDAO, String nombre, int tamanioBloque) {
+        this.secuenciaDAO = secuenciaDAO;
+        this.nombre = nombre;
+        this.tamanioBloque = Math.max(1, tamanioBloque);
+    }
+
+    /**
+     * Entrega el siguiente valor libre de la secuencia.
+     *
+     * @return Un valor que ninguna otra llamada (en esta u otra terminal) recibirá.
+     * @throws PersistenciaException Si se agotó el bloque y no se pudo reservar otro.
+     */
+    public long siguiente() throws PersistenciaException {
+        while (true) {
+            Bloque bloque = actual;
+            long valor = bloque.siguiente.getAndIncrement();
+            if (valor <= bloque.limite) {
+                return valor;
+            }
+            renovar(bloque);
+        }
+    }
+
+    /**
+     * Reserva un bloque nuevo si nadie lo ha hecho ya desde que se agotó <code>agotado</code>.
+     */
+    private synchronized void renovar(Bloque agotado) throws PersistenciaException {
+        if (actual != agotado) {
+            return;
+        }
+        long limite = secuenciaDAO.reservarBloque(nombre, tamanioBloque);
+        actual = new Bloque(limite - tamanioBloque + 1, limite);
+    }
+
+    /**
+     * Rango <code>[siguiente, limite]</code> reservado en la base de datos.
+     */
+    private static final class Bloque {
+
+        private final AtomicLong siguiente;
+        private final long limite;
+
+        private Bloque(long inicio, long limite) {
+            this.siguiente = new AtomicLong(inicio);
+            this.limite = limite;
+        }
+    }
+}
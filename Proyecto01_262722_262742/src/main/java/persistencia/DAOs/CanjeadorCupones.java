@@ -0,0 +1,403 @@
+package persistencia.DAOs;
+
+import dominio.Cupon;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import persistencia.Conexion.ConexionTransaccional;
+import persistencia.Conexion.UnidadTrabajo;
+import persistencia.Conexion.iConexionBD;
+import persistencia.Excepciones.PersistenciaException;
+
+/**
+ * <b>Canje atómico de cupones con reserva de usos por bloques.</b>
+ * <p>Igual que {@link AsignadorSecuencia} con los números de pedido, los usos de un
+ * cupón se reservan por bloques: en una transacción corta y propia se bloquea la fila
+ * del cupón, se valida su vigencia y su tope, y se suman a <code>numero_usos</code>
+ * los usos del bloque. Después cada pedido toma un uso desde memoria, sin tocar la
+ * fila, así que un cupón popular no se vuelve un bloqueo compartido por todas las
+ * transacciones de pedidos. Como <code>numero_usos</code> ya cuenta los usos
+ * reservados, dos terminales nunca pueden pasar juntas el tope.</p>
+ * <p>Las reservas y devoluciones usan conexiones del proveedor real, nunca la de la
+ * {@link UnidadTrabajo} del pedido: se confirman al momento, aunque el pedido siga
+ * abierto o se revierta después. Mientras un hilo reserva un bloque, los demás que
+ * canjean el mismo cupón esperan ese bloque en lugar de reservar otro.</p>
+ * <p>El tamaño del bloque se adapta a la demanda: empieza en 1 (un cupón poco usado se
+ * canjea igual que con un <code>UPDATE</code> por pedido) y se duplica, hasta
+ * {@link #TAMANIO_MAXIMO_BLOQUE}, cada vez que el bloque anterior se agotó antes de
+ * {@link #VIGENCIA_RESERVA}. Nunca se reserva más de la cuarta parte de los usos que
+ * le quedan al cupón, para no acaparar los últimos.</p>
+ * <p>Reconciliación con <code>Cupones.numero_usos</code>:</p>
+ * <ul>
+ * <li>Si el pedido o su unidad de trabajo se revierte, su uso regresa al bloque con
+ * {@link #devolver(Cupon)}.</li>
+ * <li>Los usos de un bloque que lleva más de {@link #VIGENCIA_RESERVA} sin agotarse, o
+ * cuyo cupón ya venció, se restan de <code>numero_usos</code> en el siguiente canje.</li>
+ * <li>Al cerrar la terminal se pierden los usos que no se alcanzaron a devolver
+ * (como los huecos de una secuencia); quedan contados aunque nadie los use, así que
+ * sobran usos, nunca faltan.</li>
+ * </ul>
+ * <p>Si el cupón ya se sabe agotado o vencido, el canje se rechaza sin ir a la base de
+ * datos. Ese estado se vuelve a leer tras {@link #VIGENCIA_RESERVA}, por si alguien
+ * reinicia los usos a mano.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+final class CanjeadorCupones {
+
+    private static final Logger LOG = Logger.getLogger(CanjeadorCupones.class.getName());
+
+    /**
+     * Tiempo que se confía en el estado leído de un cupón y que puede durar un bloque sin agotarse.
+     */
+    static final Duration VIGENCIA_RESERVA = Duration.ofSeconds(30);
+
+    /**
+     * Máximo de usos que se reservan de una sola vez.
+     */
+    static final int TAMANIO_MAXIMO_BLOQUE = 8;
+
+    private static final String CONSULTA_BLOQUEO_SQL = """
+        SELECT nombre, fecha_inicio, fecha_vencimiento, numero_usos, tope_usos
+        FROM Cupones WHERE id = ?
+        FOR UPDATE
+        """;
+
+    private static final String COMANDO_RESERVAR_SQL = """
+        UPDATE Cupones SET numero_usos = numero_usos + ? WHERE id = ?
+        """;
+
+    private static final String COMANDO_DEVOLVER_SQL = """
+        UPDATE Cupones SET numero_usos = GREATEST(numero_usos - ?, 0) WHERE id = ?
+        """;
+
+    /**
+     * Proveedor de las conexiones con las que se reservan y devuelven los bloques.
+     */
+    private final iConexionBD conexionBD;
+
+    private final ConcurrentMap<Integer, Reserva> reservas = new ConcurrentHashMap<>();
+
+    /**
+     * Reservas de bloque en curso por cupón, para que sólo un hilo vaya a la base de datos.
+     */
+    private final ConcurrentMap<Integer, CompletableFuture<Void>> enCurso = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor que inicializa la dependencia de conexión.
+     * <p>Si <code>conexionBD</code> es una {@link ConexionTransaccional}, se usa su
+     * origen, para que las reservas nunca se unan a la unidad de trabajo del hilo.</p>
+     *
+     * @param conexionBD Objeto que gestiona la creación de conexiones a la base de datos.
+     */
+    CanjeadorCupones(iConexionBD conexionBD) {
+        this.conexionBD = conexionBD instanceof ConexionTransaccional transaccional
+                ? transaccional.getOrigen()
+                : conexionBD;
+    }
+
+    /**
+     * Toma un uso del cupón de su bloque reservado, reservando otro si hace falta.
+     * <p>El uso ya queda contado en <code>numero_usos</code>. Si el pedido no llega a
+     * guardarse, se debe llamar a {@link #devolver(Cupon)}.</p>
+     *
+     * @param cupon Cupón a canjear (se usa su ID).
+     * @throws PersistenciaException Si el cupón no existe, no está vigente, llegó a su
+     * tope o falla la reserva del bloque.
+     */
+    void canjear(Cupon cupon) throws PersistenciaException {
+        if (cupon.getId() <= 0) {
+            throw new PersistenciaException("El cupón " + cupon.getNombre() + " no está registrado.");
+        }
+
+        int idCupon = cupon.getId();
+        Reserva reserva = reservas.computeIfAbsent(idCupon, id -> new Reserva());
+
+        while (true) {
+            synchronized (reserva) {
+                LocalDate hoy = LocalDate.now();
+                if (reserva.bloqueUtil(hoy)) {
+                    reserva.disponibles--;
+                    return;
+                }
+                if (reserva.disponibles == 0 && reserva.estadoVigente()) {
+                    String motivo = reserva.motivoRechazo(hoy);
+                    if (motivo != null) {
+                        throw new PersistenciaException(motivo);
+                    }
+                }
+            }
+
+            CompletableFuture<Void> nueva = new CompletableFuture<>();
+            CompletableFuture<Void> carga = enCurso.putIfAbsent(idCupon, nueva);
+            if (carga != null) {
+                carga.join(); // Otro hilo reserva el bloque; se vuelve a intentar con él
+                continue;
+            }
+
+            try {
+                renovar(idCupon, reserva);
+            } finally {
+                enCurso.remove(idCupon, nueva);
+                nueva.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Rechaza, sin canjearlo, un cupón que ya se sabe agotado o vencido.
+     * <p>Es la validación previa del registro con <code>sp_insertar_pedido</code>, que
+     * suma el uso en el servidor. Si esta terminal tiene usos reservados del cupón, se
+     * devuelven antes para que el procedimiento pueda ocuparlos. Tras el commit del
+     * pedido se debe llamar a {@link #confirmar(Cupon)}.</p>
+     *
+     * @param cupon Cupón que se va a canjear.
+     * @throws PersistenciaException Si el cupón no está registrado o se sabe que no es canjeable.
+     */
+    void verificar(Cupon cupon) throws PersistenciaException {
+        if (cupon.getId() <= 0) {
+            throw new PersistenciaException("El cupón " + cupon.getNombre() + " no está registrado.");
+        }
+
+        int idCupon = cupon.getId();
+        Reserva reserva = reservas.computeIfAbsent(idCupon, id -> new Reserva());
+
+        int sobrante;
+        synchronized (reserva) {
+            if (reserva.disponibles == 0 && reserva.estadoVigente()) {
+                String motivo = reserva.motivoRechazo(LocalDate.now());
+                if (motivo != null) {
+                    throw new PersistenciaException(motivo);
+                }
+            }
+            sobrante = reserva.tomarSobrante();
+        }
+
+        if (sobrante > 0) {
+            devolverSobrante(idCupon, reserva, sobrante);
+        }
+    }
+
+    /**
+     * Regresa al bloque el uso de un pedido que se revirtió.
+     *
+     * @param cupon Cupón canjeado con {@link #canjear(Cupon)}.
+     */
+    void devolver(Cupon cupon) {
+        Reserva reserva = reservas.get(cupon.getId());
+        if (reserva != null) {
+            synchronized (reserva) {
+                reserva.disponibles++;
+            }
+        }
+    }
+
+    /**
+     * Suma al estado en memoria un uso aplicado directamente sobre la fila del cupón.
+     *
+     * @param cupon Cupón canjeado por <code>sp_insertar_pedido</code> en un pedido que ya hizo commit.
+     */
+    void confirmar(Cupon cupon) {
+        Reserva reserva = reservas.get(cupon.getId());
+        if (reserva != null) {
+            synchronized (reserva) {
+                reserva.usos++;
+            }
+        }
+    }
+
+    /**
+     * Devuelve lo que quede de un bloque caducado y reserva uno nuevo. Sólo la
+     * ejecuta el hilo que registró la reserva en curso del cupón.
+     */
+    private void renovar(int idCupon, Reserva reserva) throws PersistenciaException {
+        int sobrante;
+        boolean agotoAnterior;
+        synchronized (reserva) {
+            if (reserva.bloqueUtil(LocalDate.now())) {
+                return; // Otro hilo acaba de reservar
+            }
+            agotoAnterior = reserva.disponibles == 0 && reserva.reservadoEn != 0 && !reserva.bloqueCaducado();
+            sobrante = reserva.tomarSobrante();
+        }
+
+        if (sobrante > 0) {
+            devolverSobrante(idCupon, reserva, sobrante);
+        }
+        reservarBloque(idCupon, reserva, agotoAnterior);
+    }
+
+    /**
+     * Reserva un bloque de usos en una transacción propia con la fila del cupón bloqueada.
+     * Deja el bloque en <code>reserva</code>, o lanza el motivo si el cupón no es canjeable.
+     */
+    private void reservarBloque(int idCupon, Reserva reserva, boolean agotoAnterior) throws PersistenciaException {
+        Connection conn = null;
+
+        try {
+            conn = conexionBD.crearConexion();
+            conn.setAutoCommit(false);
+
+            String motivo;
+            int cantidad = 0;
+            try (PreparedStatement ps = conn.prepareStatement(CONSULTA_BLOQUEO_SQL)) {
+                ps.setInt(1, idCupon);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        synchronized (reserva) {
+                            reserva.leidoEn = 0;
+                        }
+                        conn.rollback();
+                        throw new PersistenciaException("El cupón no existe.");
+                    }
+
+                    Date vencimiento = rs.getDate("fecha_vencimiento");
+                    synchronized (reserva) {
+                        reserva.nombre = rs.getString("nombre");
+                        reserva.inicio = rs.getDate("fecha_inicio").toLocalDate();
+                        reserva.vencimiento = vencimiento != null ? vencimiento.toLocalDate() : null;
+                        reserva.usos = rs.getInt("numero_usos");
+                        reserva.tope = rs.getInt("tope_usos");
+                        reserva.leidoEn = System.nanoTime();
+
+                        motivo = reserva.motivoRechazo(LocalDate.now());
+                        if (motivo == null) {
+                            reserva.tamanio = agotoAnterior ? Math.min(reserva.tamanio * 2, TAMANIO_MAXIMO_BLOQUE) : 1;
+                            cantidad = Math.min(reserva.tamanio, Math.max(1, (reserva.tope - reserva.usos) / 4));
+                        }
+                    }
+                }
+            }
+
+            if (motivo != null) {
+                conn.rollback();
+                throw new PersistenciaException(motivo);
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(COMANDO_RESERVAR_SQL)) {
+                ps.setInt(1, cantidad);
+                ps.setInt(2, idCupon);
+                ps.executeUpdate();
+            }
+            conn.commit();
+
+            synchronized (reserva) {
+                reserva.usos += cantidad;
+                reserva.disponibles += cantidad;
+                reserva.reservadoEn = System.nanoTime();
+            }
+
+        } catch (SQLException ex) {
+
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                }
+            }
+            LOG.log(Level.SEVERE, "Error al reservar usos del cupón " + idCupon, ex);
+            throw new PersistenciaException("Error al reservar usos del cupón: " + ex.getMessage(), ex);
+
+        } finally {
+
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Resta de <code>numero_usos</code> los usos sobrantes de un bloque. Si falla, sólo
+     * se registra: los usos quedan contados, pero el pedido no se detiene.
+     */
+    private void devolverSobrante(int idCupon, Reserva reserva, int sobrante) {
+        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(COMANDO_DEVOLVER_SQL)) {
+            ps.setInt(1, sobrante);
+            ps.setInt(2, idCupon);
+            ps.executeUpdate();
+
+            synchronized (reserva) {
+                reserva.usos -= sobrante;
+            }
+        } catch (SQLException ex) {
+            LOG.log(Level.WARNING, "No se pudieron devolver " + sobrante + " usos reservados del cupón " + idCupon, ex);
+        }
+    }
+
+    /**
+     * Último estado conocido de un cupón y bloque de usos reservado. Se protege con su
+     * propio monitor, que nunca se mantiene durante un viaje a la base de datos;
+     * <code>usos</code> incluye los usos reservados del bloque.
+     */
+    private static final class Reserva {
+
+        private String nombre;
+        private LocalDate inicio;
+        private LocalDate vencimiento;
+        private int usos;
+        private int tope;
+        private long leidoEn;
+
+        private int disponibles;
+        private int tamanio = 1;
+        private long reservadoEn;
+
+        private boolean estadoVigente() {
+            return leidoEn != 0 && System.nanoTime() - leidoEn < VIGENCIA_RESERVA.toNanos();
+        }
+
+        private boolean bloqueCaducado() {
+            return System.nanoTime() - reservadoEn >= VIGENCIA_RESERVA.toNanos();
+        }
+
+        private boolean bloqueUtil(LocalDate hoy) {
+            return disponibles > 0 && !bloqueCaducado() && motivoFechas(hoy) == null;
+        }
+
+        /**
+         * Vacía el bloque y devuelve cuántos usos tenía, para restarlos en la base de datos.
+         */
+        private int tomarSobrante() {
+            int sobrante = disponibles;
+            disponibles = 0;
+            reservadoEn = 0;
+            return sobrante;
+        }
+
+        private String motivoFechas(LocalDate hoy) {
+            if (inicio.isAfter(hoy)) {
+                return "El cupón " + nombre + " todavía no está vigente.";
+            }
+            if (vencimiento != null && !vencimiento.isAfter(hoy)) {
+                return "La fecha de vencimiento del cupón " + nombre + " expiró.";
+            }
+            return null;
+        }
+
+        private String motivoRechazo(LocalDate hoy) {
+            String motivo = motivoFechas(hoy);
+            if (motivo != null) {
+                return motivo;
+            }
+            if (usos >= tope) {
+                return "El cupón " + nombre + " llegó a su límite de usos.";
+            }
+            return null;
+        }
+    }
+}
@@ -54,8 +54,10 @@ public class ClienteDAO implements iClienteDAO{
 
     /**
      * Consulta toda la información de un cliente utilizando su nombre de usuario.
-     * <p>Realiza un cruce de datos (JOIN) entre usuarios y clientes, y ejecuta 
-     * consultas adicionales para recuperar su dirección y su lista de teléfonos.</p>
+     * <p>Recupera usuario, cliente, dirección y teléfonos en una sola consulta (un solo
+     * viaje a la base de datos por inicio de sesión): la dirección se une por la izquierda
+     * y cada teléfono aporta una fila, de modo que los datos del cliente se repiten en
+     * cada fila y se leen sólo de la primera.</p>
      * * @param usuario El nombre de usuario (credencial) a buscar.
      * @return Un objeto <code>Cliente</code> completamente hidratado con todos sus datos, 
      * o <code>null</code> si el usuario no existe.
@@ -64,7 +66,8 @@ public class ClienteDAO implements iClienteDAO{
     @Override
     public Cliente consultarCliente(String usuario) throws PersistenciaException {
 
-        String comandoSQLUsuario = """
+        // Si hubiera más de una dirección se toma la primera registrada, como antes
+        String comandoSQL = """
                 SELECT 
                     u.id,
                     u.usuario,
@@ -73,25 +76,26 @@ public class ClienteDAO implements iClienteDAO{
                     c.apellido_paterno,
                     c.apellido_materno,
                     c.fecha_nacimiento,
-                    c.estado
+                    c.estado,
+                    d.id AS id_direccion,
+                    d.calle,
+                    d.colonia,
+                    d.cp,
+                    d.numero,
+                    t.id AS id_telefono,
+                    t.telefono,
+                    t.etiqueta
                 FROM usuarios u
                 INNER JOIN clientes c ON c.id_usuario = u.id
+                LEFT JOIN Direcciones d ON d.id = (
+                    SELECT MIN(d2.id) FROM Direcciones d2 WHERE d2.id_cliente = c.id_usuario
+                )
+                LEFT JOIN Telefonos t ON t.id_cliente = c.id_usuario
                 WHERE u.usuario = ?
+                ORDER BY t.id
                 """;
 
-        String comandoSQLDireccion = """
-                SELECT id, calle, colonia, cp, numero
-                FROM Direcciones
-                WHERE id_cliente = ?
-                """;
-
-        String comandoSQLTelefonos = """
-                SELECT id, telefono, etiqueta
-                FROM Telefonos
-                WHERE id_cliente = ?
-                """;
-
-        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(comandoSQLUsuario)) {
+        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(comandoSQL)) {
 
             ps.setString(1, usuario);
 
@@ -114,49 +118,44 @@ public class ClienteDAO implements iClienteDAO{
                     cliente.setApellidoMaterno(apMat);
                 }
 
-                if (rs.getDate("fecha_nacimiento") != null) {
-                    cliente.setFechaNacimiento(rs.getDate("fecha_nacimiento").toLocalDate());
+                Date fechaNacimiento = rs.getDate("fecha_nacimiento");
+                if (fechaNacimiento != null) {
+                    cliente.setFechaNacimiento(fechaNacimiento.toLocalDate());
                 }
 
-                // ----- direccion -----
-                try (PreparedStatement psDir = conn.prepareStatement(comandoSQLDireccion)) {
-                    psDir.setInt(1, cliente.getId());
-
-                    try (ResultSet rsDir = psDir.executeQuery()) {
-                        if (rsDir.next()) {
-                            Direccion dir = new Direccion();
-                            dir.setId(rsDir.getInt("id"));
-                            dir.setCalle(rsDir.getString("calle"));
-                            dir.setColonia(rsDir.getString("colonia"));
-                            dir.setCp(rsDir.getInt("cp"));
-                            dir.setNumero(rsDir.getInt("numero"));
-                            dir.setCliente(cliente);
-
-                            cliente.setDireccion(dir);
-                        } else {
-                            cliente.setDireccion(null); // si no tiene registro de dirección
-                        }
-                    }
+                // ----- direccion (igual en todas las filas) -----
+                int idDireccion = rs.getInt("id_direccion");
+                if (!rs.wasNull()) {
+                    Direccion dir = new Direccion();
+                    dir.setId(idDireccion);
+                    dir.setCalle(rs.getString("calle"));
+                    dir.setColonia(rs.getString("colonia"));
+                    dir.setCp(rs.getInt("cp"));
+                    dir.setNumero(rs.getInt("numero"));
+                    dir.setCliente(cliente);
+
+                    cliente.setDireccion(dir);
+                } else {
+                    cliente.setDireccion(null); // si no tiene registro de dirección
                 }
 
-                // ----- telefonos -----
+                // ----- telefonos (uno por fila) -----
                 List<Telefono> telefonos = new ArrayList<>();
 
-                try (PreparedStatement psTel = conn.prepareStatement(comandoSQLTelefonos)) {
-                    psTel.setInt(1, cliente.getId());
+                do {
+                    int idTelefono = rs.getInt("id_telefono");
+                    if (rs.wasNull()) {
+                        break; // el cliente no tiene teléfonos: única fila, sin datos de teléfono
+                    }
 
-                    try (ResultSet rsTel = psTel.executeQuery()) {
-                        while (rsTel.next()) {
-                            Telefono t = new Telefono();
-                            t.setId(rsTel.getInt("id"));
-                            t.setTelefono(rsTel.getString("telefono"));
-                            t.setEtiqueta(rsTel.getString("etiqueta"));
-                            t.setCliente(cliente);
+                    Telefono t = new Telefono();
+                    t.setId(idTelefono);
+                    t.setTelefono(rs.getString("telefono"));
+                    t.setEtiqueta(rs.getString("etiqueta"));
+                    t.setCliente(cliente);
 
-                            telefonos.add(t);
-                        }
-                    }
-                }
+                    telefonos.add(t);
+                } while (rs.next());
 
                 cliente.setTelefonos(telefonos);
 
@@ -210,8 +209,8 @@ public class ClienteDAO implements iClienteDAO{
                                      """;
         
         String comandoSQLTelefono = """
-                                    INSERT INTO telefonos(id_cliente, telefono, etiqueta)
-                                    VALUES(?, ?, ?)
+                                    INSERT INTO telefonos(id_cliente, telefono, etiqueta, telefono_normalizado)
+                                    VALUES(?, ?, ?, ?)
                                     """;
 
         Connection conn = null;
@@ -284,12 +283,15 @@ public class ClienteDAO implements iClienteDAO{
                         ps.setInt(1, cliente.getId()); // FK id_cliente / id_usuario
                         ps.setString(2, t.getTelefono());
                         ps.setString(3, t.getEtiqueta());
+                        ps.setString(4, IndiceTelefonos.normalizar(t.getTelefono()));
 
                         ps.addBatch();
                     }
 
                     ps.executeBatch();
                 }
+
+                IndiceTelefonos.reindexarCliente(conn, cliente.getId());
             }
 
             conn.commit();
@@ -440,8 +442,8 @@ public class ClienteDAO implements iClienteDAO{
                            """;
 
         String sqlInsert = """
-                            INSERT INTO Telefonos(id_cliente, telefono, etiqueta)
-                            VALUES(?, ?, ?)
+                            INSERT INTO Telefonos(id_cliente, telefono, etiqueta, telefono_normalizado)
+                            VALUES(?, ?, ?, ?)
                             """;
 
         Connection conn = null;
@@ -481,6 +483,8 @@ public class ClienteDAO implements iClienteDAO{
                             psIns.setString(3, etq);
                         }
 
+                        psIns.setString(4, IndiceTelefonos.normalizar(num));
+
                         psIns.addBatch();
                     }
 
@@ -504,6 +508,10 @@ public class ClienteDAO implements iClienteDAO{
                         }
                     }
                 }
+
+                // 4) Indexar los nuevos números para la búsqueda por fragmento
+                //    (los sufijos anteriores se borraron en cascada en el paso 1)
+                IndiceTelefonos.reindexarCliente(conn, idCliente);
             }
 
             conn.commit();
@@ -547,4 +555,4 @@ public class ClienteDAO implements iClienteDAO{
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -12,9 +12,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import persistencia.Conexion.iConexionBD;
@@ -39,18 +42,34 @@ public class DetallePedidoDAO implements iDetallePedidoDAO {
      */
     private static final Logger LOG = Logger.getLogger(DetallePedidoDAO.class.getName());
 
+    /**
+     * Número máximo de detalles que se envían en cada lote de inserción.
+     */
+    private final int tamanioLote;
+
     /**
      * Constructor que inyecta la dependencia de la conexión a la base de datos.
      * @param conexionBD Implementación de la interfaz de conexión.
      */
     public DetallePedidoDAO(iConexionBD conexionBD) {
+        this(conexionBD, InsertorDetallesPedido.TAMANIO_LOTE_DEFECTO);
+    }
+
+    /**
+     * Constructor que además configura el tamaño de lote para insertar detalles.
+     * @param conexionBD Implementación de la interfaz de conexión.
+     * @param tamanioLote Número máximo de detalles por lote (mínimo 1).
+     */
+    public DetallePedidoDAO(iConexionBD conexionBD, int tamanioLote) {
         this.conexionBD = conexionBD;
+        this.tamanioLote = Math.max(1, tamanioLote);
     }
 
     /**
      * Inserta una lista de detalles asociados a un pedido utilizando procesamiento por lotes.
-     * <p>Prepara una única sentencia SQL y agrega cada detalle al lote (batch) 
-     * para luego ejecutarlos todos juntos, mejorando significativamente el rendimiento.</p>
+     * <p>Las partidas se envían en lotes de tamaño configurable dentro de una sola
+     * transacción; el driver reescribe cada lote como un <code>INSERT</code> de varias
+     * filas. Los IDs generados se asignan a cada {@link DetallePedido}.</p>
      *
      * @param idPedido Identificador del pedido al que pertenecen los detalles.
      * @param detalles Lista de objetos {@link DetallePedido} a insertar.
@@ -62,44 +81,44 @@ public class DetallePedidoDAO implements iDetallePedidoDAO {
             return;
         }
 
-        String comandoSQL = """
-                    INSERT INTO DetallesPedidos(nota, cantidad, precio, total, id_pedido, id_producto)
-                    VALUES(?, ?, ?, ?, ?, ?)
-                    """;
-
-        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(comandoSQL)) {
+        Connection conn = null;
 
-            for (DetallePedido d : detalles) {
-                if (d == null) {
-                    continue;
-                }
+        try {
+            conn = conexionBD.crearConexion();
+            conn.setAutoCommit(false);
 
-                if (d.getNota() == null || d.getNota().trim().isEmpty()) {
-                    ps.setNull(1, Types.VARCHAR);
-                } else {
-                    ps.setString(1, d.getNota().trim());
-                }
+            InsertorDetallesPedido.insertar(conn, idPedido, detalles, tamanioLote);
 
-                ps.setInt(2, d.getCantidad());
-                ps.setFloat(3, d.getPrecio());
-                ps.setFloat(4, d.getSubtotal());
-                ps.setInt(5, idPedido);
+            conn.commit();
 
-                if (d.getProducto() == null) {
-                    throw new PersistenciaException("Un detalle no tiene producto asignado.");
+        } catch (PersistenciaException ex) {
+            // Lotes anteriores ya se enviaron; sin rollback, setAutoCommit(true) los confirmaría
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
                 }
-                ps.setInt(6, d.getProducto().getId());
-
-                // Se agrega la instrucción al lote en lugar de ejecutarla inmediatamente
-                ps.addBatch();
             }
-
-            // Ejecuta todas las inserciones preparadas en un solo viaje a la BD
-            ps.executeBatch();
+            throw ex;
 
         } catch (SQLException ex) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                }
+            }
             LOG.log(Level.SEVERE, "Error al insertar detalles del pedido", ex);
             throw new PersistenciaException("Error al insertar detalles del pedido", ex);
+
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException ignored) {
+                }
+            }
         }
     }
 
@@ -132,27 +151,7 @@ public class DetallePedidoDAO implements iDetallePedidoDAO {
             try (ResultSet rs = ps.executeQuery()) {
 
                 while (rs.next()) {
-
-                    Producto producto = new Producto();
-                    producto.setId(rs.getInt("id_producto"));
-                    producto.setNombre(rs.getString("nombre"));
-                    producto.setTipo(TipoProducto.valueOf(rs.getString("tipo")));
-                    
-                    // El replace garantiza que los espacios en la BD coincidan con el Enum en Java
-                    producto.setEstado(EstadoProducto.valueOf(rs.getString("estado").replace(" ", "_")));
-                    producto.setDescripcion(rs.getString("descripcion"));
-
-                    // ===== Detalle =====
-                    DetallePedido d = new DetallePedido();
-                    d.setId(rs.getInt("id"));
-                    d.setNota(rs.getString("nota")); // puede ser null
-                    d.setCantidad(rs.getInt("cantidad"));
-                    d.setPrecio(rs.getFloat("precio"));
-                    d.setSubtotal(rs.getFloat("total"));
-                    d.setProducto(producto);
-                    d.setPedido(null);
-
-                    detalles.add(d);
+                    detalles.add(mapearDetalle(rs));
                 }
             }
 
@@ -196,4 +195,83 @@ public class DetallePedidoDAO implements iDetallePedidoDAO {
             throw new PersistenciaException("Error al obtener subtotal del pedido", ex);
         }
     }
+
+    /**
+     * Recupera los detalles de varios pedidos en una sola consulta.
+     * <p>Misma consulta que {@link #listarDetallesPorPedido(int)}, pero con
+     * <code>WHERE dp.id_pedido IN (...)</code>. Si hay más de
+     * {@link ListasIn#MAXIMO_IDS_POR_CONSULTA} pedidos, se hace una consulta por bloque, todas
+     * con la misma conexión.</p>
+     *
+     * @param idsPedidos Identificadores de los pedidos a consultar.
+     * @return Mapa del ID de cada pedido a sus detalles, en el orden de <code>idsPedidos</code>.
+     * @throws PersistenciaException Si ocurre un error de SQL durante la consulta.
+     */
+    @Override
+    public Map<Integer, List<DetallePedido>> listarDetallesPorPedidos(Collection<Integer> idsPedidos) throws PersistenciaException {
+        Map<Integer, List<DetallePedido>> detalles = new LinkedHashMap<>();
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(idsPedidos));
+        for (Integer id : ids) {
+            detalles.put(id, new ArrayList<>());
+        }
+        if (ids.isEmpty()) {
+            return detalles;
+        }
+
+        try (Connection conn = conexionBD.crearConexion()) {
+
+            for (int desde = 0; desde < ids.size(); desde += ListasIn.MAXIMO_IDS_POR_CONSULTA) {
+                List<Integer> bloque = ids.subList(desde, Math.min(ids.size(), desde + ListasIn.MAXIMO_IDS_POR_CONSULTA));
+
+                String comandoSQL = """
+                        SELECT dp.id_pedido, dp.id, dp.nota, dp.cantidad, dp.precio, dp.total, dp.id_producto, p.nombre, p.tipo, p.estado, p.descripcion
+                        FROM DetallesPedidos dp
+                        INNER JOIN Productos p ON p.id = dp.id_producto
+                        WHERE dp.id_pedido IN (%s)
+                        ORDER BY dp.id_pedido, dp.id ASC
+                        """.formatted(ListasIn.marcadores(bloque.size()));
+
+                try (PreparedStatement ps = conn.prepareStatement(comandoSQL)) {
+                    ListasIn.asignarIds(ps, 1, bloque);
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            detalles.get(rs.getInt("id_pedido")).add(mapearDetalle(rs));
+                        }
+                    }
+                }
+            }
+
+            return detalles;
+
+        } catch (SQLException ex) {
+            LOG.log(Level.SEVERE, "Error al listar detalles de los pedidos", ex);
+            throw new PersistenciaException("Error al listar detalles de los pedidos", ex);
+        }
+    }
+
+    /**
+     * Construye un {@link DetallePedido} (con su producto) a partir de la fila actual.
+     */
+    private DetallePedido mapearDetalle(ResultSet rs) throws SQLException {
+        Producto producto = new Producto();
+        producto.setId(rs.getInt("id_producto"));
+        producto.setNombre(rs.getString("nombre"));
+        producto.setTipo(TipoProducto.valueOf(rs.getString("tipo")));
+
+        // El replace garantiza que los espacios en la BD coincidan con el Enum en Java
+        producto.setEstado(EstadoProducto.valueOf(rs.getString("estado").replace(" ", "_")));
+        producto.setDescripcion(rs.getString("descripcion"));
+
+        // ===== Detalle =====
+        DetallePedido d = new DetallePedido();
+        d.setId(rs.getInt("id"));
+        d.setNota(rs.getString("nota")); // puede ser null
+        d.setCantidad(rs.getInt("cantidad"));
+        d.setPrecio(rs.getFloat("precio"));
+        d.setSubtotal(rs.getFloat("total"));
+        d.setProducto(producto);
+        d.setPedido(null);
+        return d;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package persistencia.DAOs;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * <b>Índice de búsqueda de teléfonos por fragmento.</b>
+ * <p>Cada teléfono se guarda también normalizado (sólo dígitos) en
+ * <code>Telefonos.telefono_normalizado</code>, y todos los sufijos de ese número se
+ * guardan en <code>TelefonosSufijos</code>. Un fragmento aparece dentro de un número
+ * si y sólo si es el inicio de alguno de sus sufijos, así que la búsqueda parcial
+ * (<code>LIKE '%5512%'</code>) se convierte en una búsqueda por prefijo
+ * (<code>sufijo LIKE '5512%'</code>) que sí se resuelve con el índice.</p>
+ * <p>Los DAOs que escriben en <code>Telefonos</code> deben llamar a
+ * {@link #reindexarCliente(Connection, int)} dentro de su transacción; los sufijos
+ * se borran en cascada al borrar el teléfono.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+final class IndiceTelefonos {
+
+    /**
+     * Regenera los sufijos de todos los teléfonos de un cliente en un solo comando.
+     * Los números tienen a lo más 15 dígitos (VARCHAR(15)).
+     */
+    private static final String COMANDO_REINDEXAR_SQL = """
+        INSERT IGNORE INTO TelefonosSufijos(id_telefono, sufijo, id_cliente)
+        WITH RECURSIVE posiciones(n) AS (
+            SELECT 1
+            UNION ALL
+            SELECT n + 1 FROM posiciones WHERE n < 15
+        )
+        SELECT t.id, SUBSTRING(t.telefono_normalizado, posiciones.n), t.id_cliente
+        FROM Telefonos t
+        JOIN posiciones ON posiciones.n <= CHAR_LENGTH(t.telefono_normalizado)
+        WHERE t.id_cliente = ?
+        """;
+
+    private IndiceTelefonos() {
+    }
+
+    /**
+     * Deja sólo los dígitos de un teléfono ("(644) 123-45-67" -> "6441234567").
+     *
+     * @param telefono Teléfono tal como lo capturó el usuario (puede ser null).
+     * @return Los dígitos del teléfono, o cadena vacía si no tiene.
+     */
+    static String normalizar(String telefono) {
+        if (telefono == null) {
+            return "";
+        }
+
+        StringBuilder digitos = new StringBuilder(telefono.length());
+        for (int i = 0; i < telefono.length(); i++) {
+            char c = telefono.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        return digitos.toString();
+    }
+
+    /**
+     * Genera los sufijos que falten para los teléfonos de un cliente.
+     * <p>No hace commit: se ejecuta en la transacción del DAO que llama.</p>
+     *
+     * @param conn Conexión activa (con la transacción del llamador).
+     * @param idCliente ID del cliente cuyos teléfonos se indexan.
+     * @throws SQLException Si falla la inserción de los sufijos.
+     */
+    static void reindexarCliente(Connection conn, int idCliente) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(COMANDO_REINDEXAR_SQL)) {
+            ps.setInt(1, idCliente);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package persistencia.DAOs;
+
+import dominio.DetallePedido;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import persistencia.Excepciones.PersistenciaException;
+
+/**
+ * <b>Inserción por lotes de los detalles de un pedido.</b>
+ * <p>Centraliza la inserción en <code>DetallesPedidos</code> que antes estaba repetida
+ * en {@link PedidoDAO} y {@link DetallePedidoDAO}. Las partidas se envían en lotes
+ * (<code>addBatch</code>/<code>executeBatch</code>) de tamaño configurable; con
+ * <code>rewriteBatchedStatements=true</code> en la cadena de conexión, el driver de
+ * MySQL reescribe cada lote como un único <code>INSERT</code> de varias filas.</p>
+ * <p>Los IDs autogenerados se asignan de regreso a cada {@link DetallePedido}.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+final class InsertorDetallesPedido {
+
+    /**
+     * Tamaño de lote por defecto: cubre en un solo viaje la mayoría de los pedidos.
+     */
+    static final int TAMANIO_LOTE_DEFECTO = 50;
+
+    private static final Logger LOG = Logger.getLogger(InsertorDetallesPedido.class.getName());
+
+    private static final String COMANDO_DETALLE_SQL = """
+        INSERT INTO DetallesPedidos(nota, cantidad, precio, total, id_pedido, id_producto)
+        VALUES(?,?,?,?,?,?)
+        """;
+
+    private InsertorDetallesPedido() {
+    }
+
+    /**
+     * Inserta los detalles de un pedido sobre la conexión (y transacción) recibida.
+     * <p>No hace commit ni cierra la conexión: eso corresponde al DAO que la abrió.
+     * Los elementos nulos de la lista se omiten.</p>
+     *
+     * @param conn Conexión activa sobre la que se ejecutan los lotes.
+     * @param idPedido ID del pedido al que pertenecen los detalles.
+     * @param detalles Detalles a insertar.
+     * @param tamanioLote Número máximo de filas por lote.
+     * @throws SQLException Si falla la ejecución de algún lote.
+     * @throws PersistenciaException Si algún detalle no tiene producto o no se recuperan los IDs.
+     */
+    static void insertar(Connection conn, int idPedido, List<DetallePedido> detalles, int tamanioLote)
+            throws SQLException, PersistenciaException {
+
+        long inicio = System.nanoTime();
+        List<DetallePedido> lote = new ArrayList<>(Math.min(tamanioLote, detalles.size()));
+
+        try (PreparedStatement ps = conn.prepareStatement(COMANDO_DETALLE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            for (DetallePedido d : detalles) {
+                if (d == null) {
+                    continue;
+                }
+
+                if (d.getProducto() == null) {
+                    throw new PersistenciaException("Un detalle no tiene producto asignado.");
+                }
+
+                if (d.getNota() == null || d.getNota().trim().isEmpty()) {
+                    ps.setNull(1, Types.VARCHAR);
+                } else {
+                    ps.setString(1, d.getNota().trim());
+                }
+
+                ps.setInt(2, d.getCantidad());
+                ps.setFloat(3, d.getPrecio());
+                ps.setFloat(4, d.getSubtotal()); // dominio subtotal -> BD total
+                ps.setInt(5, idPedido);
+                ps.setInt(6, d.getProducto().getId());
+
+                ps.addBatch();
+                lote.add(d);
+
+                if (lote.size() >= tamanioLote) {
+                    ejecutarLote(ps, lote);
+                }
+            }
+
+            if (!lote.isEmpty()) {
+                ejecutarLote(ps, lote);
+            }
+        }
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("Detalles del pedido %d insertados en %.2f ms (%d partidas, lote de %d)",
+                    idPedido, (System.nanoTime() - inicio) / 1_000_000.0, detalles.size(), tamanioLote));
+        }
+    }
+
+    /**
+     * Ejecuta el lote acumulado y asigna los IDs generados a sus detalles en orden.
+     */
+    private static void ejecutarLote(PreparedStatement ps, List<DetallePedido> lote) throws SQLException, PersistenciaException {
+        ps.executeBatch();
+
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            for (DetallePedido d : lote) {
+                if (!rs.next()) {
+                    throw new PersistenciaException("No se pudieron obtener los IDs de los detalles del pedido.");
+                }
+                d.setId(rs.getInt(1));
+            }
+        }
+
+        lote.clear();
+    }
+}
@@ -0,0 +1,213 @@
+package persistencia.DAOs;
+
+import dominio.DetallePedido;
+import dominio.Pedido;
+import dominio.PedidoExpress;
+import dominio.PedidoProgramado;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import persistencia.Excepciones.PersistenciaException;
+
+/**
+ * <b>Registro de un pedido completo mediante el procedimiento <code>sp_insertar_pedido</code>.</b>
+ * <p>El camino normal de {@link PedidoDAO} envía desde el cliente el
+ * <code>INSERT</code> de <code>Pedidos</code>, los lotes de detalles, el canje del
+ * cupón y el <code>INSERT</code> de la tabla hija: cada uno es un viaje a la base de
+ * datos. Aquí todo va en una sola llamada: el encabezado como parámetros y los
+ * detalles como un arreglo JSON que el procedimiento expande con
+ * <code>JSON_TABLE</code>. Con un enlace de alta latencia esto reduce el registro a
+ * un viaje más el commit.</p>
+ * <p>Se activa por despliegue con <code>-Dpanaderia.pedidos.insercion=servidor</code>
+ * (ver {@link PedidoDAO#INSERCION_EN_SERVIDOR_DEFECTO}). El procedimiento se crea con
+ * la migración V4.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+final class InsertorPedidoProcedimiento {
+
+    private static final Logger LOG = Logger.getLogger(InsertorPedidoProcedimiento.class.getName());
+
+    private static final String LLAMADA_SQL = "{CALL sp_insertar_pedido(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)}";
+
+    /**
+     * SQLSTATE de los errores que lanza el procedimiento con <code>SIGNAL</code>.
+     */
+    private static final String ESTADO_SIGNAL = "45000";
+
+    private InsertorPedidoProcedimiento() {
+    }
+
+    /**
+     * Registra el pedido y sus detalles sobre la conexión (y transacción) recibida.
+     * <p>No hace commit ni cierra la conexión. Asigna al pedido su ID y número (si
+     * no traía uno, el procedimiento lo toma de la secuencia), y a cada detalle su ID.
+     * Los elementos nulos de la lista se omiten.</p>
+     *
+     * @param conn Conexión activa.
+     * @param pedido Pedido programado o express a registrar.
+     * @param detalles Detalles del pedido.
+     * @throws SQLException Si falla la llamada.
+     * @throws PersistenciaException Si algún detalle no tiene producto, o si el
+     * procedimiento rechaza el pedido (sin detalles, cupón no canjeable).
+     */
+    static void insertar(Connection conn, Pedido pedido, List<DetallePedido> detalles)
+            throws SQLException, PersistenciaException {
+
+        long inicio = System.nanoTime();
+
+        List<DetallePedido> partidas = new ArrayList<>(detalles.size());
+        for (DetallePedido d : detalles) {
+            if (d == null) {
+                continue;
+            }
+            if (d.getProducto() == null) {
+                throw new PersistenciaException("Un detalle no tiene producto asignado.");
+            }
+            partidas.add(d);
+        }
+
+        try (CallableStatement cs = conn.prepareCall(LLAMADA_SQL)) {
+
+            cs.setString(1, pedido instanceof PedidoExpress ? "Express" : "Programado");
+            cs.setString(2, MapeadorPedido.etiqueta(pedido.getEstado()));
+            cs.setTimestamp(3, Timestamp.valueOf(pedido.getFechaCreacion()));
+
+            if (pedido.getFechaEntrega() != null) {
+                cs.setTimestamp(4, Timestamp.valueOf(pedido.getFechaEntrega()));
+            } else {
+                cs.setNull(4, Types.TIMESTAMP);
+            }
+
+            cs.setString(5, pedido.getMetodoPago().name());
+            cs.setFloat(6, pedido.getTotal());
+
+            if (pedido.getNumeroPedido() > 0) {
+                cs.setInt(7, pedido.getNumeroPedido());
+            } else {
+                cs.setNull(7, Types.INTEGER);
+            }
+            cs.registerOutParameter(7, Types.INTEGER);
+
+            if (pedido.getCliente() != null) {
+                cs.setInt(8, pedido.getCliente().getId());
+            } else {
+                cs.setNull(8, Types.INTEGER);
+            }
+
+            if (pedido instanceof PedidoProgramado pp && pp.getCupon() != null) {
+                cs.setInt(9, pp.getCupon().getId());
+            } else {
+                cs.setNull(9, Types.INTEGER);
+            }
+
+            if (pedido instanceof PedidoExpress pe) {
+                cs.setString(10, pe.getPin());
+                cs.setString(11, pe.getFolio());
+            } else {
+                cs.setNull(10, Types.VARCHAR);
+                cs.setNull(11, Types.VARCHAR);
+            }
+
+            cs.setString(12, aJson(partidas));
+            cs.registerOutParameter(13, Types.INTEGER);
+
+            List<Integer> idsDetalles = new ArrayList<>(partidas.size());
+            try {
+                boolean hayResultado = cs.execute();
+                if (hayResultado) {
+                    try (ResultSet rs = cs.getResultSet()) {
+                        while (rs.next()) {
+                            idsDetalles.add(rs.getInt(1));
+                        }
+                    }
+                }
+            } catch (SQLException ex) {
+                if (ESTADO_SIGNAL.equals(ex.getSQLState())) {
+                    throw new PersistenciaException(ex.getMessage(), ex);
+                }
+                throw ex;
+            }
+
+            pedido.setNumeroPedido(cs.getInt(7));
+            pedido.setId(cs.getInt(13));
+
+            if (idsDetalles.size() != partidas.size()) {
+                throw new PersistenciaException("El procedimiento devolvió " + idsDetalles.size()
+                        + " detalles de " + partidas.size() + ".");
+            }
+            for (int i = 0; i < partidas.size(); i++) {
+                partidas.get(i).setId(idsDetalles.get(i));
+            }
+        }
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("Pedido %d registrado con sp_insertar_pedido en %.2f ms (%d partidas)",
+                    pedido.getId(), (System.nanoTime() - inicio) / 1_000_000.0, partidas.size()));
+        }
+    }
+
+    /**
+     * Arma el arreglo JSON de detalles que espera el procedimiento.
+     */
+    static String aJson(List<DetallePedido> partidas) {
+        StringBuilder json = new StringBuilder(partidas.size() * 80).append('[');
+
+        for (DetallePedido d : partidas) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"id_producto\":").append(d.getProducto().getId())
+                    .append(",\"cantidad\":").append(d.getCantidad())
+                    .append(",\"precio\":").append(d.getPrecio())
+                    .append(",\"total\":").append(d.getSubtotal()); // dominio subtotal -> BD total
+
+            if (d.getNota() != null && !d.getNota().trim().isEmpty()) {
+                json.append(",\"nota\":");
+                cadenaJson(json, d.getNota().trim());
+            }
+            json.append('}');
+        }
+
+        return json.append(']').toString();
+    }
+
+    private static void cadenaJson(StringBuilder json, String texto) {
+        json.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
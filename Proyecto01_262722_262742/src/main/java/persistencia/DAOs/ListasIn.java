@@ -0,0 +1,51 @@
+package persistencia.DAOs;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <b>Utilidades para las consultas con listas <code>IN (...)</code> de IDs.</b>
+ * <p>Las comparten los DAOs que consultan o actualizan muchos pedidos a la vez: las
+ * listas se parten en bloques de {@link #MAXIMO_IDS_POR_CONSULTA} y cada bloque se
+ * envía como parámetros de una sentencia preparada.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+final class ListasIn {
+
+    /**
+     * Máximo de IDs por sentencia en las consultas masivas; listas más grandes se
+     * parten en varias consultas.
+     */
+    static final int MAXIMO_IDS_POR_CONSULTA = 500;
+
+    private ListasIn() {
+    }
+
+    /**
+     * Genera <code>?, ?, ...</code> para una lista <code>IN</code> de <code>n</code> valores.
+     *
+     * @param n Número de valores de la lista.
+     * @return Los marcadores separados por coma.
+     */
+    static String marcadores(int n) {
+        return String.join(", ", Collections.nCopies(n, "?"));
+    }
+
+    /**
+     * Asigna los IDs como parámetros consecutivos a partir de <code>primero</code>.
+     *
+     * @param ps Sentencia preparada con la lista <code>IN</code>.
+     * @param primero Índice del parámetro que recibe el primer ID.
+     * @param ids IDs a asignar, en orden.
+     * @throws SQLException Si falla la asignación de algún parámetro.
+     */
+    static void asignarIds(PreparedStatement ps, int primero, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            ps.setInt(primero + i, ids.get(i));
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package persistencia.DAOs;
+
+import dominio.Cliente;
+import dominio.Cupon;
+import dominio.EstadoPedido;
+import dominio.MetodoPago;
+import dominio.Pedido;
+import dominio.PedidoExpress;
+import dominio.PedidoProgramado;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <b>Mapeador compartido de filas de pedidos.</b>
+ * <p>Reemplaza las copias del código de mapeo que existían en cada consulta de
+ * {@link PedidoDAO}. Los índices de columna se resuelven una sola vez por
+ * <code>ResultSet</code> (a partir de sus metadatos), de modo que cada fila se lee
+ * por posición y no por nombre.</p>
+ * <p>Las etiquetas de la base de datos ("No reclamado") se traducen a los enums
+ * mediante tablas precalculadas, sin el <code>replace</code> + <code>valueOf</code>
+ * que generaba cadenas temporales en cada fila.</p>
+ * <p>Las columnas de cliente (<code>nombres</code>, <code>apellido_paterno</code>, ...)
+ * y <code>cupon_nombre</code> son opcionales: si la consulta no las incluye, simplemente
+ * no se llenan esos campos.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+final class MapeadorPedido {
+
+    /**
+     * Etiqueta en BD -> estado. Precalculada a partir de los valores del enum.
+     */
+    private static final Map<String, EstadoPedido> ESTADOS = new HashMap<>();
+
+    /**
+     * Estado (por ordinal) -> etiqueta en BD.
+     */
+    private static final String[] ETIQUETAS_ESTADO;
+
+    /**
+     * Etiqueta en BD -> método de pago.
+     */
+    private static final Map<String, MetodoPago> METODOS_PAGO = new HashMap<>();
+
+    static {
+        EstadoPedido[] estados = EstadoPedido.values();
+        ETIQUETAS_ESTADO = new String[estados.length];
+        for (EstadoPedido e : estados) {
+            String etiqueta = e.name().replace("_", " ");
+            ETIQUETAS_ESTADO[e.ordinal()] = etiqueta;
+            ESTADOS.put(etiqueta, e);
+            ESTADOS.put(e.name(), e);
+        }
+
+        for (MetodoPago m : MetodoPago.values()) {
+            METODOS_PAGO.put(m.name().replace("_", " "), m);
+            METODOS_PAGO.put(m.name(), m);
+        }
+    }
+
+    private final int colId;
+    private final int colEstado;
+    private final int colFechaCreacion;
+    private final int colFechaEntrega;
+    private final int colMetodoPago;
+    private final int colTotal;
+    private final int colNumeroPedido;
+    private final int colIdCliente;
+    private final int colNombres;
+    private final int colApellidoPaterno;
+    private final int colApellidoMaterno;
+    private final int colFechaNacimiento;
+    private final int colPin;
+    private final int colFolio;
+    private final int colIdCupon;
+    private final int colCuponNombre;
+
+    /**
+     * Resuelve los índices de las columnas presentes en el <code>ResultSet</code>.
+     *
+     * @param rs Resultado de una consulta de pedidos.
+     * @throws SQLException Si falta alguna columna obligatoria o no se pueden leer los metadatos.
+     */
+    MapeadorPedido(ResultSet rs) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = md.getColumnCount(); i >= 1; i--) {
+            indices.put(md.getColumnLabel(i).toLowerCase(), i);
+        }
+
+        colId = obligatoria(indices, "id");
+        colEstado = obligatoria(indices, "estado");
+        colFechaCreacion = obligatoria(indices, "fecha_creacion");
+        colFechaEntrega = obligatoria(indices, "fecha_entrega");
+        colMetodoPago = obligatoria(indices, "metodo_pago");
+        colTotal = obligatoria(indices, "total");
+        colNumeroPedido = obligatoria(indices, "numero_pedido");
+        colIdCliente = obligatoria(indices, "id_cliente");
+        colNombres = indices.getOrDefault("nombres", 0);
+        colApellidoPaterno = indices.getOrDefault("apellido_paterno", 0);
+        colApellidoMaterno = indices.getOrDefault("apellido_materno", 0);
+        colFechaNacimiento = indices.getOrDefault("fecha_nacimiento", 0);
+        colPin = indices.getOrDefault("pin", 0);
+        colFolio = indices.getOrDefault("folio", 0);
+        colIdCupon = indices.getOrDefault("id_cupon", 0);
+        colCuponNombre = indices.getOrDefault("cupon_nombre", 0);
+    }
+
+    private static int obligatoria(Map<String, Integer> indices, String columna) throws SQLException {
+        Integer indice = indices.get(columna);
+        if (indice == null) {
+            throw new SQLException("La consulta de pedidos no incluye la columna '" + columna + "'.");
+        }
+        return indice;
+    }
+
+    /**
+     * Construye el pedido de la fila actual como {@link PedidoExpress} (si tiene PIN o folio)
+     * o como {@link PedidoProgramado}.
+     *
+     * @param rs Resultado posicionado en la fila a mapear.
+     * @return El pedido mapeado.
+     * @throws SQLException Si falla la lectura o alguna etiqueta no corresponde a un enum.
+     */
+    Pedido mapear(ResultSet rs) throws SQLException {
+        int id = rs.getInt(colId);
+        EstadoPedido estado = estadoDesdeEtiqueta(rs.getString(colEstado));
+        LocalDateTime fechaCreacion = fecha(rs.getTimestamp(colFechaCreacion));
+        LocalDateTime fechaEntrega = fecha(rs.getTimestamp(colFechaEntrega));
+        MetodoPago metodoPago = metodoPagoDesdeEtiqueta(rs.getString(colMetodoPago));
+        float total = rs.getFloat(colTotal);
+        int numeroPedido = rs.getInt(colNumeroPedido);
+        Cliente cliente = mapearCliente(rs);
+
+        String pin = colPin > 0 ? rs.getString(colPin) : null;
+        String folio = colFolio > 0 ? rs.getString(colFolio) : null;
+
+        if (pin != null || folio != null) {
+            return new PedidoExpress(id, estado, fechaCreacion, fechaEntrega, metodoPago, total, numeroPedido, cliente, pin, folio);
+        }
+
+        Cupon cupon = null;
+        if (colIdCupon > 0) {
+            int idCupon = rs.getInt(colIdCupon);
+            if (!rs.wasNull()) {
+                cupon = new Cupon();
+                cupon.setId(idCupon);
+                if (colCuponNombre > 0) {
+                    cupon.setNombre(rs.getString(colCuponNombre));
+                }
+            }
+        }
+
+        return new PedidoProgramado(id, estado, fechaCreacion, fechaEntrega, metodoPago, total, numeroPedido, cliente, cupon);
+    }
+
+    /**
+     * El cliente puede ser null (pedidos express sin cuenta); los datos personales
+     * sólo se llenan si la consulta los incluye.
+     */
+    private Cliente mapearCliente(ResultSet rs) throws SQLException {
+        int idCliente = rs.getInt(colIdCliente);
+        if (rs.wasNull()) {
+            return null;
+        }
+
+        Cliente cliente = new Cliente();
+        cliente.setId(idCliente);
+
+        if (colNombres > 0) {
+            cliente.setNombres(rs.getString(colNombres));
+        }
+        if (colApellidoPaterno > 0) {
+            cliente.setApellidoPaterno(rs.getString(colApellidoPaterno));
+        }
+        if (colApellidoMaterno > 0) {
+            cliente.setApellidoMaterno(rs.getString(colApellidoMaterno));
+        }
+        if (colFechaNacimiento > 0) {
+            Date fn = rs.getDate(colFechaNacimiento);
+            if (fn != null) {
+                cliente.setFechaNacimiento(fn.toLocalDate());
+            }
+        }
+        return cliente;
+    }
+
+    private static LocalDateTime fecha(Timestamp ts) {
+        return ts != null ? ts.toLocalDateTime() : null;
+    }
+
+    /**
+     * Traduce la etiqueta almacenada en BD (ej. "No reclamado") al estado correspondiente.
+     *
+     * @param etiqueta Valor de la columna <code>estado</code>.
+     * @return El estado equivalente.
+     * @throws SQLException Si la etiqueta no corresponde a ningún estado.
+     */
+    static EstadoPedido estadoDesdeEtiqueta(String etiqueta) throws SQLException {
+        EstadoPedido estado = etiqueta != null ? ESTADOS.get(etiqueta) : null;
+        if (estado == null) {
+            throw new SQLException("Estado de pedido desconocido: " + etiqueta);
+        }
+        return estado;
+    }
+
+    /**
+     * Devuelve la etiqueta con la que se guarda un estado en BD (ej. "No reclamado").
+     *
+     * @param estado Estado del pedido.
+     * @return Etiqueta precalculada, sin crear cadenas nuevas.
+     */
+    static String etiqueta(EstadoPedido estado) {
+        return ETIQUETAS_ESTADO[estado.ordinal()];
+    }
+
+    private static MetodoPago metodoPagoDesdeEtiqueta(String etiqueta) throws SQLException {
+        MetodoPago metodo = etiqueta != null ? METODOS_PAGO.get(etiqueta) : null;
+        if (metodo == null) {
+            throw new SQLException("Método de pago desconocido: " + etiqueta);
+        }
+        return metodo;
+    }
+}
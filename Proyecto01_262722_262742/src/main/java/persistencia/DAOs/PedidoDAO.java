@@ -986,16 +986,17 @@
  */
 package persistencia.DAOs;
 
-import dominio.Cliente;
 import dominio.Cupon;
+import dominio.CursorPedidos;
 import dominio.DetallePedido;
 import dominio.EstadoPedido;
-import dominio.MetodoPago;
+import dominio.MaquinaEstadosPedido;
+import dominio.PaginaPedidos;
 import dominio.Pedido;
 import dominio.PedidoExpress;
 import dominio.PedidoProgramado;
+import dominio.ResultadoCambioEstado;
 import java.sql.Connection;
-import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -1005,9 +1006,23 @@ import java.sql.Types;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import persistencia.Conexion.UnidadTrabajo;
 import persistencia.Conexion.iConexionBD;
 import persistencia.Excepciones.PersistenciaException;
 
@@ -1036,19 +1051,121 @@ public class PedidoDAO implements iPedidoDAO {
      */
     private static final Logger LOG = Logger.getLogger(PedidoDAO.class.getName());
 
+    /**
+     * Número máximo de detalles que se envían en cada lote de inserción.
+     */
+    private final int tamanioLoteDetalles;
+
+    /**
+     * Cantidad de números de pedido que se reservan en cada viaje a la base de datos.
+     */
+    private static final int TAMANIO_BLOQUE_NUMEROS = 10;
+
+    /**
+     * Asignador hi/lo de números de pedido respaldado por la secuencia "numero_pedido".
+     */
+    private final AsignadorSecuencia numerosPedido;
+
+    /**
+     * Asignador hi/lo del consecutivo de folios express respaldado por la secuencia "folio_express".
+     */
+    private final AsignadorSecuencia consecutivosFolio;
+
+    /**
+     * Canje de cupones del pedido programado, con reserva de usos por bloques.
+     */
+    private final CanjeadorCupones canjeadorCupones;
+
+    /**
+     * Lista SQL de los estados de origen de cada estado destino (por ordinal), armada una
+     * sola vez con {@link MaquinaEstadosPedido}, p. ej. <code>('Pendiente', 'Listo')</code>.
+     * Es <code>null</code> si ningún estado puede pasar a ese destino.
+     */
+    private static final String[] ORIGENES_ESTADO_SQL = new String[EstadoPedido.values().length];
+
+    /**
+     * <code>UPDATE</code> condicional de un pedido para cambiar a cada estado (por ordinal).
+     */
+    private static final String[] CAMBIO_ESTADO_SQL = new String[EstadoPedido.values().length];
+
+    static {
+        for (EstadoPedido destino : EstadoPedido.values()) {
+            Set<EstadoPedido> origenes = MaquinaEstadosPedido.origenesDe(destino);
+            if (origenes.isEmpty()) {
+                continue;
+            }
+
+            StringJoiner enOrigenes = new StringJoiner("', '", "('", "')");
+            for (EstadoPedido origen : origenes) {
+                enOrigenes.add(MapeadorPedido.etiqueta(origen));
+            }
+            ORIGENES_ESTADO_SQL[destino.ordinal()] = enOrigenes.toString();
+            CAMBIO_ESTADO_SQL[destino.ordinal()] = "UPDATE Pedidos SET estado = ? WHERE id = ? AND estado IN " + enOrigenes;
+        }
+    }
+
+    /**
+     * Camino de registro de pedidos por defecto, elegido por despliegue con
+     * <code>-Dpanaderia.pedidos.insercion</code>: <code>cliente</code> (por defecto)
+     * envía cada sentencia desde la aplicación; <code>servidor</code> registra el
+     * pedido completo con el procedimiento <code>sp_insertar_pedido</code>.
+     */
+    public static final boolean INSERCION_EN_SERVIDOR_DEFECTO =
+            "servidor".equalsIgnoreCase(System.getProperty("panaderia.pedidos.insercion", "cliente"));
+
+    /**
+     * Si es <code>true</code>, los pedidos se registran con {@link InsertorPedidoProcedimiento}.
+     */
+    private final boolean insercionEnServidor;
+
     /**
      * Constructor que inicializa la dependencia de conexión.
      *
      * @param conexionBD Objeto que gestiona la creación de conexiones a la base de datos.
      */
     public PedidoDAO(iConexionBD conexionBD) {
+        this(conexionBD, InsertorDetallesPedido.TAMANIO_LOTE_DEFECTO);
+    }
+
+    /**
+     * Constructor que además configura el tamaño de lote para insertar detalles.
+     *
+     * @param conexionBD Objeto que gestiona la creación de conexiones a la base de datos.
+     * @param tamanioLoteDetalles Número máximo de detalles por lote (mínimo 1).
+     */
+    public PedidoDAO(iConexionBD conexionBD, int tamanioLoteDetalles) {
+        this(conexionBD, tamanioLoteDetalles, INSERCION_EN_SERVIDOR_DEFECTO);
+    }
+
+    /**
+     * Constructor que además elige el camino de registro de pedidos.
+     *
+     * @param conexionBD Objeto que gestiona la creación de conexiones a la base de datos.
+     * @param tamanioLoteDetalles Número máximo de detalles por lote (mínimo 1).
+     * @param insercionEnServidor <code>true</code> para registrar los pedidos con el
+     * procedimiento <code>sp_insertar_pedido</code> en una sola llamada.
+     */
+    public PedidoDAO(iConexionBD conexionBD, int tamanioLoteDetalles, boolean insercionEnServidor) {
         this.conexionBD = conexionBD;
+        this.insercionEnServidor = insercionEnServidor;
+        this.tamanioLoteDetalles = Math.max(1, tamanioLoteDetalles);
+        SecuenciaDAO secuenciaDAO = new SecuenciaDAO(conexionBD);
+        this.numerosPedido = new AsignadorSecuencia(secuenciaDAO, "numero_pedido", TAMANIO_BLOQUE_NUMEROS);
+        this.consecutivosFolio = new AsignadorSecuencia(secuenciaDAO, "folio_express", TAMANIO_BLOQUE_NUMEROS);
+        this.canjeadorCupones = new CanjeadorCupones(conexionBD);
     }
 
     /**
      * Inserta un nuevo Pedido Programado y sus detalles asociados en una única transacción.
      * <p>Garantiza que, si la inserción de la tabla padre, la tabla hija o los detalles falla, 
      * se revierta todo el proceso (Rollback).</p>
+     * <p>Si el pedido lleva cupón, su uso se canjea con {@link CanjeadorCupones}: si el
+     * cupón no está vigente o ya llegó a su tope, no se guarda el pedido. El uso sale de
+     * un bloque que el canjeador reserva en su propia transacción, así que la del pedido
+     * nunca bloquea la fila del cupón. Si el pedido (o su unidad de trabajo) se
+     * revierte, el uso regresa al bloque.</p>
+     * <p>Con la inserción en servidor, todo lo anterior lo hace
+     * <code>sp_insertar_pedido</code> en una sola llamada.</p>
      * * @param pedido Objeto {@link PedidoProgramado} a persistir.
      * @param detalles Lista de {@link DetallePedido} asociados al pedido.
      * @return El mismo objeto pedido, con su ID autogenerado asignado.
@@ -1057,6 +1174,10 @@ public class PedidoDAO implements iPedidoDAO {
     @Override
     public PedidoProgramado insertarPedidoProgramado(PedidoProgramado pedido, List<DetallePedido> detalles) throws PersistenciaException {
 
+        if (insercionEnServidor) {
+            return insertarEnServidor(pedido, detalles, "pedido programado");
+        }
+
         String comandoPedidoSQL = """
         INSERT INTO Pedidos(estado, fecha_creacion, fecha_entrega, metodo_pago, total, numero_pedido, id_cliente)
         VALUES(?,?,?,?,?,?,?)
@@ -1067,12 +1188,8 @@ public class PedidoDAO implements iPedidoDAO {
         VALUES(?,?)
         """;
 
-        String comandoDetalleSQL = """
-        INSERT INTO DetallesPedidos(nota, cantidad, precio, total, id_pedido, id_producto)
-        VALUES(?,?,?,?,?,?)
-        """;
-
         Connection conn = null;
+        boolean usoReservado = false;
 
         try {
             conn = conexionBD.crearConexion();
@@ -1081,7 +1198,7 @@ public class PedidoDAO implements iPedidoDAO {
             // 1) Insert en tabla padre: Pedidos
             try (PreparedStatement ps = conn.prepareStatement(comandoPedidoSQL, Statement.RETURN_GENERATED_KEYS)) {
 
-                ps.setString(1, pedido.getEstado().name().replace("_", " "));
+                ps.setString(1, MapeadorPedido.etiqueta(pedido.getEstado()));
                 ps.setTimestamp(2, Timestamp.valueOf(pedido.getFechaCreacion()));
 
                 if (pedido.getFechaEntrega() != null) {
@@ -1113,7 +1230,21 @@ public class PedidoDAO implements iPedidoDAO {
                 }
             }
 
-            // 2) Insert en tabla hija: PedidosProgramados
+            // 2) Insert en tabla composición: DetallesPedidos
+            if (detalles == null || detalles.isEmpty()) {
+                throw new PersistenciaException("No se puede insertar un pedido sin detalles.");
+            }
+
+            InsertorDetallesPedido.insertar(conn, pedido.getId(), detalles, tamanioLoteDetalles);
+
+            // 3) Canje del cupón (de su bloque reservado; no toca la fila del cupón)
+            if (pedido.getCupon() != null) {
+                Cupon cupon = pedido.getCupon();
+                canjeadorCupones.canjear(cupon);
+                usoReservado = !alRevertir(conn, () -> canjeadorCupones.devolver(cupon));
+            }
+
+            // 4) Insert en tabla hija: PedidosProgramados
             try (PreparedStatement ps2 = conn.prepareStatement(comandoProgramadoSQL)) {
 
                 ps2.setInt(1, pedido.getId());
@@ -1129,43 +1260,23 @@ public class PedidoDAO implements iPedidoDAO {
                 }
             }
 
-            // 3) Insert en tabla composición: DetallesPedidos
-            if (detalles == null || detalles.isEmpty()) {
-                throw new PersistenciaException("No se puede insertar un pedido sin detalles.");
-            }
-
-            try (PreparedStatement ps3 = conn.prepareStatement(comandoDetalleSQL)) {
-
-                for (DetallePedido d : detalles) {
-                    if (d == null) {
-                        continue;
-                    }
-
-                    if (d.getNota() == null || d.getNota().trim().isEmpty()) {
-                        ps3.setNull(1, Types.VARCHAR);
-                    } else {
-                        ps3.setString(1, d.getNota().trim());
-                    }
-
-                    ps3.setInt(2, d.getCantidad());
-                    ps3.setFloat(3, d.getPrecio());
-                    ps3.setFloat(4, d.getSubtotal()); // dominio subtotal -> BD total
+            conn.commit(); // Fin exitoso de la transacción
+            usoReservado = false; // El uso ya pertenece al pedido guardado
+            return pedido;
 
-                    ps3.setInt(5, pedido.getId());
+        } catch (PersistenciaException ex) {
 
-                    if (d.getProducto() == null) {
-                        throw new PersistenciaException("Un detalle no tiene producto asignado.");
-                    }
-                    ps3.setInt(6, d.getProducto().getId());
-
-                    ps3.addBatch();
+            // Cupón rechazado o pedido incompleto: se revierte lo insertado
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
                 }
-
-                ps3.executeBatch();
             }
-
-            conn.commit(); // Fin exitoso de la transacción
-            return pedido;
+            if (usoReservado) {
+                canjeadorCupones.devolver(pedido.getCupon());
+            }
+            throw ex;
 
         } catch (SQLException ex) {
 
@@ -1175,6 +1286,9 @@ public class PedidoDAO implements iPedidoDAO {
                 } catch (SQLException ignored) {
                 }
             }
+            if (usoReservado) {
+                canjeadorCupones.devolver(pedido.getCupon());
+            }
             throw new PersistenciaException("Error al insertar pedido programado: " + ex.getMessage(), ex);
 
         } finally {
@@ -1192,6 +1306,7 @@ public class PedidoDAO implements iPedidoDAO {
      * Inserta un nuevo Pedido Express y sus detalles asociados en una única transacción.
      * <p>Aplica el mismo patrón transaccional que el pedido programado, pero guardando
      * el folio y el PIN cifrado en la tabla hija correspondiente.</p>
+     * <p>Con la inserción en servidor, se registra con <code>sp_insertar_pedido</code>.</p>
      *
      * @param pedido Objeto {@link PedidoExpress} a persistir.
      * @param detalles Lista de {@link DetallePedido} asociados.
@@ -1201,6 +1316,10 @@ public class PedidoDAO implements iPedidoDAO {
     @Override
     public PedidoExpress insertarPedidoExpress(PedidoExpress pedido, List<DetallePedido> detalles) throws PersistenciaException {
 
+        if (insercionEnServidor) {
+            return insertarEnServidor(pedido, detalles, "pedido express");
+        }
+
         String comandoPedidoSQL = """
         INSERT INTO Pedidos(estado, fecha_creacion, fecha_entrega, metodo_pago, total, numero_pedido, id_cliente)
         VALUES(?,?,?,?,?,?,?)
@@ -1211,11 +1330,6 @@ public class PedidoDAO implements iPedidoDAO {
         VALUES(?,?,?)
         """;
 
-        String comandoDetalleSQL = """
-        INSERT INTO DetallesPedidos(nota, cantidad, precio, total, id_pedido, id_producto)
-        VALUES(?,?,?,?,?,?)
-        """;
-
         Connection conn = null;
 
         try {
@@ -1225,7 +1339,7 @@ public class PedidoDAO implements iPedidoDAO {
             // 1) Insert Pedidos
             try (PreparedStatement ps = conn.prepareStatement(comandoPedidoSQL, Statement.RETURN_GENERATED_KEYS)) {
 
-                ps.setString(1, pedido.getEstado().name().replace("_", " "));
+                ps.setString(1, MapeadorPedido.etiqueta(pedido.getEstado()));
                 ps.setTimestamp(2, Timestamp.valueOf(pedido.getFechaCreacion()));
 
                 if (pedido.getFechaEntrega() != null) {
@@ -1274,39 +1388,80 @@ public class PedidoDAO implements iPedidoDAO {
                 throw new PersistenciaException("No se puede insertar un pedido sin detalles.");
             }
 
-            try (PreparedStatement ps3 = conn.prepareStatement(comandoDetalleSQL)) {
-
-                for (DetallePedido d : detalles) {
-                    if (d == null) {
-                        continue;
-                    }
+            InsertorDetallesPedido.insertar(conn, pedido.getId(), detalles, tamanioLoteDetalles);
 
-                    if (d.getNota() == null || d.getNota().trim().isEmpty()) {
-                        ps3.setNull(1, Types.VARCHAR);
-                    } else {
-                        ps3.setString(1, d.getNota().trim());
-                    }
+            conn.commit();
+            return pedido;
 
-                    ps3.setInt(2, d.getCantidad());
-                    ps3.setFloat(3, d.getPrecio());
-                    ps3.setFloat(4, d.getSubtotal());
+        } catch (SQLException ex) {
 
-                    ps3.setInt(5, pedido.getId());
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                }
+            }
+            throw new PersistenciaException("Error al insertar pedido express: " + ex.getMessage(), ex);
 
-                    if (d.getProducto() == null) {
-                        throw new PersistenciaException("Un detalle no tiene producto asignado.");
-                    }
-                    ps3.setInt(6, d.getProducto().getId());
+        } finally {
 
-                    ps3.addBatch();
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
                 }
-
-                ps3.executeBatch();
             }
+        }
+    }
+
+    /**
+     * Registra un pedido completo con <code>sp_insertar_pedido</code> en una transacción.
+     * <p>El procedimiento canjea el cupón en el servidor; antes de llamarlo,
+     * {@link CanjeadorCupones} rechaza desde memoria un cupón que ya se sabe agotado o
+     * vencido, y después del commit se le avisa del uso.</p>
+     *
+     * @param pedido Pedido a registrar; recibe su ID y número.
+     * @param detalles Detalles del pedido; reciben su ID.
+     * @param descripcion Tipo de pedido para los mensajes de error.
+     * @return El mismo pedido.
+     * @throws PersistenciaException Si no hay detalles, si el procedimiento rechaza el
+     * pedido o si ocurre un error SQL.
+     */
+    private <T extends Pedido> T insertarEnServidor(T pedido, List<DetallePedido> detalles, String descripcion) throws PersistenciaException {
+        if (detalles == null || detalles.isEmpty()) {
+            throw new PersistenciaException("No se puede insertar un pedido sin detalles.");
+        }
+
+        Cupon cupon = pedido instanceof PedidoProgramado pp ? pp.getCupon() : null;
+        if (cupon != null) {
+            canjeadorCupones.verificar(cupon);
+        }
+
+        Connection conn = null;
+
+        try {
+            conn = conexionBD.crearConexion();
+            conn.setAutoCommit(false);
+
+            InsertorPedidoProcedimiento.insertar(conn, pedido, detalles);
 
             conn.commit();
+
+            if (cupon != null) {
+                trasCommit(conn, () -> canjeadorCupones.confirmar(cupon));
+            }
             return pedido;
 
+        } catch (PersistenciaException ex) {
+
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                }
+            }
+            throw ex;
+
         } catch (SQLException ex) {
 
             if (conn != null) {
@@ -1315,7 +1470,7 @@ public class PedidoDAO implements iPedidoDAO {
                 } catch (SQLException ignored) {
                 }
             }
-            throw new PersistenciaException("Error al insertar pedido express: " + ex.getMessage(), ex);
+            throw new PersistenciaException("Error al insertar " + descripcion + ": " + ex.getMessage(), ex);
 
         } finally {
 
@@ -1361,53 +1516,7 @@ public class PedidoDAO implements iPedidoDAO {
                     throw new PersistenciaException("No existe el pedido con el ID proporcionado.");
                 }
 
-                // cliente puede ser null
-                Cliente cliente = null;
-                Integer idCliente = (Integer) rs.getObject("id_cliente");
-                if (idCliente != null) {
-                    cliente = new Cliente();
-                    cliente.setId(idCliente);
-                    cliente.setNombres(rs.getString("nombres"));
-                    cliente.setApellidoPaterno(rs.getString("apellido_paterno"));
-                    cliente.setApellidoMaterno(rs.getString("apellido_materno"));
-
-                    Date fn = rs.getDate("fecha_nacimiento");
-                    if (fn != null) {
-                        cliente.setFechaNacimiento(fn.toLocalDate());
-                    }
-                }
-
-                int id = rs.getInt("id");
-
-                EstadoPedido estado = EstadoPedido.valueOf(rs.getString("estado").replace(" ", "_"));
-
-                Timestamp tsC = rs.getTimestamp("fecha_creacion");
-                LocalDateTime fechaCreacion = (tsC != null) ? tsC.toLocalDateTime() : null;
-
-                Timestamp tsE = rs.getTimestamp("fecha_entrega");
-                LocalDateTime fechaEntrega = (tsE != null) ? tsE.toLocalDateTime() : null;
-
-                MetodoPago metodoPago = MetodoPago.valueOf(rs.getString("metodo_pago").replace(" ", "_"));
-
-                float total = rs.getFloat("total");
-                int numeroPedido = rs.getInt("numero_pedido");
-
-                String pin = rs.getString("pin");   // String
-                String folio = rs.getString("folio");
-
-                Integer idCupon = (Integer) rs.getObject("id_cupon");
-                Cupon cupon = null;
-                if (idCupon != null) {
-                    cupon = new Cupon();
-                    cupon.setId(idCupon);
-                }
-
-                // Determinación polimórfica: Si tiene PIN, es Express
-                if (pin != null) {
-                    return new PedidoExpress(id, estado, fechaCreacion, fechaEntrega, metodoPago, total, numeroPedido, cliente, pin, folio);
-                } else {
-                    return new PedidoProgramado(id, estado, fechaCreacion, fechaEntrega, metodoPago, total, numeroPedido, cliente, cupon);
-                }
+                return new MapeadorPedido(rs).mapear(rs);
             }
 
         } catch (SQLException ex) {
@@ -1470,56 +1579,9 @@ public class PedidoDAO implements iPedidoDAO {
 
         try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(comandoSQL); ResultSet rs = ps.executeQuery()) {
 
+            MapeadorPedido mapeador = new MapeadorPedido(rs);
             while (rs.next()) {
-
-                Cliente cliente = null;
-                Integer idCliente = (Integer) rs.getObject("id_cliente");
-                if (idCliente != null) {
-                    cliente = new Cliente();
-                    cliente.setId(idCliente);
-                    cliente.setNombres(rs.getString("nombres"));
-                    cliente.setApellidoPaterno(rs.getString("apellido_paterno"));
-                    cliente.setApellidoMaterno(rs.getString("apellido_materno"));
-
-                    Date fn = rs.getDate("fecha_nacimiento");
-                    if (fn != null) {
-                        cliente.setFechaNacimiento(fn.toLocalDate());
-                    }
-                }
-
-                int id = rs.getInt("id");
-
-                EstadoPedido estado = EstadoPedido.valueOf(rs.getString("estado").replace(" ", "_"));
-
-                Timestamp tsC = rs.getTimestamp("fecha_creacion");
-                LocalDateTime fechaCreacion = (tsC != null) ? tsC.toLocalDateTime() : null;
-
-                Timestamp tsE = rs.getTimestamp("fecha_entrega");
-                LocalDateTime fechaEntrega = (tsE != null) ? tsE.toLocalDateTime() : null;
-
-                MetodoPago metodoPago = MetodoPago.valueOf(rs.getString("metodo_pago").replace(" ", "_"));
-
-                float total = rs.getFloat("total");
-                int numeroPedido = rs.getInt("numero_pedido");
-
-                String pin = rs.getString("pin");
-                String folio = rs.getString("folio");
-
-                Integer idCupon = (Integer) rs.getObject("id_cupon");
-                Cupon cupon = null;
-                if (idCupon != null) {
-                    cupon = new Cupon();
-                    cupon.setId(idCupon);
-                }
-
-                Pedido pedido;
-                if (pin != null) {
-                    pedido = new PedidoExpress(id, estado, fechaCreacion, fechaEntrega, metodoPago, total, numeroPedido, cliente, pin, folio);
-                } else {
-                    pedido = new PedidoProgramado(id, estado, fechaCreacion, fechaEntrega, metodoPago, total, numeroPedido, cliente, cupon);
-                }
-
-                pedidos.add(pedido);
+                pedidos.add(mapeador.mapear(rs));
             }
 
             return pedidos;
@@ -1531,29 +1593,35 @@ public class PedidoDAO implements iPedidoDAO {
 
     /**
      * Actualiza el estado de un pedido (Ej. de 'Pendiente' a 'Entregado').
+     * <p>Sólo aplica transiciones permitidas por {@link MaquinaEstadosPedido}, con un
+     * único <code>UPDATE ... WHERE id = ? AND estado IN (orígenes)</code>: no lee el
+     * pedido antes de escribir ni toma bloqueos. Si dos terminales cambian el mismo
+     * pedido a la vez, la segunda no encuentra la fila en un estado de origen y se
+     * rechaza en lugar de sobrescribir a la primera. Sólo en ese caso se consulta el
+     * estado, para explicar el rechazo.</p>
      *
      * @param idPedido ID interno del pedido.
      * @param nuevoEstado El nuevo estado a asignar.
-     * @throws PersistenciaException Si el pedido no existe o la actualización falla.
+     * @throws PersistenciaException Si el pedido no existe, si su estado actual no
+     * permite pasar a <code>nuevoEstado</code> o si la actualización falla.
      */
     @Override
     public void actualizarEstadoPedido(int idPedido, EstadoPedido nuevoEstado) throws PersistenciaException {
 
-        String comandoSQL = """
-        UPDATE Pedidos
-        SET estado = ?
-        WHERE id = ?
-        """;
+        String estadoBD = MapeadorPedido.etiqueta(nuevoEstado);
 
-        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(comandoSQL)) {
+        String comandoSQL = CAMBIO_ESTADO_SQL[nuevoEstado.ordinal()];
+        if (comandoSQL == null) {
+            throw new PersistenciaException("Ningún pedido puede cambiar a '" + estadoBD + "'.");
+        }
 
-            String estadoBD = nuevoEstado.name().replace("_", " ");
+        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(comandoSQL)) {
 
             ps.setString(1, estadoBD);
             ps.setInt(2, idPedido);
 
             if (ps.executeUpdate() == 0) {
-                throw new PersistenciaException("No se pudo actualizar: el pedido no existe.");
+                throw new PersistenciaException(motivoCambioRechazado(conn, idPedido, nuevoEstado));
             }
 
         } catch (SQLException ex) {
@@ -1561,6 +1629,180 @@ public class PedidoDAO implements iPedidoDAO {
         }
     }
 
+    /**
+     * Explica por qué un cambio de estado no afectó ninguna fila.
+     */
+    private static String motivoCambioRechazado(Connection conn, int idPedido, EstadoPedido nuevoEstado) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT estado FROM Pedidos WHERE id = ?")) {
+            ps.setInt(1, idPedido);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                EstadoPedido actual = rs.next() ? MapeadorPedido.estadoDesdeEtiqueta(rs.getString("estado")) : null;
+                return motivoCambioRechazado(actual, nuevoEstado);
+            }
+        }
+    }
+
+    /**
+     * Motivo por el que un pedido en el estado <code>actual</code> no puede pasar a
+     * <code>nuevoEstado</code>.
+     *
+     * @param actual Estado actual, o <code>null</code> si el pedido no existe.
+     */
+    private static String motivoCambioRechazado(EstadoPedido actual, EstadoPedido nuevoEstado) {
+        if (actual == null) {
+            return "No se pudo actualizar: el pedido no existe.";
+        }
+        if (actual == nuevoEstado) {
+            return "El pedido ya está en estado '" + MapeadorPedido.etiqueta(actual) + "'.";
+        }
+        return "El pedido está en estado '" + MapeadorPedido.etiqueta(actual)
+                + "' y no puede cambiar a '" + MapeadorPedido.etiqueta(nuevoEstado) + "'.";
+    }
+
+    /**
+     * Cambia varios pedidos al mismo estado en una sola transacción.
+     * <p>Por cada bloque de hasta {@link ListasIn#MAXIMO_IDS_POR_CONSULTA} pedidos
+     * hace dos sentencias sobre la misma conexión, sin importar cuántos pedidos sean:</p>
+     * <ol>
+     * <li>Un <code>SELECT ... FOR UPDATE</code> que lee y bloquea el estado actual de
+     * todos, para decidir con {@link MaquinaEstadosPedido} cuáles pueden cambiar y por
+     * qué no los demás.</li>
+     * <li>Un <code>UPDATE ... WHERE estado IN (orígenes) AND id IN (...)</code> con los
+     * que sí pueden.</li>
+     * </ol>
+     * <p>Un pedido rechazado no impide que cambien los demás.</p>
+     *
+     * @param idsPedidos IDs de los pedidos; los repetidos se procesan una vez.
+     * @param nuevoEstado Estado al que se cambian.
+     * @param excluirExpress <code>true</code> para rechazar los pedidos express (p. ej.
+     * porque entregarlos requiere su PIN).
+     * @return Los pedidos que cambiaron y el motivo de cada rechazado.
+     * @throws PersistenciaException Si ocurre un error de SQL; en ese caso no cambia ninguno.
+     */
+    @Override
+    public ResultadoCambioEstado actualizarEstadoPedidos(Collection<Integer> idsPedidos, EstadoPedido nuevoEstado,
+            boolean excluirExpress) throws PersistenciaException {
+
+        String estadoBD = MapeadorPedido.etiqueta(nuevoEstado);
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(idsPedidos));
+        List<Integer> aplicados = new ArrayList<>();
+        Map<Integer, String> rechazados = new LinkedHashMap<>();
+
+        String origenes = ORIGENES_ESTADO_SQL[nuevoEstado.ordinal()];
+        if (origenes == null) {
+            for (Integer id : ids) {
+                rechazados.put(id, "Ningún pedido puede cambiar a '" + estadoBD + "'.");
+            }
+        }
+        if (origenes == null || ids.isEmpty()) {
+            return new ResultadoCambioEstado(nuevoEstado, aplicados, rechazados);
+        }
+
+        Connection conn = null;
+
+        try {
+            conn = conexionBD.crearConexion();
+            conn.setAutoCommit(false);
+
+            for (int desde = 0; desde < ids.size(); desde += ListasIn.MAXIMO_IDS_POR_CONSULTA) {
+                List<Integer> bloque = ids.subList(desde, Math.min(ids.size(), desde + ListasIn.MAXIMO_IDS_POR_CONSULTA));
+
+                String consultaSQL = """
+                        SELECT p.id, p.estado, pe.id_pedido IS NOT NULL AS express
+                        FROM Pedidos p
+                        LEFT JOIN PedidosExpress pe ON pe.id_pedido = p.id
+                        WHERE p.id IN (%s)
+                        FOR UPDATE
+                        """.formatted(ListasIn.marcadores(bloque.size()));
+
+                Map<Integer, EstadoPedido> actuales = new HashMap<>();
+                Set<Integer> express = new HashSet<>();
+
+                try (PreparedStatement ps = conn.prepareStatement(consultaSQL)) {
+                    ListasIn.asignarIds(ps, 1, bloque);
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            int id = rs.getInt("id");
+                            actuales.put(id, MapeadorPedido.estadoDesdeEtiqueta(rs.getString("estado")));
+                            if (rs.getBoolean("express")) {
+                                express.add(id);
+                            }
+                        }
+                    }
+                }
+
+                List<Integer> aplicables = new ArrayList<>(bloque.size());
+                for (Integer id : bloque) {
+                    EstadoPedido actual = actuales.get(id);
+                    if (!MaquinaEstadosPedido.permite(actual, nuevoEstado)) {
+                        rechazados.put(id, motivoCambioRechazado(actual, nuevoEstado));
+                    } else if (excluirExpress && express.contains(id)) {
+                        rechazados.put(id, "El pedido express requiere su PIN; cámbialo desde su card.");
+                    } else {
+                        aplicables.add(id);
+                    }
+                }
+
+                if (aplicables.isEmpty()) {
+                    continue;
+                }
+
+                String comandoSQL = "UPDATE Pedidos SET estado = ? WHERE estado IN " + origenes
+                        + " AND id IN (" + ListasIn.marcadores(aplicables.size()) + ")";
+
+                try (PreparedStatement ps = conn.prepareStatement(comandoSQL)) {
+                    ps.setString(1, estadoBD);
+                    ListasIn.asignarIds(ps, 2, aplicables);
+
+                    // Las filas están bloqueadas desde el SELECT: todas deben cambiar
+                    if (ps.executeUpdate() != aplicables.size()) {
+                        throw new PersistenciaException("Los pedidos cambiaron mientras se actualizaban; intenta de nuevo.");
+                    }
+                }
+                aplicados.addAll(aplicables);
+            }
+
+            conn.commit();
+
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine(String.format("Cambio masivo a %s: %d aplicados, %d rechazados",
+                        estadoBD, aplicados.size(), rechazados.size()));
+            }
+            return new ResultadoCambioEstado(nuevoEstado, aplicados, rechazados);
+
+        } catch (PersistenciaException ex) {
+
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                }
+            }
+            throw ex;
+
+        } catch (SQLException ex) {
+
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                }
+            }
+            throw new PersistenciaException("Error al actualizar el estado de los pedidos: " + ex.getMessage(), ex);
+
+        } finally {
+
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+
     /**
      * Lista todos los pedidos asociados a un cliente específico, ordenados por fecha de creación descendente.
      *
@@ -1590,61 +1832,9 @@ public class PedidoDAO implements iPedidoDAO {
             ps.setInt(1, idCliente);
 
             try (ResultSet rs = ps.executeQuery()) {
+                MapeadorPedido mapeador = new MapeadorPedido(rs);
                 while (rs.next()) {
-
-                    String folio = rs.getString("folio");
-                    String pin = rs.getString("pin");
-                    Integer idCupon = (Integer) rs.getObject("id_cupon");
-
-                    Pedido pedido;
-
-                    if (folio != null || pin != null) {
-                        PedidoExpress pe = new PedidoExpress();
-                        pe.setFolio(folio);
-                        if (pin != null) {
-                            pe.setPin(pin);
-                        }
-                        pedido = pe;
-
-                    } else {
-                        PedidoProgramado pp = new PedidoProgramado();
-
-                        if (idCupon != null) {
-                            Cupon cupon = new Cupon();
-                            cupon.setId(idCupon);
-                            cupon.setNombre(rs.getString("cupon_nombre")); 
-                            pp.setCupon(cupon);
-                        } else {
-                            pp.setCupon(null);
-                        }
-
-                        pedido = pp;
-                    }
-
-                    pedido.setId(rs.getInt("id"));
-                    pedido.setEstado(EstadoPedido.valueOf(rs.getString("estado").replace(" ", "_")));
-                    pedido.setMetodoPago(MetodoPago.valueOf(rs.getString("metodo_pago").replace(" ", "_")));
-
-                    Timestamp tsCreacion = rs.getTimestamp("fecha_creacion");
-                    if (tsCreacion != null) {
-                        pedido.setFechaCreacion(tsCreacion.toLocalDateTime());
-                    }
-
-                    Timestamp tsEntrega = rs.getTimestamp("fecha_entrega");
-                    if (tsEntrega != null) {
-                        pedido.setFechaEntrega(tsEntrega.toLocalDateTime());
-                    } else {
-                        pedido.setFechaEntrega(null);
-                    }
-
-                    pedido.setTotal(rs.getFloat("total"));
-                    pedido.setNumeroPedido(rs.getInt("numero_pedido"));
-
-                    Cliente cliente = new Cliente();
-                    cliente.setId(rs.getInt("id_cliente"));
-                    pedido.setCliente(cliente);
-
-                    pedidos.add(pedido);
+                    pedidos.add(mapeador.mapear(rs));
                 }
             }
 
@@ -1709,52 +1899,9 @@ public class PedidoDAO implements iPedidoDAO {
             }
 
             try (ResultSet rs = ps.executeQuery()) {
+                MapeadorPedido mapeador = new MapeadorPedido(rs);
                 while (rs.next()) {
-
-                    String folioDb = rs.getString("folio");
-                    String pin = rs.getString("pin");
-                    Integer idCupon = (Integer) rs.getObject("id_cupon");
-
-                    Pedido pedido;
-
-                    if (folioDb != null || pin != null) {
-                        PedidoExpress pe = new PedidoExpress();
-                        pe.setFolio(folioDb);
-                        if (pin != null) {
-                            pe.setPin(pin);
-                        }
-                        pedido = pe;
-                    } else {
-                        PedidoProgramado pp = new PedidoProgramado();
-                        if (idCupon != null) {
-                            Cupon cupon = new Cupon();
-                            cupon.setId(idCupon);
-                            cupon.setNombre(rs.getString("cupon_nombre"));
-                            pp.setCupon(cupon);
-                        }
-                        pedido = pp;
-                    }
-
-                    pedido.setId(rs.getInt("id"));
-                    pedido.setEstado(EstadoPedido.valueOf(rs.getString("estado").replace(" ", "_")));
-                    pedido.setMetodoPago(MetodoPago.valueOf(rs.getString("metodo_pago").replace(" ", "_")));
-
-                    java.sql.Timestamp tsC = rs.getTimestamp("fecha_creacion");
-                    if (tsC != null) {
-                        pedido.setFechaCreacion(tsC.toLocalDateTime());
-                    }
-
-                    Timestamp tsE = rs.getTimestamp("fecha_entrega");
-                    pedido.setFechaEntrega(tsE != null ? tsE.toLocalDateTime() : null);
-
-                    pedido.setTotal(rs.getFloat("total"));
-                    pedido.setNumeroPedido(rs.getInt("numero_pedido"));
-
-                    Cliente cli = new Cliente();
-                    cli.setId(rs.getInt("id_cliente"));
-                    pedido.setCliente(cli);
-
-                    pedidos.add(pedido);
+                    pedidos.add(mapeador.mapear(rs));
                 }
             }
 
@@ -1793,30 +1940,46 @@ public class PedidoDAO implements iPedidoDAO {
     }
 
     /**
-     * Genera el siguiente número de pedido consecutivo basándose en el máximo actual.
+     * Obtiene el siguiente número de pedido libre a partir de bloques reservados (hi/lo).
+     * <p>Los números se entregan desde memoria; sólo cuando se agota el bloque se reserva
+     * otro con un <code>UPDATE</code> atómico sobre la tabla <code>Secuencias</code>, por lo
+     * que dos terminales nunca obtienen el mismo número.</p>
      *
-     * @return El número de pedido a asignar. Retorna 1 si no hay pedidos.
-     * @throws PersistenciaException Si no se puede generar el número.
+     * @return El número de pedido a asignar.
+     * @throws PersistenciaException Si no se puede reservar un nuevo bloque.
      */
     @Override
     public int obtenerSiguienteNumeroDePedido() throws PersistenciaException {
-        String comandoSQL = "SELECT IFNULL(MAX(numero_pedido), 0) + 1 AS siguiente FROM pedidos";
-
-        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(comandoSQL); ResultSet rs = ps.executeQuery()) {
-
-            if (rs.next()) {
-                return rs.getInt("siguiente");
-            } else {
-                throw new PersistenciaException("No se pudo generar el numero de pedido");
-            }
+        long siguiente = numerosPedido.siguiente();
 
-        } catch (SQLException e) {
-            throw new PersistenciaException("Error al obtener siguiente numero de pedido", e);
+        if (siguiente > Integer.MAX_VALUE) {
+            throw new PersistenciaException("Se agotó el rango de números de pedido.");
         }
+        return (int) siguiente;
+    }
+
+    /**
+     * Obtiene el siguiente consecutivo libre para formar un folio express.
+     * <p>Usa el mismo esquema de bloques que el número de pedido, por lo que no
+     * requiere sondear folios existentes.</p>
+     *
+     * @return El consecutivo a usar en el folio.
+     * @throws PersistenciaException Si no se puede reservar un nuevo bloque.
+     */
+    @Override
+    public long obtenerSiguienteConsecutivoDeFolio() throws PersistenciaException {
+        return consecutivosFolio.siguiente();
     }
 
     /**
      * Cuenta cuántos pedidos tiene un cliente que no estén cancelados ni entregados.
+     * <p>Lee el contador de <code>PedidosActivosClientes</code>, que los triggers de
+     * <code>Pedidos</code> mantienen al insertar un pedido o cambiar su estado, por lo
+     * que es una búsqueda por llave primaria en lugar de un conteo.</p>
+     * <p>Si se llama dentro de una transacción (una {@link UnidadTrabajo}), bloquea la
+     * fila del contador hasta el commit (creándola en 0 si el cliente no tiene). Así dos
+     * terminales que registran pedidos del mismo cliente a la vez no pueden leer
+     * ambas 2 activos e insertar cada una el tercero y el cuarto.</p>
      *
      * @param idCliente ID del cliente a consultar.
      * @return La cantidad de pedidos activos.
@@ -1824,20 +1987,33 @@ public class PedidoDAO implements iPedidoDAO {
      */
     @Override
     public int contarPedidosActivosPorCliente(int idCliente) throws PersistenciaException {
-        String comandoSQL = """
-                            SELECT COUNT(*) AS total
-                            FROM pedidos
-                            WHERE id_cliente = ?
-                            AND estado NOT IN ('Entregado', 'Cancelado')
+        String comandoSQL = "SELECT activos FROM PedidosActivosClientes WHERE id_cliente = ?";
+
+        // Bloqueo exclusivo de la fila, exista o no
+        String bloqueoSQL = """
+                            INSERT INTO PedidosActivosClientes(id_cliente, activos)
+                            VALUES (?, 0)
+                            ON DUPLICATE KEY UPDATE activos = activos
                             """;
 
-        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(comandoSQL)) {
+        try (Connection conn = conexionBD.crearConexion()) {
 
-            ps.setInt(1, idCliente);
+            boolean enTransaccion = !conn.getAutoCommit();
+            if (enTransaccion) {
+                try (PreparedStatement psBloqueo = conn.prepareStatement(bloqueoSQL)) {
+                    psBloqueo.setInt(1, idCliente);
+                    psBloqueo.executeUpdate();
+                }
+                comandoSQL += " FOR UPDATE";
+            }
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("total");
+            try (PreparedStatement ps = conn.prepareStatement(comandoSQL)) {
+                ps.setInt(1, idCliente);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt("activos");
+                    }
                 }
             }
 
@@ -1861,35 +2037,22 @@ public class PedidoDAO implements iPedidoDAO {
     @Override
     public List<Pedido> listarPedidosFiltro(String folio, String telefono, LocalDate fechaInicio, LocalDate fechaFin) throws PersistenciaException {
 
-        boolean filtraFolio = (folio != null && !folio.trim().isEmpty());
-        boolean filtraTelefono = (telefono != null && !telefono.trim().isEmpty());
-        boolean filtraFechas = (fechaInicio != null && fechaFin != null);
+        FiltroPedidos filtro = new FiltroPedidos(folio, telefono, fechaInicio, fechaFin);
 
         StringBuilder sql = new StringBuilder("""
-                                            SELECT DISTINCT
+                                            SELECT
                                                 p.id, p.estado, p.fecha_creacion, p.fecha_entrega, p.metodo_pago, p.total, p.numero_pedido, p.id_cliente,
                                                 c.nombres, c.apellido_paterno, c.apellido_materno, c.fecha_nacimiento,
                                                 pe.pin, pe.folio,
                                                 pp.id_cupon
                                             FROM Pedidos p
                                             LEFT JOIN Clientes c ON p.id_cliente = c.id_usuario
-                                            LEFT JOIN Telefonos t ON t.id_cliente = c.id_usuario
                                             LEFT JOIN PedidosExpress pe ON pe.id_pedido = p.id
                                             LEFT JOIN PedidosProgramados pp ON pp.id_pedido = p.id
                                             WHERE 1=1
                                             """);
 
-        if (filtraFolio) {
-            sql.append(" AND pe.folio = ? ");
-        }
-
-        if (filtraTelefono) {
-            sql.append(" AND t.telefono LIKE ? ");
-        }
-
-        if (filtraFechas) {
-            sql.append(" AND p.fecha_creacion >= ? AND p.fecha_creacion <= ? ");
-        }
+        filtro.agregarCondiciones(sql);
 
         sql.append("""
         ORDER BY 
@@ -1901,14 +2064,207 @@ public class PedidoDAO implements iPedidoDAO {
 
         try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(sql.toString())) {
 
-            int idx = 1;
+            filtro.asignarParametros(ps, 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                MapeadorPedido mapeador = new MapeadorPedido(rs);
+                while (rs.next()) {
+                    pedidos.add(mapeador.mapear(rs));
+                }
+            }
 
+            return pedidos;
+
+        } catch (SQLException ex) {
+            throw new PersistenciaException("Error al listar pedidos filtrados", ex);
+        }
+    }
+
+    /**
+     * Obtiene una página del listado general de pedidos (activos primero, después los 'Entregados';
+     * dentro de cada grupo, los más recientes primero).
+     *
+     * @param tamanioPagina Número máximo de pedidos de la página.
+     * @param cursor Posición del último pedido de la página anterior, o null para la primera página.
+     * @return La página con los pedidos y el cursor de la siguiente.
+     * @throws PersistenciaException Si el tamaño de página es inválido o falla la consulta.
+     */
+    @Override
+    public PaginaPedidos listarPedidosPagina(int tamanioPagina, CursorPedidos cursor) throws PersistenciaException {
+        return listarPagina(new FiltroPedidos(null, null, null, null), tamanioPagina, cursor);
+    }
+
+    /**
+     * Obtiene una página del listado de pedidos aplicando los mismos filtros que
+     * {@link #listarPedidosFiltro(String, String, LocalDate, LocalDate)} y en el mismo orden.
+     *
+     * @param folio Folio a buscar (Aplica a Pedidos Express).
+     * @param telefono Fragmento del teléfono del cliente a buscar.
+     * @param fechaInicio Rango inicial de fecha.
+     * @param fechaFin Rango final de fecha.
+     * @param tamanioPagina Número máximo de pedidos de la página.
+     * @param cursor Posición del último pedido de la página anterior, o null para la primera página.
+     * @return La página con los pedidos y el cursor de la siguiente.
+     * @throws PersistenciaException Si el tamaño de página es inválido o falla la consulta.
+     */
+    @Override
+    public PaginaPedidos listarPedidosFiltroPagina(String folio, String telefono, LocalDate fechaInicio, LocalDate fechaFin,
+            int tamanioPagina, CursorPedidos cursor) throws PersistenciaException {
+        return listarPagina(new FiltroPedidos(folio, telefono, fechaInicio, fechaFin), tamanioPagina, cursor);
+    }
+
+    /**
+     * Arma la página consultando cada grupo del orden (activos, luego entregados) por separado.
+     * <p>Cada consulta recorre el índice de <code>fecha_creacion</code> hacia atrás desde el cursor
+     * y se detiene al juntar <code>tamanioPagina + 1</code> filas; la fila extra sólo indica si hay
+     * una página siguiente. Así el costo depende del tamaño de la página y no del de la tabla,
+     * cosa que el <code>ORDER BY CASE ...</code> del listado completo no permite.</p>
+     */
+    private PaginaPedidos listarPagina(FiltroPedidos filtro, int tamanioPagina, CursorPedidos cursor) throws PersistenciaException {
+
+        if (tamanioPagina <= 0) {
+            throw new PersistenciaException("El tamaño de página debe ser mayor a cero.");
+        }
+
+        List<Pedido> pedidos = new ArrayList<>(tamanioPagina + 1);
+        int grupoInicial = (cursor != null) ? cursor.getGrupo() : CursorPedidos.GRUPO_ACTIVOS;
+
+        try (Connection conn = conexionBD.crearConexion()) {
+
+            for (int grupo = grupoInicial; grupo <= CursorPedidos.GRUPO_ENTREGADOS && pedidos.size() <= tamanioPagina; grupo++) {
+                CursorPedidos desde = (cursor != null && grupo == cursor.getGrupo()) ? cursor : null;
+                consultarGrupo(conn, filtro, grupo, desde, tamanioPagina + 1 - pedidos.size(), pedidos);
+            }
+
+        } catch (SQLException ex) {
+            throw new PersistenciaException("Error al listar la página de pedidos: " + ex.getMessage(), ex);
+        }
+
+        CursorPedidos siguiente = null;
+        if (pedidos.size() > tamanioPagina) {
+            pedidos.remove(tamanioPagina);
+            siguiente = CursorPedidos.despuesDe(pedidos.get(tamanioPagina - 1));
+        }
+
+        return new PaginaPedidos(pedidos, siguiente);
+    }
+
+    /**
+     * Agrega a <code>destino</code> hasta <code>limite</code> pedidos de un grupo, a partir del cursor.
+     */
+    private void consultarGrupo(Connection conn, FiltroPedidos filtro, int grupo, CursorPedidos desde, int limite,
+            List<Pedido> destino) throws SQLException {
+
+        StringBuilder sql = new StringBuilder("""
+                                            SELECT
+                                                p.id, p.estado, p.fecha_creacion, p.fecha_entrega, p.metodo_pago, p.total, p.numero_pedido, p.id_cliente,
+                                                c.nombres, c.apellido_paterno, c.apellido_materno, c.fecha_nacimiento,
+                                                pe.pin, pe.folio,
+                                                pp.id_cupon
+                                            FROM Pedidos p
+                                            LEFT JOIN Clientes c ON p.id_cliente = c.id_usuario
+                                            LEFT JOIN PedidosExpress pe ON pe.id_pedido = p.id
+                                            LEFT JOIN PedidosProgramados pp ON pp.id_pedido = p.id
+                                            """);
+
+        // Columna generada con índice (grupo, fecha_creacion, id): cada página es un rango del índice
+        sql.append(" WHERE p.grupo = ? ");
+
+        filtro.agregarCondiciones(sql);
+
+        if (desde != null) {
+            sql.append(" AND (p.fecha_creacion < ? OR (p.fecha_creacion = ? AND p.id < ?)) ");
+        }
+
+        sql.append(" ORDER BY p.fecha_creacion DESC, p.id DESC LIMIT ? ");
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            ps.setInt(1, grupo);
+            int idx = filtro.asignarParametros(ps, 2);
+
+            if (desde != null) {
+                Timestamp fecha = Timestamp.valueOf(desde.getFechaCreacion());
+                ps.setTimestamp(idx++, fecha);
+                ps.setTimestamp(idx++, fecha);
+                ps.setInt(idx++, desde.getIdPedido());
+            }
+
+            ps.setInt(idx, limite);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                MapeadorPedido mapeador = new MapeadorPedido(rs);
+                while (rs.next()) {
+                    destino.add(mapeador.mapear(rs));
+                }
+            }
+        }
+    }
+
+    /**
+     * Filtros opcionales de los listados generales de pedidos (folio, teléfono y rango de fechas).
+     * <p>Comparte entre el listado completo y el paginado las condiciones SQL y la asignación de
+     * sus parámetros. Las condiciones suponen los alias <code>p</code> y <code>pe</code> de las
+     * consultas de este DAO.</p>
+     * <p>El teléfono se filtra con un <code>EXISTS</code> (semi-join), así que un cliente con
+     * varios teléfonos no repite sus pedidos. Si el fragmento tiene dígitos, se busca por prefijo
+     * en {@link IndiceTelefonos} (mismo resultado que "contiene", pero con índice); si no tiene
+     * dígitos se conserva la búsqueda original sobre el texto capturado.</p>
+     */
+    private static final class FiltroPedidos {
+
+        private final String folio;
+        private final String telefono;
+        private final LocalDate fechaInicio;
+        private final LocalDate fechaFin;
+        private final boolean filtraFolio;
+        private final boolean filtraTelefono;
+        private final boolean filtraFechas;
+        private final String telefonoNormalizado;
+
+        FiltroPedidos(String folio, String telefono, LocalDate fechaInicio, LocalDate fechaFin) {
+            this.folio = folio;
+            this.telefono = telefono;
+            this.telefonoNormalizado = IndiceTelefonos.normalizar(telefono);
+            this.fechaInicio = fechaInicio;
+            this.fechaFin = fechaFin;
+            this.filtraFolio = (folio != null && !folio.trim().isEmpty());
+            this.filtraTelefono = (telefono != null && !telefono.trim().isEmpty());
+            this.filtraFechas = (fechaInicio != null && fechaFin != null);
+        }
+
+        void agregarCondiciones(StringBuilder sql) {
+            if (filtraFolio) {
+                sql.append(" AND pe.folio = ? ");
+            }
+
+            if (filtraTelefono) {
+                if (!telefonoNormalizado.isEmpty()) {
+                    sql.append(" AND EXISTS (SELECT 1 FROM TelefonosSufijos ts WHERE ts.id_cliente = p.id_cliente AND ts.sufijo LIKE ?) ");
+                } else {
+                    sql.append(" AND EXISTS (SELECT 1 FROM Telefonos t WHERE t.id_cliente = p.id_cliente AND t.telefono LIKE ?) ");
+                }
+            }
+
+            if (filtraFechas) {
+                sql.append(" AND p.fecha_creacion >= ? AND p.fecha_creacion <= ? ");
+            }
+        }
+
+        /**
+         * @return El índice del siguiente parámetro libre.
+         */
+        int asignarParametros(PreparedStatement ps, int idx) throws SQLException {
             if (filtraFolio) {
                 ps.setString(idx++, folio.trim());
             }
 
             if (filtraTelefono) {
-                ps.setString(idx++, "%" + telefono.trim() + "%");
+                if (!telefonoNormalizado.isEmpty()) {
+                    ps.setString(idx++, telefonoNormalizado + "%");
+                } else {
+                    ps.setString(idx++, "%" + telefono.trim() + "%");
+                }
             }
 
             if (filtraFechas) {
@@ -1918,65 +2274,136 @@ public class PedidoDAO implements iPedidoDAO {
                 ps.setTimestamp(idx++, Timestamp.valueOf(fin));
             }
 
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
+            return idx;
+        }
+    }
 
-                    // cliente puede ser null
-                    Cliente cliente = null;
-                    int idCliente = rs.getInt("id_cliente");
-                    if (!rs.wasNull()) {
-                        cliente = new Cliente();
-                        cliente.setId(idCliente);
-                        cliente.setNombres(rs.getString("nombres"));
-                        cliente.setApellidoPaterno(rs.getString("apellido_paterno"));
-                        cliente.setApellidoMaterno(rs.getString("apellido_materno"));
-
-                        java.sql.Date fn = rs.getDate("fecha_nacimiento");
-                        if (fn != null) {
-                            cliente.setFechaNacimiento(fn.toLocalDate());
-                        }
-                    }
+    /**
+     * Recorre los pedidos creados en un rango de fechas (o todos) sin cargarlos en memoria.
+     * <p>La consulta usa el modo de lectura fila por fila del driver de MySQL
+     * (<code>TYPE_FORWARD_ONLY</code>, <code>CONCUR_READ_ONLY</code> y
+     * <code>fetchSize = Integer.MIN_VALUE</code>): cada pedido se construye al avanzar el
+     * <code>Stream</code> y puede descartarse enseguida, así que la memoria usada no depende
+     * del número de filas.</p>
+     * <p>La conexión queda ocupada hasta cerrar el <code>Stream</code>; mientras tanto no puede
+     * ejecutar otras sentencias. Si se cierra antes de terminar, el driver descarta las filas
+     * restantes al cerrar el <code>ResultSet</code>. Un error de lectura durante el recorrido se
+     * propaga como {@link IllegalStateException} con la {@link SQLException} como causa.</p>
+     *
+     * @param fechaInicio Fecha inicial del rango (puede ser null junto con <code>fechaFin</code>).
+     * @param fechaFin Fecha final del rango (puede ser null junto con <code>fechaInicio</code>).
+     * @return Un <code>Stream</code> ordenado por ID que debe cerrarse (try-with-resources).
+     * @throws PersistenciaException Si no se puede abrir la consulta.
+     */
+    @Override
+    public Stream<Pedido> recorrerPedidos(LocalDate fechaInicio, LocalDate fechaFin) throws PersistenciaException {
 
-                    int id = rs.getInt("id");
-                    EstadoPedido estado = EstadoPedido.valueOf(rs.getString("estado").replace(" ", "_"));
+        boolean filtraFechas = (fechaInicio != null && fechaFin != null);
 
-                    Timestamp tsC = rs.getTimestamp("fecha_creacion");
-                    LocalDateTime fechaCreacion = (tsC != null) ? tsC.toLocalDateTime() : null;
+        StringBuilder sql = new StringBuilder("""
+        SELECT
+            p.id, p.estado, p.fecha_creacion, p.fecha_entrega, p.metodo_pago, p.total, p.numero_pedido, p.id_cliente,
+            c.nombres, c.apellido_paterno, c.apellido_materno, c.fecha_nacimiento,
+            pe.pin, pe.folio,
+            pp.id_cupon
+        FROM Pedidos p
+        LEFT JOIN Clientes c ON p.id_cliente = c.id_usuario
+        LEFT JOIN PedidosExpress pe ON pe.id_pedido = p.id
+        LEFT JOIN PedidosProgramados pp ON pp.id_pedido = p.id
+        """);
 
-                    Timestamp tsE = rs.getTimestamp("fecha_entrega");
-                    LocalDateTime fechaEntrega = (tsE != null) ? tsE.toLocalDateTime() : null;
+        if (filtraFechas) {
+            sql.append(" WHERE p.fecha_creacion >= ? AND p.fecha_creacion <= ? ");
+        }
 
-                    MetodoPago metodoPago = MetodoPago.valueOf(rs.getString("metodo_pago"));
-                    float total = rs.getFloat("total");
-                    int numeroPedido = rs.getInt("numero_pedido");
+        sql.append(" ORDER BY p.id ");
 
-                    String pin = rs.getString("pin");
-                    String folioDb = rs.getString("folio");
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
 
-                    int idCuponValor = rs.getInt("id_cupon");
-                    Integer idCupon = rs.wasNull() ? null : idCuponValor;
+        try {
+            conn = conexionBD.crearConexion();
+            ps = conn.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
 
-                    Cupon cupon = null;
-                    if (idCupon != null) {
-                        cupon = new Cupon();
-                        cupon.setId(idCupon);
-                    }
+            if (filtraFechas) {
+                ps.setTimestamp(1, Timestamp.valueOf(fechaInicio.atStartOfDay()));
+                ps.setTimestamp(2, Timestamp.valueOf(fechaFin.atTime(23, 59, 59)));
+            }
 
-                    Pedido pedido;
-                    if (pin != null) {
-                        pedido = new PedidoExpress(id, estado, fechaCreacion, fechaEntrega, metodoPago, total, numeroPedido, cliente, pin, folioDb);
-                    } else {
-                        pedido = new PedidoProgramado(id, estado, fechaCreacion, fechaEntrega, metodoPago, total, numeroPedido, cliente, cupon);
-                    }
+            rs = ps.executeQuery();
 
-                    pedidos.add(pedido);
+            final ResultSet filas = rs;
+            final MapeadorPedido mapeador = new MapeadorPedido(filas);
+
+            Spliterator<Pedido> recorrido = new Spliterators.AbstractSpliterator<Pedido>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Pedido> accion) {
+                    try {
+                        if (!filas.next()) {
+                            return false;
+                        }
+                        accion.accept(mapeador.mapear(filas));
+                        return true;
+                    } catch (SQLException ex) {
+                        throw new IllegalStateException("Error al leer el siguiente pedido: " + ex.getMessage(), ex);
+                    }
                 }
-            }
+            };
 
-            return pedidos;
+            final AutoCloseable[] recursos = {filas, ps, conn};
+            return StreamSupport.stream(recorrido, false).onClose(() -> cerrarRecursos(recursos));
 
         } catch (SQLException ex) {
-            throw new PersistenciaException("Error al listar pedidos filtrados", ex);
+            cerrarRecursos(new AutoCloseable[]{rs, ps, conn});
+            throw new PersistenciaException("Error al abrir el recorrido de pedidos: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Ejecuta una acción cuando la transacción de <code>conn</code> ya quedó guardada.
+     * <p>Si la conexión pertenece a una {@link UnidadTrabajo}, el <code>commit()</code>
+     * del DAO no guarda nada todavía, así que la acción se deja para el commit de la
+     * unidad (y se descarta si la unidad se revierte). Si no, se ejecuta de inmediato.</p>
+     */
+    private static void trasCommit(Connection conn, Runnable accion) throws SQLException {
+        if (conn.isWrapperFor(UnidadTrabajo.class)) {
+            conn.unwrap(UnidadTrabajo.class).alConfirmar(accion);
+        } else {
+            accion.run();
+        }
+    }
+
+    /**
+     * Deja a la {@link UnidadTrabajo} de <code>conn</code>, si la hay, una acción para
+     * cuando se revierta (también si se revierte por un error ajeno a este DAO).
+     *
+     * @return <code>false</code> si no hay unidad: el DAO debe ejecutar la acción al revertir.
+     */
+    private static boolean alRevertir(Connection conn, Runnable accion) throws SQLException {
+        if (conn.isWrapperFor(UnidadTrabajo.class)) {
+            conn.unwrap(UnidadTrabajo.class).alRevertir(accion);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Cierra en orden los recursos de un recorrido; los errores sólo se registran para
+     * no ocultar la excepción original ni dejar recursos abiertos.
+     */
+    private static void cerrarRecursos(AutoCloseable[] recursos) {
+        for (AutoCloseable r : recursos) {
+            if (r == null) {
+                continue;
+            }
+            try {
+                r.close();
+            } catch (Exception ex) {
+                LOG.log(Level.WARNING, "No se pudo cerrar un recurso del recorrido de pedidos", ex);
+            }
         }
     }
 
@@ -0,0 +1,220 @@
+package persistencia.DAOs;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import persistencia.Conexion.iConexionBD;
+import persistencia.Excepciones.PersistenciaException;
+
+/**
+ * <b>Corrige periódicamente el contador de pedidos activos de cada cliente.</b>
+ * <p>Los triggers de <code>Pedidos</code> mantienen <code>PedidosActivosClientes</code>
+ * en cada inserción y cambio de estado, pero el contador puede desviarse si alguien
+ * borra pedidos o desactiva los triggers. Este proceso compara el contador contra el
+ * conteo real y corrige sólo a los clientes con diferencia.</p>
+ * <p>Primero busca las diferencias con una sola consulta sin bloqueos. Después corrige
+ * cada cliente en su propia transacción: bloquea la fila del contador (el mismo
+ * bloqueo que toma {@link PedidoDAO#contarPedidosActivosPorCliente(int)}), vuelve a
+ * contar y guarda el valor. Con la fila bloqueada, un pedido que se inserta o cambia
+ * de estado en ese momento espera, y su ajuste se aplica sobre el valor corregido.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public class ReconciliadorPedidosActivos {
+
+    private static final Logger LOG = Logger.getLogger(ReconciliadorPedidosActivos.class.getName());
+
+    private static final String DIFERENCIAS_SQL = """
+                                                  SELECT a.id_cliente
+                                                  FROM (
+                                                      SELECT id_cliente, COUNT(*) AS total
+                                                      FROM Pedidos
+                                                      WHERE id_cliente IS NOT NULL
+                                                        AND estado NOT IN ('Entregado', 'Cancelado')
+                                                      GROUP BY id_cliente
+                                                  ) a
+                                                  LEFT JOIN PedidosActivosClientes c ON c.id_cliente = a.id_cliente
+                                                  WHERE c.activos IS NULL OR c.activos <> a.total
+                                                  UNION
+                                                  SELECT c.id_cliente
+                                                  FROM PedidosActivosClientes c
+                                                  WHERE c.activos <> 0
+                                                    AND NOT EXISTS (
+                                                        SELECT 1 FROM Pedidos p
+                                                        WHERE p.id_cliente = c.id_cliente
+                                                          AND p.estado NOT IN ('Entregado', 'Cancelado'))
+                                                  """;
+
+    private static final String BLOQUEO_SQL = """
+                                              INSERT INTO PedidosActivosClientes(id_cliente, activos)
+                                              VALUES (?, 0)
+                                              ON DUPLICATE KEY UPDATE activos = activos
+                                              """;
+
+    private static final String CONTEO_SQL = """
+                                             SELECT COUNT(*)
+                                             FROM Pedidos
+                                             WHERE id_cliente = ?
+                                               AND estado NOT IN ('Entregado', 'Cancelado')
+                                             """;
+
+    private static final String CORRECCION_SQL = """
+                                                 UPDATE PedidosActivosClientes
+                                                 SET activos = ?
+                                                 WHERE id_cliente = ? AND activos <> ?
+                                                 """;
+
+    private final iConexionBD conexionBD;
+
+    private ScheduledExecutorService programador;
+
+    /**
+     * Constructor que inicializa la dependencia de conexión.
+     *
+     * @param conexionBD Objeto que gestiona la creación de conexiones a la base de datos.
+     */
+    public ReconciliadorPedidosActivos(iConexionBD conexionBD) {
+        this.conexionBD = conexionBD;
+    }
+
+    /**
+     * Programa la reconciliación en un hilo de fondo cada <code>periodoMinutos</code>.
+     * <p>Un error en una ejecución se registra y no cancela las siguientes.</p>
+     *
+     * @param periodoMinutos Minutos entre una ejecución y la siguiente (mínimo 1).
+     */
+    public synchronized void iniciar(long periodoMinutos) {
+        if (programador != null) {
+            return;
+        }
+        long periodo = Math.max(1, periodoMinutos);
+
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reconciliador-pedidos-activos");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                reconciliar();
+            } catch (PersistenciaException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "No se pudo reconciliar el contador de pedidos activos", ex);
+            }
+        }, periodo, periodo, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Detiene la reconciliación programada, si la hay.
+     */
+    public synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    /**
+     * Corrige el contador de todos los clientes cuyo valor no coincide con sus pedidos.
+     *
+     * @return Número de clientes corregidos.
+     * @throws PersistenciaException Si falla la búsqueda de diferencias o alguna corrección.
+     */
+    public int reconciliar() throws PersistenciaException {
+        long inicio = System.nanoTime();
+
+        List<Integer> clientes = new ArrayList<>();
+        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(DIFERENCIAS_SQL); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                clientes.add(rs.getInt(1));
+            }
+        } catch (SQLException ex) {
+            throw new PersistenciaException("Error al buscar diferencias en los pedidos activos: " + ex.getMessage(), ex);
+        }
+
+        int corregidos = 0;
+        for (int idCliente : clientes) {
+            if (corregir(idCliente)) {
+                corregidos++;
+            }
+        }
+
+        if (corregidos > 0) {
+            LOG.warning(String.format("Contador de pedidos activos corregido en %d clientes (%.2f ms)",
+                    corregidos, (System.nanoTime() - inicio) / 1_000_000.0));
+        } else if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("Contador de pedidos activos sin diferencias (%.2f ms)",
+                    (System.nanoTime() - inicio) / 1_000_000.0));
+        }
+
+        return corregidos;
+    }
+
+    /**
+     * Recalcula el contador de un cliente con su fila bloqueada.
+     *
+     * @return <code>true</code> si el valor guardado cambió.
+     */
+    private boolean corregir(int idCliente) throws PersistenciaException {
+        Connection conn = null;
+
+        try {
+            conn = conexionBD.crearConexion();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(BLOQUEO_SQL)) {
+                ps.setInt(1, idCliente);
+                ps.executeUpdate();
+            }
+
+            int activos = 0;
+            try (PreparedStatement ps = conn.prepareStatement(CONTEO_SQL)) {
+                ps.setInt(1, idCliente);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        activos = rs.getInt(1);
+                    }
+                }
+            }
+
+            int filas;
+            try (PreparedStatement ps = conn.prepareStatement(CORRECCION_SQL)) {
+                ps.setInt(1, activos);
+                ps.setInt(2, idCliente);
+                ps.setInt(3, activos);
+                filas = ps.executeUpdate();
+            }
+
+            conn.commit();
+            return filas > 0;
+
+        } catch (SQLException ex) {
+
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                }
+            }
+            throw new PersistenciaException("Error al corregir los pedidos activos del cliente " + idCliente + ": " + ex.getMessage(), ex);
+
+        } finally {
+
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+}
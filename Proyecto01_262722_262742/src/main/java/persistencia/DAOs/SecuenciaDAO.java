@@ -0,0 +1,87 @@
+package persistencia.DAOs;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import persistencia.Conexion.iConexionBD;
+import persistencia.Excepciones.PersistenciaException;
+
+/**
+ * <b>Data Access Object (DAO) para la tabla de Secuencias.</b>
+ * <p>Reserva bloques de valores con una sola sentencia atómica:
+ * <code>UPDATE ... SET valor = LAST_INSERT_ID(valor + ?)</code>. El bloqueo de fila
+ * del <code>UPDATE</code> garantiza que dos terminales nunca reciban el mismo rango,
+ * y <code>LAST_INSERT_ID()</code> devuelve el nuevo valor sobre la misma conexión.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public class SecuenciaDAO implements iSecuenciaDAO {
+
+    /**
+     * Componente encargado de crear conexiones con la base de datos.
+     */
+    private final iConexionBD conexionBD;
+
+    /**
+     * Logger para registrar errores durante la reserva de bloques.
+     */
+    private static final Logger LOG = Logger.getLogger(SecuenciaDAO.class.getName());
+
+    /**
+     * Constructor que inicializa la dependencia de conexión.
+     *
+     * @param conexionBD Objeto que gestiona la creación de conexiones a la base de datos.
+     */
+    public SecuenciaDAO(iConexionBD conexionBD) {
+        this.conexionBD = conexionBD;
+    }
+
+    /**
+     * Reserva un bloque de valores consecutivos incrementando la secuencia de forma atómica.
+     *
+     * @param nombre Nombre de la secuencia.
+     * @param tamanio Cantidad de valores a reservar.
+     * @return El último valor del bloque reservado.
+     * @throws PersistenciaException Si la secuencia no existe o la actualización falla.
+     */
+    @Override
+    public long reservarBloque(String nombre, int tamanio) throws PersistenciaException {
+        if (tamanio <= 0) {
+            throw new PersistenciaException("El tamaño del bloque debe ser mayor a 0.");
+        }
+
+        String comandoSQL = """
+                            UPDATE Secuencias
+                            SET valor = LAST_INSERT_ID(valor + ?)
+                            WHERE nombre = ?
+                            """;
+
+        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(comandoSQL)) {
+
+            ps.setInt(1, tamanio);
+            ps.setString(2, nombre);
+
+            if (ps.executeUpdate() == 0) {
+                throw new PersistenciaException("No existe la secuencia '" + nombre + "' en la tabla Secuencias.");
+            }
+
+            // LAST_INSERT_ID es por conexión: se lee sobre la misma conexión del UPDATE
+            try (PreparedStatement psId = conn.prepareStatement("SELECT LAST_INSERT_ID()");
+                 ResultSet rs = psId.executeQuery()) {
+
+                if (!rs.next()) {
+                    throw new PersistenciaException("No se pudo leer el bloque reservado de la secuencia '" + nombre + "'.");
+                }
+                return rs.getLong(1);
+            }
+
+        } catch (SQLException ex) {
+            LOG.log(Level.SEVERE, "Error al reservar bloque de la secuencia " + nombre, ex);
+            throw new PersistenciaException("Error al reservar bloque de la secuencia " + nombre, ex);
+        }
+    }
+}
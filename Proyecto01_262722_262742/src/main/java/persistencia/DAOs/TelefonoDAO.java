@@ -49,6 +49,9 @@ public class TelefonoDAO implements iTelefonoDAO {
 
     /**
      * Inserta un nuevo número de teléfono asociado a un cliente en la base de datos.
+     * <p>Guarda también el número normalizado y regenera los sufijos del cliente con
+     * {@link IndiceTelefonos} en la misma transacción, para que el teléfono aparezca
+     * en la búsqueda por fragmento.</p>
      * * @param telefono Objeto {@link Telefono} que contiene la información a persistir.
      * Debe tener un cliente asociado con un ID válido.
      * @return El mismo objeto teléfono con su ID autogenerado asignado.
@@ -57,31 +60,59 @@ public class TelefonoDAO implements iTelefonoDAO {
     @Override
     public Telefono insertarTelefono(Telefono telefono) throws PersistenciaException {
         String comandoSQL = """
-                    INSERT INTO telefonos(id_cliente, telefono, etiqueta)
-                    VALUES (?, ?, ?)
+                    INSERT INTO telefonos(id_cliente, telefono, etiqueta, telefono_normalizado)
+                    VALUES (?, ?, ?, ?)
                     """;
 
-        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(comandoSQL, Statement.RETURN_GENERATED_KEYS)) {
+        Connection conn = null;
 
-            ps.setInt(1, telefono.getCliente().getId());
-            ps.setString(2, telefono.getTelefono());
-            ps.setString(3, telefono.getEtiqueta());
+        try {
+            conn = conexionBD.crearConexion();
+            conn.setAutoCommit(false);
 
-            if (ps.executeUpdate() == 0) {
-                throw new PersistenciaException("No se pudo insertar el teléfono.");
-            }
+            try (PreparedStatement ps = conn.prepareStatement(comandoSQL, Statement.RETURN_GENERATED_KEYS)) {
+
+                ps.setInt(1, telefono.getCliente().getId());
+                ps.setString(2, telefono.getTelefono());
+                ps.setString(3, telefono.getEtiqueta());
+                ps.setString(4, IndiceTelefonos.normalizar(telefono.getTelefono()));
+
+                if (ps.executeUpdate() == 0) {
+                    throw new PersistenciaException("No se pudo insertar el teléfono.");
+                }
 
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) {
-                    telefono.setId(rs.getInt(1));
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        telefono.setId(rs.getInt(1));
+                    }
                 }
             }
 
+            IndiceTelefonos.reindexarCliente(conn, telefono.getCliente().getId());
+
+            conn.commit();
             return telefono;
 
         } catch (SQLException ex) {
+
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ignored) {
+                }
+            }
             LOG.log(Level.SEVERE,"Error al insertar teléfono", ex);
             throw new PersistenciaException("Error al insertar teléfono", ex);
+
+        } finally {
+
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException ignored) {
+                }
+            }
         }
     }
 
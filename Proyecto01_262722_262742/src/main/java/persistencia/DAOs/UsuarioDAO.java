@@ -136,4 +136,32 @@ public class UsuarioDAO implements iUsuarioDAO {
             throw new PersistenciaException("Error al consultar cliente por usuario", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reemplaza el hash de la contraseña de un usuario, sólo si sigue siendo el que se leyó.
+     * <p>La condición <code>contrasenia = hashAnterior</code> evita pisar un cambio de
+     * contraseña hecho mientras tanto.</p>
+     * @param idUsuario ID del usuario.
+     * @param hashAnterior Hash leído al iniciar sesión.
+     * @param hashNuevo Hash generado con el costo actual.
+     * @return <code>true</code> si se actualizó; <code>false</code> si el hash ya había cambiado.
+     * @throws PersistenciaException Si ocurre un error de SQL.
+     */
+    @Override
+    public boolean actualizarContrasenia(int idUsuario, String hashAnterior, String hashNuevo) throws PersistenciaException {
+        String comandoSQL = "UPDATE usuarios SET contrasenia = ? WHERE id = ? AND contrasenia = ?";
+
+        try (Connection conn = conexionBD.crearConexion(); PreparedStatement ps = conn.prepareStatement(comandoSQL)) {
+
+            ps.setString(1, hashNuevo);
+            ps.setInt(2, idUsuario);
+            ps.setString(3, hashAnterior);
+
+            return ps.executeUpdate() == 1;
+
+        } catch (SQLException e) {
+            LOG.log(Level.WARNING, "Error actualizando contraseña: " + e.getMessage());
+            throw new PersistenciaException("Error al actualizar la contraseña", e);
+        }
+    }
+}
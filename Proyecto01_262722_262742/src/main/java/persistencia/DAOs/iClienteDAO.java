@@ -53,4 +53,4 @@ public interface iClienteDAO {
      * @throws PersistenciaException Si falla la inserción en la base de datos.
      */
     public List<Telefono> insertarTelefonos(int idCliente, List<Telefono> telefonos) throws PersistenciaException;
-}
\ No newline at end of file
+}
@@ -5,7 +5,9 @@
 package persistencia.DAOs;
 
 import dominio.DetallePedido;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import persistencia.Excepciones.PersistenciaException;
 
 /**
@@ -45,4 +47,16 @@ public interface iDetallePedidoDAO {
      * @throws PersistenciaException Si ocurre un error de SQL durante el cálculo o la consulta.
      */
     public float obtenerSubTotalPorPedido(int idPedido) throws PersistenciaException;
+
+    /**
+     * Consulta los detalles de varios pedidos a la vez.
+     * <p>Evita una consulta por pedido cuando se muestran muchos pedidos juntos
+     * (por ejemplo, el historial de un cliente).</p>
+     *
+     * @param idsPedidos IDs de los pedidos a consultar.
+     * @return Mapa del ID de cada pedido solicitado a sus detalles, en el orden en que
+     * se registraron. Los pedidos sin detalles tienen una lista vacía.
+     * @throws PersistenciaException Si ocurre un error al ejecutar la consulta SQL.
+     */
+    public Map<Integer, List<DetallePedido>> listarDetallesPorPedidos(Collection<Integer> idsPedidos) throws PersistenciaException;
 }
\ No newline at end of file
@@ -4,13 +4,18 @@
  */
 package persistencia.DAOs;
 
+import dominio.CursorPedidos;
 import dominio.DetallePedido;
 import dominio.EstadoPedido;
+import dominio.PaginaPedidos;
 import dominio.Pedido;
 import dominio.PedidoExpress;
 import dominio.PedidoProgramado;
+import dominio.ResultadoCambioEstado;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 import persistencia.Excepciones.PersistenciaException;
 
 /**
@@ -73,13 +78,30 @@ public interface iPedidoDAO {
 
     /**
      * Actualiza el estado actual de un pedido en la base de datos.
+     * <p>Sólo se permiten las transiciones de {@link dominio.MaquinaEstadosPedido}; el
+     * cambio se aplica únicamente si el pedido sigue en un estado de origen válido.</p>
      *
      * @param idPedido El identificador único del pedido a modificar.
      * @param nuevoEstado El nuevo {@link EstadoPedido} que se le asignará.
-     * @throws PersistenciaException Si ocurre un error de SQL durante la actualización.
+     * @throws PersistenciaException Si el pedido no existe, si su estado actual no permite
+     * la transición o si ocurre un error de SQL durante la actualización.
      */
     public void actualizarEstadoPedido(int idPedido, EstadoPedido nuevoEstado) throws PersistenciaException;
 
+    /**
+     * Cambia varios pedidos al mismo estado en una sola transacción.
+     * <p>Cada pedido se valida contra {@link dominio.MaquinaEstadosPedido}; los que no
+     * pueden cambiar se reportan con su motivo y no impiden que cambien los demás.</p>
+     *
+     * @param idsPedidos Los identificadores de los pedidos a modificar.
+     * @param nuevoEstado El nuevo {@link EstadoPedido} que se les asignará.
+     * @param excluirExpress <code>true</code> para rechazar los pedidos express.
+     * @return Los pedidos que cambiaron y el motivo de cada rechazado.
+     * @throws PersistenciaException Si ocurre un error de SQL; en ese caso ningún pedido cambia.
+     */
+    public ResultadoCambioEstado actualizarEstadoPedidos(Collection<Integer> idsPedidos, EstadoPedido nuevoEstado,
+            boolean excluirExpress) throws PersistenciaException;
+
     /**
      * Lista todos los pedidos asociados a un cliente específico.
      *
@@ -111,13 +133,23 @@ public interface iPedidoDAO {
     public boolean existeFolio(String folio) throws PersistenciaException;
 
     /**
-     * Calcula y devuelve cuál será el siguiente número consecutivo de pedido disponible.
+     * Devuelve el siguiente número de pedido disponible, único entre todas las terminales.
+     * <p>Los números son crecientes pero pueden tener huecos.</p>
      *
      * @return El siguiente número de pedido disponible como entero.
-     * @throws PersistenciaException Si ocurre un error de SQL al calcular el consecutivo.
+     * @throws PersistenciaException Si ocurre un error de SQL al reservar números.
      */
     public int obtenerSiguienteNumeroDePedido() throws PersistenciaException;
 
+    /**
+     * Devuelve el siguiente consecutivo disponible para formar el folio de un pedido express,
+     * único entre todas las terminales.
+     *
+     * @return El siguiente consecutivo de folio.
+     * @throws PersistenciaException Si ocurre un error de SQL al reservar consecutivos.
+     */
+    public long obtenerSiguienteConsecutivoDeFolio() throws PersistenciaException;
+
     /**
      * Cuenta la cantidad de pedidos que actualmente se encuentran en un estado activo
      * para un cliente específico.
@@ -140,6 +172,45 @@ public interface iPedidoDAO {
      */
     public List<Pedido> listarPedidosFiltro(String folio, String telefono, LocalDate fechaInicio, LocalDate fechaFin) throws PersistenciaException;
 
+    /**
+     * Obtiene una página del listado general de pedidos, en el mismo orden que {@link #listarPedidos()}.
+     * <p>La paginación es por cursor (keyset): el costo de cada página no crece con el tamaño de la tabla.</p>
+     *
+     * @param tamanioPagina Número máximo de pedidos de la página (mayor a cero).
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página.
+     * @return Una {@link PaginaPedidos} con los pedidos y el cursor de la siguiente página.
+     * @throws PersistenciaException Si el tamaño de página es inválido o ocurre un error de SQL.
+     */
+    public PaginaPedidos listarPedidosPagina(int tamanioPagina, CursorPedidos cursor) throws PersistenciaException;
+
+    /**
+     * Obtiene una página del listado de pedidos aplicando los filtros opcionales de
+     * {@link #listarPedidosFiltro(String, String, LocalDate, LocalDate)}.
+     *
+     * @param folio El folio del pedido express a buscar (puede ser null).
+     * @param telefono El teléfono asociado al cliente (puede ser null).
+     * @param fechaInicio La fecha inicial del rango de búsqueda (puede ser null).
+     * @param fechaFin La fecha final del rango de búsqueda (puede ser null).
+     * @param tamanioPagina Número máximo de pedidos de la página (mayor a cero).
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página.
+     * @return Una {@link PaginaPedidos} con los pedidos y el cursor de la siguiente página.
+     * @throws PersistenciaException Si el tamaño de página es inválido o ocurre un error de SQL.
+     */
+    public PaginaPedidos listarPedidosFiltroPagina(String folio, String telefono, LocalDate fechaInicio, LocalDate fechaFin,
+            int tamanioPagina, CursorPedidos cursor) throws PersistenciaException;
+
+    /**
+     * Recorre los pedidos sin materializarlos en una lista, para exportaciones y reportes.
+     * <p>El <code>Stream</code> mantiene abierta una conexión hasta que se cierra, por lo que
+     * debe usarse dentro de un try-with-resources.</p>
+     *
+     * @param fechaInicio La fecha inicial del rango (null para recorrer todos los pedidos).
+     * @param fechaFin La fecha final del rango (null para recorrer todos los pedidos).
+     * @return Un <code>Stream</code> de pedidos ordenado por ID.
+     * @throws PersistenciaException Si ocurre un error de SQL al abrir la consulta.
+     */
+    public Stream<Pedido> recorrerPedidos(LocalDate fechaInicio, LocalDate fechaFin) throws PersistenciaException;
+
     /**
      * Obtiene el hash de seguridad (PIN) almacenado para un pedido express específico.
      * * @param idPedido El ID del pedido express a consultar.
@@ -0,0 +1,27 @@
+package persistencia.DAOs;
+
+import persistencia.Excepciones.PersistenciaException;
+
+/**
+ * <b>Interfaz para el Data Access Object (DAO) de Secuencias.</b>
+ * <p>Define el contrato para reservar rangos de valores consecutivos sobre la tabla
+ * <code>Secuencias</code>. Cada reserva es atómica en la base de datos, por lo que
+ * varias terminales pueden reservar al mismo tiempo sin obtener valores repetidos.</p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public interface iSecuenciaDAO {
+
+    /**
+     * Reserva un bloque de valores consecutivos de una secuencia.
+     * <p>Si la secuencia valía <code>n</code>, tras la llamada vale <code>n + tamanio</code>
+     * y quien llama es dueño exclusivo del rango <code>[n + 1, n + tamanio]</code>.</p>
+     *
+     * @param nombre Nombre de la secuencia (ej. "numero_pedido").
+     * @param tamanio Cantidad de valores a reservar (mayor a 0).
+     * @return El último valor del bloque reservado.
+     * @throws PersistenciaException Si la secuencia no existe o si ocurre un error de SQL.
+     */
+    public long reservarBloque(String nombre, int tamanio) throws PersistenciaException;
+}
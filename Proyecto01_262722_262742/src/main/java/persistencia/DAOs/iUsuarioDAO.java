@@ -37,4 +37,17 @@ public interface iUsuarioDAO {
      * @throws PersistenciaException Si ocurre un error durante la ejecución de la consulta SQL.
      */
     Cliente consultarClientePorUsuario(String usuario) throws PersistenciaException;
-}
\ No newline at end of file
+
+    /**
+     * Reemplaza el hash de la contraseña de un usuario, sólo si sigue siendo el que se leyó.
+     * <p>Se usa para volver a generar el hash con el costo actual tras un inicio de
+     * sesión exitoso. La condición sobre el hash anterior evita pisar un cambio de
+     * contraseña hecho entre la lectura y esta actualización.</p>
+     * @param idUsuario ID del usuario.
+     * @param hashAnterior Hash leído al iniciar sesión.
+     * @param hashNuevo Hash generado con el costo actual.
+     * @return <code>true</code> si se actualizó; <code>false</code> si el hash ya había cambiado.
+     * @throws PersistenciaException Si ocurre un error de SQL.
+     */
+    boolean actualizarContrasenia(int idUsuario, String hashAnterior, String hashNuevo) throws PersistenciaException;
+}
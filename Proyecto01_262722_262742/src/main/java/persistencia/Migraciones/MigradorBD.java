@@ -0,0 +1,307 @@
+package persistencia.Migraciones;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import persistencia.Conexion.iConexionBD;
+import persistencia.Excepciones.PersistenciaException;
+
+/**
+ * <b>Ejecutor de migraciones versionadas del esquema de la base de datos.</b>
+ * <p>Las migraciones son scripts SQL incluidos en la aplicación (carpeta
+ * <code>/migraciones</code> del classpath) con nombre <code>V{version}__{descripcion}.sql</code>.
+ * Al iniciar, se aplican en orden las que aún no estén registradas en la tabla
+ * <code>VersionesEsquema</code>, y cada una se registra con su checksum SHA-256.</p>
+ * <ul>
+ * <li>Si una migración ya aplicada cambió de contenido, se detiene con error: las
+ * migraciones publicadas no se editan, se agrega una nueva.</li>
+ * <li>Varias terminales pueden arrancar a la vez: un candado de MySQL
+ * (<code>GET_LOCK</code>) asegura que sólo una aplique migraciones.</li>
+ * <li>MySQL confirma cada sentencia DDL por separado, así que una migración que falla
+ * a medias no se revierte. Para poder reintentarla, un índice o columna que ya
+ * existe (errores 1061 y 1060), o que ya no existe al quitarlo (error 1091), se
+ * registra como advertencia y no detiene la migración.</li>
+ * </ul>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public class MigradorBD {
+
+    /**
+     * Migraciones en orden de aplicación. Para agregar una, se crea el script en
+     * <code>src/main/resources/migraciones</code> y se añade su nombre al final.
+     */
+    static final String[] MIGRACIONES = {
+        "V1__indices_consultas.sql",
+        "V2__secuencias.sql",
+        "V3__busqueda_telefonos.sql",
+        "V4__procedimiento_insertar_pedido.sql",
+        "V5__contador_pedidos_activos.sql",
+        "V6__grupo_pedidos.sql",
+        "V7__quitar_indice_telefono_normalizado.sql"
+    };
+
+    private static final String CARPETA_MIGRACIONES = "/migraciones/";
+
+    private static final String NOMBRE_CANDADO = "panaderia_migraciones";
+
+    private static final int ESPERA_CANDADO_SEGUNDOS = 30;
+
+    /**
+     * Código de error de MySQL para "Duplicate key name".
+     */
+    private static final int ER_DUP_KEYNAME = 1061;
+
+    /**
+     * Código de error de MySQL para "Duplicate column name".
+     */
+    private static final int ER_DUP_FIELDNAME = 1060;
+
+    /**
+     * Código de error de MySQL para "Can't DROP; check that column/key exists".
+     */
+    private static final int ER_CANT_DROP_FIELD_OR_KEY = 1091;
+
+    private static final Logger LOG = Logger.getLogger(MigradorBD.class.getName());
+
+    private final iConexionBD conexionBD;
+
+    /**
+     * Constructor que inicializa la dependencia de conexión.
+     *
+     * @param conexionBD Objeto que gestiona la creación de conexiones a la base de datos.
+     */
+    public MigradorBD(iConexionBD conexionBD) {
+        this.conexionBD = conexionBD;
+    }
+
+    /**
+     * Aplica las migraciones pendientes en orden de versión.
+     *
+     * @return Número de migraciones aplicadas en esta ejecución.
+     * @throws PersistenciaException Si no se obtiene el candado, falta un script, una migración
+     * aplicada fue modificada o falla alguna sentencia.
+     */
+    public int migrar() throws PersistenciaException {
+
+        try (Connection conn = conexionBD.crearConexion()) {
+
+            adquirirCandado(conn);
+
+            try {
+                crearTablaVersiones(conn);
+                Map<Integer, String> aplicadas = consultarAplicadas(conn);
+
+                int aplicadasAhora = 0;
+                for (String nombre : MIGRACIONES) {
+                    int version = versionDe(nombre);
+                    String contenido = leerScript(nombre);
+                    String checksum = calcularChecksum(contenido);
+
+                    String checksumRegistrado = aplicadas.get(version);
+                    if (checksumRegistrado != null) {
+                        if (!checksumRegistrado.equals(checksum)) {
+                            throw new PersistenciaException("La migración " + nombre
+                                    + " ya fue aplicada y su contenido cambió. Agrega una migración nueva en lugar de editarla.");
+                        }
+                        continue;
+                    }
+
+                    long inicio = System.nanoTime();
+                    ejecutarScript(conn, nombre, contenido);
+                    long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+
+                    registrar(conn, version, descripcionDe(nombre), checksum, duracionMs);
+                    LOG.info(String.format("Migración %s aplicada en %d ms", nombre, duracionMs));
+                    aplicadasAhora++;
+                }
+
+                return aplicadasAhora;
+
+            } finally {
+                liberarCandado(conn);
+            }
+
+        } catch (SQLException ex) {
+            LOG.log(Level.SEVERE, "Error al aplicar migraciones", ex);
+            throw new PersistenciaException("Error al aplicar migraciones: " + ex.getMessage(), ex);
+        }
+    }
+
+    private void adquirirCandado(Connection conn) throws SQLException, PersistenciaException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, NOMBRE_CANDADO);
+            ps.setInt(2, ESPERA_CANDADO_SEGUNDOS);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new PersistenciaException("Otra instancia está aplicando migraciones; no se obtuvo el candado.");
+                }
+            }
+        }
+    }
+
+    private void liberarCandado(Connection conn) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, NOMBRE_CANDADO);
+            ps.executeQuery().close();
+        } catch (SQLException ex) {
+            LOG.log(Level.WARNING, "No se pudo liberar el candado de migraciones", ex);
+        }
+    }
+
+    private void crearTablaVersiones(Connection conn) throws SQLException {
+        String comandoSQL = """
+                            CREATE TABLE IF NOT EXISTS VersionesEsquema(
+                                version INT PRIMARY KEY,
+                                descripcion VARCHAR(100) NOT NULL,
+                                checksum CHAR(64) NOT NULL,
+                                fecha_aplicacion DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                duracion_ms BIGINT NOT NULL
+                            )
+                            """;
+
+        try (Statement st = conn.createStatement()) {
+            st.execute(comandoSQL);
+        }
+    }
+
+    private Map<Integer, String> consultarAplicadas(Connection conn) throws SQLException {
+        Map<Integer, String> aplicadas = new HashMap<>();
+
+        try (PreparedStatement ps = conn.prepareStatement("SELECT version, checksum FROM VersionesEsquema"); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                aplicadas.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+
+        return aplicadas;
+    }
+
+    private void ejecutarScript(Connection conn, String nombre, String contenido) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            for (String sentencia : separarSentencias(contenido)) {
+                try {
+                    st.execute(sentencia);
+                } catch (SQLException ex) {
+                    if (ex.getErrorCode() == ER_CANT_DROP_FIELD_OR_KEY) {
+                        LOG.warning("Migración " + nombre + ": el objeto ya no existía, se continúa. " + ex.getMessage());
+                        continue;
+                    }
+                    if (ex.getErrorCode() != ER_DUP_KEYNAME && ex.getErrorCode() != ER_DUP_FIELDNAME) {
+                        throw new SQLException("Falló la migración " + nombre + ": " + ex.getMessage(), ex.getSQLState(), ex.getErrorCode(), ex);
+                    }
+                    LOG.warning("Migración " + nombre + ": el objeto ya existía, se continúa. " + ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void registrar(Connection conn, int version, String descripcion, String checksum, long duracionMs) throws SQLException {
+        String comandoSQL = """
+                            INSERT INTO VersionesEsquema(version, descripcion, checksum, duracion_ms)
+                            VALUES(?,?,?,?)
+                            """;
+
+        try (PreparedStatement ps = conn.prepareStatement(comandoSQL)) {
+            ps.setInt(1, version);
+            ps.setString(2, descripcion);
+            ps.setString(3, checksum);
+            ps.setLong(4, duracionMs);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Divide un script en sentencias terminadas en <code>;</code> al final de línea,
+     * omitiendo líneas vacías y comentarios <code>--</code>.
+     * <p>Como en el cliente de MySQL, una línea <code>DELIMITER $$</code> cambia el
+     * terminador, para que un procedimiento (cuyo cuerpo lleva <code>;</code>) se
+     * envíe como una sola sentencia. La línea <code>DELIMITER</code> no se envía.</p>
+     */
+    static List<String> separarSentencias(String contenido) {
+        List<String> sentencias = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        String terminador = ";";
+
+        for (String linea : contenido.split("\r?\n")) {
+            String recortada = linea.trim();
+            if (recortada.isEmpty() || recortada.startsWith("--")) {
+                continue;
+            }
+
+            if (recortada.regionMatches(true, 0, "DELIMITER ", 0, 10)) {
+                terminador = recortada.substring(10).trim();
+                continue;
+            }
+
+            if (recortada.endsWith(terminador)) {
+                actual.append(recortada, 0, recortada.length() - terminador.length());
+                sentencias.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(recortada).append('\n');
+            }
+        }
+
+        if (!actual.toString().isBlank()) {
+            sentencias.add(actual.toString());
+        }
+
+        return sentencias;
+    }
+
+    private String leerScript(String nombre) throws PersistenciaException {
+        try (InputStream in = MigradorBD.class.getResourceAsStream(CARPETA_MIGRACIONES + nombre)) {
+            if (in == null) {
+                throw new PersistenciaException("No se encontró el script de migración " + nombre + ".");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new PersistenciaException("No se pudo leer el script de migración " + nombre + ".", ex);
+        }
+    }
+
+    /**
+     * SHA-256 del script con los saltos de línea normalizados a <code>\n</code>, para
+     * que un checkout con CRLF (git en Windows) no cuente como una migración editada.
+     */
+    private static String calcularChecksum(String contenido) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            String normalizado = contenido.replace("\r\n", "\n");
+            return HexFormat.of().formatHex(sha.digest(normalizado.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 no disponible", ex);
+        }
+    }
+
+    /**
+     * "V12__algo.sql" -> 12
+     */
+    static int versionDe(String nombre) {
+        return Integer.parseInt(nombre.substring(1, nombre.indexOf("__")));
+    }
+
+    /**
+     * "V1__indices_consultas.sql" -> "indices consultas"
+     */
+    static String descripcionDe(String nombre) {
+        return nombre.substring(nombre.indexOf("__") + 2, nombre.lastIndexOf('.')).replace('_', ' ');
+    }
+}
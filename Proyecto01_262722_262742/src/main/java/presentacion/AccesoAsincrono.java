@@ -0,0 +1,211 @@
+package presentacion;
+
+import java.awt.Component;
+import java.awt.Cursor;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * <p>
+ * Ejecuta las llamadas a la capa de negocio (y por lo tanto a la base de datos)
+ * fuera del hilo de eventos de Swing (EDT), para que una consulta lenta no
+ * congele la ventana.
+ * </p>
+ *
+ * <p>
+ * Cada consulta corre en su propio hilo virtual. El resultado (o el error) se
+ * entrega en el EDT, de modo que los callbacks pueden tocar componentes
+ * directamente. Se obtiene con {@code ctx.getAccesoAsincrono()}.
+ * </p>
+ *
+ * <h2>Estados</h2>
+ * <ul>
+ * <li><b>Cargando:</b> mientras una ventana tiene consultas pendientes se
+ * muestra el cursor de espera.</li>
+ * <li><b>Error:</b> si no se da un callback de error, se muestra el mensaje en
+ * un {@link JOptionPane}.</li>
+ * <li><b>Cancelación:</b> al cerrarse la ventana se cancelan sus consultas
+ * pendientes y sus callbacks ya no se ejecutan. El hilo no se interrumpe: una
+ * consulta o transacción ya iniciada termina normalmente (interrumpirla podría
+ * cerrar a medias la conexión del pool) y sólo se descarta su resultado.</li>
+ * </ul>
+ *
+ * <p>
+ * Todos los métodos deben llamarse desde el EDT.
+ * </p>
+ *
+ * @author 262722
+ * @author 262742
+ */
+public final class AccesoAsincrono {
+
+    private static final Logger LOG = Logger.getLogger(AccesoAsincrono.class.getName());
+
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Consultas pendientes por ventana. Sólo se modifica desde el EDT.
+     */
+    private final Map<Window, Set<Future<?>>> pendientes = new HashMap<>();
+
+    /**
+     * Ejecuta una consulta y entrega el resultado en el EDT; los errores se
+     * muestran en un diálogo.
+     *
+     * @param <T> tipo del resultado
+     * @param dueno componente de la pantalla que pide los datos
+     * @param consulta llamada a la capa de negocio
+     * @param alTerminar recibe el resultado en el EDT
+     * @return futuro de la consulta, por si la pantalla quiere cancelarla antes
+     */
+    public <T> Future<?> cargar(Component dueno, Callable<T> consulta, Consumer<T> alTerminar) {
+        return cargar(dueno, consulta, alTerminar, ex -> JOptionPane.showMessageDialog(
+                dueno, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    /**
+     * Ejecuta una consulta y entrega el resultado o el error en el EDT.
+     *
+     * @param <T> tipo del resultado
+     * @param dueno componente de la pantalla que pide los datos
+     * @param consulta llamada a la capa de negocio
+     * @param alTerminar recibe el resultado en el EDT
+     * @param alFallar recibe la excepción en el EDT
+     * @return futuro de la consulta, por si la pantalla quiere cancelarla antes
+     */
+    public <T> Future<?> cargar(Component dueno, Callable<T> consulta, Consumer<T> alTerminar, Consumer<Exception> alFallar) {
+        Window ventana = dueno instanceof Window ? (Window) dueno : SwingUtilities.getWindowAncestor(dueno);
+
+        // El futuro se conoce hasta después de submit; el hilo lo recibe por este arreglo
+        Future<?>[] propio = new Future<?>[1];
+
+        Future<?> futuro = ejecutor.submit(() -> {
+            T resultado;
+            Exception error = null;
+            try {
+                resultado = consulta.call();
+            } catch (Exception ex) {
+                resultado = null;
+                error = ex;
+            }
+
+            T r = resultado;
+            Exception e = error;
+            SwingUtilities.invokeLater(() -> {
+                boolean vigente = quitar(ventana, propio[0]);
+                if (!vigente || (ventana != null && !ventana.isDisplayable())) {
+                    return; // cancelada o la ventana ya se cerró
+                }
+                if (e != null) {
+                    LOG.log(Level.FINE, "Falló una consulta asíncrona", e);
+                    alFallar.accept(e);
+                } else {
+                    alTerminar.accept(r);
+                }
+            });
+            return null;
+        });
+        propio[0] = futuro;
+
+        registrar(ventana, futuro);
+        return futuro;
+    }
+
+    /**
+     * Cancela las consultas pendientes de una ventana, sin interrumpir las que ya
+     * están corriendo; sus callbacks ya no se ejecutarán.
+     *
+     * @param ventana ventana cuyas consultas ya no interesan
+     */
+    public void cancelar(Window ventana) {
+        Set<Future<?>> set = pendientes.remove(ventana);
+        if (set != null) {
+            for (Future<?> f : set) {
+                f.cancel(false);
+            }
+            ventana.setCursor(Cursor.getDefaultCursor());
+        }
+    }
+
+    /**
+     * Cancela una consulta pendiente; su callback ya no se ejecutará. Si ya estaba
+     * corriendo, no se interrumpe y termina en segundo plano.
+     *
+     * @param dueno componente con el que se pidió la consulta
+     * @param futuro futuro devuelto por {@code cargar}
+     */
+    public void cancelar(Component dueno, Future<?> futuro) {
+        if (futuro == null) {
+            return;
+        }
+        futuro.cancel(false);
+        Window ventana = dueno instanceof Window ? (Window) dueno : SwingUtilities.getWindowAncestor(dueno);
+        quitar(ventana, futuro);
+    }
+
+    /**
+     * Indica si una ventana tiene consultas pendientes.
+     *
+     * @param ventana ventana a revisar
+     * @return {@code true} si hay al menos una consulta en curso
+     */
+    public boolean estaCargando(Window ventana) {
+        Set<Future<?>> set = pendientes.get(ventana);
+        return set != null && !set.isEmpty();
+    }
+
+    private void registrar(Window ventana, Future<?> futuro) {
+        if (ventana == null) {
+            return;
+        }
+
+        Set<Future<?>> set = pendientes.get(ventana);
+        if (set == null) {
+            set = new HashSet<>();
+            pendientes.put(ventana, set);
+            ventana.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent e) {
+                    cancelar(ventana);
+                    ventana.removeWindowListener(this);
+                }
+            });
+        }
+        set.add(futuro);
+        ventana.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+    }
+
+    /**
+     * Quita una consulta terminada.
+     *
+     * @return {@code false} si ya no estaba registrada (fue cancelada)
+     */
+    private boolean quitar(Window ventana, Future<?> futuro) {
+        if (ventana == null) {
+            return !futuro.isCancelled();
+        }
+
+        Set<Future<?>> set = pendientes.get(ventana);
+        if (set == null || !set.remove(futuro)) {
+            return false;
+        }
+        if (set.isEmpty()) {
+            ventana.setCursor(Cursor.getDefaultCursor());
+        }
+        return !futuro.isCancelled();
+    }
+}
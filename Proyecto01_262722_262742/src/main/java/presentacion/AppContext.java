@@ -42,6 +42,8 @@ import negocio.BOs.iUsuarioBO;
  * <li>Mantener el estado del cliente autenticado.</li>
  * <li>Mantener el estado del empleado autenticado.</li>
  * <li>Permitir cerrar la sesión activa.</li>
+ * <li>Proveer el {@link AccesoAsincrono} para llamar a los BO sin bloquear la
+ * interfaz.</li>
  * </ul>
  *
  * @author 262722, 2627242
@@ -83,6 +85,12 @@ public class AppContext {
      */
     private final iDetallePedidoBO detallePedidoBO;
 
+    /**
+     * Ejecutor de consultas fuera del hilo de eventos de Swing, compartido por
+     * todas las pantallas.
+     */
+    private final AccesoAsincrono accesoAsincrono = new AccesoAsincrono();
+
     /**
      * Cliente actualmente autenticado en el sistema. Puede ser null si no hay
      * sesión activa de cliente.
@@ -193,6 +201,15 @@ public class AppContext {
         return detallePedidoBO;
     }
 
+    /**
+     * Obtiene el ejecutor para llamar a los BO sin bloquear la interfaz.
+     *
+     * @return instancia compartida de {@link AccesoAsincrono}
+     */
+    public AccesoAsincrono getAccesoAsincrono() {
+        return accesoAsincrono;
+    }
+
     /**
      * Obtiene el cliente actualmente autenticado.
      *
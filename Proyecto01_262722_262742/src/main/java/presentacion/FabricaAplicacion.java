@@ -4,10 +4,18 @@
  */
 package presentacion;
 
+import java.time.Duration;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import negocio.BOs.*;
+import negocio.util.PasswordUtil;
 import persistencia.Conexion.ConexionBD;
+import persistencia.Conexion.ConexionTransaccional;
+import persistencia.Conexion.PoolConexionesBD;
 import persistencia.Conexion.iConexionBD;
 import persistencia.DAOs.*;
+import persistencia.Excepciones.PersistenciaException;
+import persistencia.Migraciones.MigradorBD;
 
 /**
  * <p>
@@ -49,6 +57,8 @@ import persistencia.DAOs.*;
  */
 public class FabricaAplicacion {
 
+    private static final Logger LOG = Logger.getLogger(FabricaAplicacion.class.getName());
+
     /**
      * <p>
      * Método estático encargado de crear y configurar el contexto completo de
@@ -61,6 +71,9 @@ public class FabricaAplicacion {
      *
      * <ol>
      * <li>Instancia la conexión a la base de datos.</li>
+     * <li>Fija el costo de BCrypt.</li>
+     * <li>Aplica las migraciones pendientes del esquema.</li>
+     * <li>Programa la reconciliación del contador de pedidos activos.</li>
      * <li>Crea los DAOs necesarios.</li>
      * <li>Crea los BO utilizando los DAOs correspondientes.</li>
      * <li>Construye y retorna un objeto AppContext con todos los BO.</li>
@@ -68,17 +81,78 @@ public class FabricaAplicacion {
      *
      * <p>
      * Este método asegura que todas las dependencias estén correctamente
-     * enlazadas antes de iniciar la aplicación.
+     * enlazadas antes de iniciar la aplicación. El pool de conexiones se usa
+     * por defecto; puede desactivarse con <code>-Dpanaderia.pool=false</code>.
      * </p>
      *
      * @return instancia completamente configurada de AppContext
      */
     public static AppContext crearContexto() {
+        return crearContexto(Boolean.parseBoolean(System.getProperty("panaderia.pool", "true")));
+    }
+
+    /**
+     * <p>
+     * Crea el contexto completo de la aplicación eligiendo el tipo de conexión.
+     * </p>
+     *
+     * <p>
+     * Con pool, los DAOs reutilizan un conjunto acotado de conexiones
+     * ({@link PoolConexionesBD}); sin pool, cada operación abre su propia
+     * conexión mediante {@link ConexionBD}.
+     * </p>
+     *
+     * <p>
+     * El pool y la reconciliación de pedidos activos se detienen al terminar
+     * la JVM mediante ganchos de apagado.
+     * </p>
+     *
+     * @param usarPool <code>true</code> para usar el pool de conexiones,
+     * <code>false</code> para abrir una conexión nueva por operación
+     * @return instancia completamente configurada de AppContext
+     */
+    public static AppContext crearContexto(boolean usarPool) {
 
         /**
          * Instancia de la conexión a la base de datos.
          */
-        iConexionBD conexion = new ConexionBD();
+        iConexionBD origen;
+        if (usarPool) {
+            PoolConexionesBD pool = new PoolConexionesBD(new ConexionBD());
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::cerrar));
+            origen = pool;
+        } else {
+            origen = new ConexionBD();
+        }
+
+        /**
+         * Los DAOs piden sus conexiones aquí para unirse a la unidad de trabajo
+         * que tenga abierta su hilo.
+         */
+        ConexionTransaccional transacciones = new ConexionTransaccional(origen);
+        iConexionBD conexion = transacciones;
+
+        /**
+         * Costo de BCrypt para los hashes nuevos.
+         */
+        configurarCostoBCrypt();
+
+        /**
+         * Aplica las migraciones pendientes del esquema antes de crear los DAOs.
+         */
+        try {
+            new MigradorBD(conexion).migrar();
+        } catch (PersistenciaException ex) {
+            LOG.log(Level.SEVERE, "No se pudieron aplicar las migraciones del esquema", ex);
+        }
+
+        /**
+         * Corrige en segundo plano las diferencias del contador de pedidos
+         * activos por cliente.
+         */
+        ReconciliadorPedidosActivos reconciliador = new ReconciliadorPedidosActivos(conexion);
+        reconciliador.iniciar(Long.getLong("panaderia.pedidos.reconciliacionMin", 15));
+        Runtime.getRuntime().addShutdownHook(new Thread(reconciliador::detener));
 
         // =======================
         // DAOs (Persistencia)
@@ -137,15 +211,16 @@ public class FabricaAplicacion {
         iCuponBO cuponBO = new CuponBO(cuponDAO);
 
         /**
-         * BO encargado de la lógica de pedidos. Requiere acceso a pedidoDAO,
-         * detallePedidoDAO y cuponDAO.
+         * BO encargado de la lógica de pedidos. Requiere acceso a pedidoDAO y a
+         * las unidades de trabajo.
          */
-        iPedidoBO pedidoBO = new PedidoBO(pedidoDAO, detallePedidoDAO, cuponDAO);
+        iPedidoBO pedidoBO = new PedidoBO(pedidoDAO, transacciones);
 
         /**
-         * BO encargado de la lógica de clientes.
+         * BO encargado de la lógica de clientes. Usa usuarioDAO para actualizar
+         * el hash de la contraseña.
          */
-        iClienteBO clienteBO = new ClienteBO(clienteDAO);
+        iClienteBO clienteBO = new ClienteBO(clienteDAO, usuarioDAO);
 
         /**
          * BO encargado de la lógica de empleados.
@@ -171,4 +246,22 @@ public class FabricaAplicacion {
                 detallePedidoBO
         );
     }
+
+    /**
+     * Fija el costo de BCrypt de la aplicación.
+     * <p>El costo se da con <code>-Dpanaderia.bcrypt.costo</code>; si no se da y sí se da
+     * <code>-Dpanaderia.bcrypt.objetivoMs</code>, se calibra con
+     * {@link PasswordUtil#calibrar(Duration)}.</p>
+     */
+    private static void configurarCostoBCrypt() {
+        String objetivoMs = System.getProperty("panaderia.bcrypt.objetivoMs");
+        if (objetivoMs != null && System.getProperty("panaderia.bcrypt.costo") == null) {
+            try {
+                PasswordUtil.calibrar(Duration.ofMillis(Long.parseLong(objetivoMs.trim())));
+            } catch (NumberFormatException ex) {
+                LOG.warning("panaderia.bcrypt.objetivoMs no es un número de milisegundos (" + objetivoMs
+                        + "); se usa el costo de BCrypt por defecto.");
+            }
+        }
+    }
 }
@@ -14,7 +14,6 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.List;
-import negocio.Excepciones.NegocioException;
 
 /**
  * <p>
@@ -266,34 +265,49 @@ public class PantallaCatalogoExpress extends JFrame {
      * </p>
      */
     private void cargarProductosDesdeBD() {
-        try {
-            List<Producto> productos = ctx.getProductoBO().listarProductos();
-
-            grid.removeAll();
-
-            if (productos == null || productos.isEmpty()) {
-                grid.setLayout(new BorderLayout());
-                JLabel vacio = new JLabel("No hay productos para mostrar.", SwingConstants.CENTER);
-                vacio.setFont(new Font("Segoe UI", Font.PLAIN, 16));
-                grid.add(vacio, BorderLayout.CENTER);
-            } else {
-                grid.setLayout(new GridLayout(0, 3, 28, 18));
-                for (Producto p : productos) {
-                    grid.add(crearTarjetaProducto(p));
-                }
-            }
-
-            grid.revalidate();
-            grid.repaint();
+        grid.removeAll();
+        grid.setLayout(new BorderLayout());
+        JLabel cargando = new JLabel("Cargando productos...", SwingConstants.CENTER);
+        cargando.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+        grid.add(cargando, BorderLayout.CENTER);
+        grid.revalidate();
+        grid.repaint();
+
+        ctx.getAccesoAsincrono().cargar(this,
+                () -> ctx.getProductoBO().listarProductos(),
+                this::mostrarProductos,
+                e -> JOptionPane.showMessageDialog(
+                        this,
+                        "Error al cargar productos: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE
+                ));
+    }
 
-        } catch (NegocioException e) {
-            JOptionPane.showMessageDialog(
-                    this,
-                    "Error al cargar productos: " + e.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE
-            );
+    /**
+     * <p>
+     * Pinta en el grid las tarjetas de los productos ya consultados.
+     * </p>
+     *
+     * @param productos productos a mostrar
+     */
+    private void mostrarProductos(List<Producto> productos) {
+        grid.removeAll();
+
+        if (productos == null || productos.isEmpty()) {
+            grid.setLayout(new BorderLayout());
+            JLabel vacio = new JLabel("No hay productos para mostrar.", SwingConstants.CENTER);
+            vacio.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+            grid.add(vacio, BorderLayout.CENTER);
+        } else {
+            grid.setLayout(new GridLayout(0, 3, 28, 18));
+            for (Producto p : productos) {
+                grid.add(crearTarjetaProducto(p));
+            }
         }
+
+        grid.revalidate();
+        grid.repaint();
     }
 
     /**
@@ -336,11 +350,7 @@ public class PantallaCatalogoExpress extends JFrame {
         img.setBorder(new LineBorder(new Color(200, 200, 200), 1, true));
 
         // Cargar imagen por ID: imagenes/productos/{id}.png
-        ImageIcon icon = ImagenProductoUtil.cargarIconoProducto(p.getId(), 180, 100);
-        if (icon != null) {
-            img.setText("");
-            img.setIcon(icon);
-        }
+        ImagenProductoUtil.asignarIconoProducto(img, p.getId(), ImagenProductoUtil.ANCHO_MINIATURA, ImagenProductoUtil.ALTO_MINIATURA, "Sin imagen");
 
         // Tipo y precio
         String tipo = (p.getTipo() != null) ? p.getTipo().toString() : "N/A";
@@ -352,15 +352,24 @@ public class PantallaConfirmarPedidoExpress extends JFrame {
 
                 List<DetallePedido> detalles = crearDetallesDesdeCarrito();
 
-                //agregarle el pedido al cliente
-                if (ctx.getPedidoBO().agregarPedidoExpress(pedidoExpress, detalles) != null) {
-
-                    new PantallaPedidoExpressRealizado(pedidoExpress, ctx, pin).setVisible(true);
-                    dispose();
-
-                } else {
-                    JOptionPane.showMessageDialog(this, "Error al agregar el pedido.");
-                }
+                //agregarle el pedido al cliente (el hash del PIN y la transacción corren fuera del hilo de Swing)
+                btnRealizar.setEnabled(false);
+                ctx.getAccesoAsincrono().cargar(this,
+                        () -> ctx.getPedidoBO().agregarPedidoExpress(pedidoExpress, detalles),
+                        guardado -> {
+                            btnRealizar.setEnabled(true);
+
+                            if (guardado != null) {
+                                new PantallaPedidoExpressRealizado(pedidoExpress, ctx, pin).setVisible(true);
+                                dispose();
+                            } else {
+                                JOptionPane.showMessageDialog(this, "Error al agregar el pedido.");
+                            }
+                        },
+                        ex -> {
+                            btnRealizar.setEnabled(true);
+                            JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage());
+                        });
 
             } catch (NegocioException ex) {
                 JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage());
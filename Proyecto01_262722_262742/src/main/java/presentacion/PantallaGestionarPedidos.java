@@ -9,9 +9,17 @@ import presentacion.AppContext;
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
 import negocio.Excepciones.NegocioException;
 
 /**
@@ -27,20 +35,32 @@ import negocio.Excepciones.NegocioException;
  * </p>
  * <ul>
  * <li>Muestra una lista de pedidos en formato <b>cards</b> dentro de un
- * {@link JScrollPane}.</li>
+ * {@link JScrollPane}. La lista es un {@link JList} con un renderizador de
+ * cards: sólo se pintan las filas visibles, sin importar cuántas páginas se
+ * hayan cargado.</li>
  * <li>Permite filtrar por <b>Folio</b>, <b>Teléfono</b> o <b>Rango de
  * fechas</b>, además de la vista <b>Todos</b>.</li>
  * <li>Permite cambiar el {@link EstadoPedido} (Listo / Entregado / Cancelado)
  * según el estado actual.</li>
  * <li>Cuando se intenta marcar <b>Entregado</b> un {@link PedidoExpress},
  * solicita el <b>PIN</b> y lo valida con la capa de negocio.</li>
+ * <li>Permite seleccionar varios pedidos (Ctrl/Shift + click) y cambiarlos
+ * al mismo estado con una sola operación; los que no pueden cambiar se
+ * informan al terminar.</li>
  * </ul>
  *
  * <h2>Carga de datos</h2>
  * <p>
- * La pantalla obtiene los pedidos mediante
- * {@code ctx.getPedidoBO().listarPedidos()} y, al filtrar, utiliza
- * {@code ctx.getPedidoBO().listarPedidosFiltro(...)}.
+ * La pantalla obtiene los pedidos por páginas de {@link #TAMANIO_PAGINA}
+ * mediante {@code ctx.getPedidoBO().listarPedidosPagina(...)} y, al filtrar,
+ * utiliza {@code ctx.getPedidoBO().listarPedidosFiltroPagina(...)}. Si hay más
+ * resultados, debajo de la lista aparece el botón <b>Cargar más</b>, que
+ * pide la siguiente página a partir del cursor de la anterior.
+ * </p>
+ *
+ * <p>
+ * Al cambiar el estado de un pedido no se vuelve a consultar la lista: se
+ * actualiza el pedido en el modelo y sólo se repinta su fila.
  * </p>
  *
  * <h2>Validación de entrega Express</h2>
@@ -63,12 +83,39 @@ public class PantallaGestionarPedidos extends JFrame {
     private final AppContext ctx;
 
     /**
-     * Panel contenedor donde se renderizan las cards de pedidos.
+     * Alto de cada fila de la lista: card de 170 px más 14 px de separación.
+     */
+    private static final int ALTO_FILA = 184;
+
+    /**
+     * Pedidos cargados hasta el momento, en el orden en que se muestran.
+     */
+    private final DefaultListModel<Pedido> modelo = new DefaultListModel<>();
+
+    /**
+     * IDs de los pedidos en {@link #modelo}. Un pedido que se marca
+     * 'Entregado' en pantalla pasa al último grupo del paginado y volvería a
+     * llegar en una página posterior; con este conjunto no se agrega dos veces.
      */
-    private JPanel listaCards;
+    private final Set<Integer> idsEnLista = new HashSet<>();
 
     /**
-     * Scroll que envuelve {@link #listaCards} para permitir desplazamiento
+     * Lista que muestra {@link #modelo} como cards.
+     */
+    private JList<Pedido> listaPedidos;
+
+    /**
+     * Renderizador de las cards de {@link #listaPedidos}.
+     */
+    private RenderizadorCardPedido renderizador;
+
+    /**
+     * Mensaje que ocupa el lugar de la lista cuando no hay pedidos.
+     */
+    private JLabel lblVacio;
+
+    /**
+     * Scroll que envuelve {@link #listaPedidos} para permitir desplazamiento
      * vertical.
      */
     private JScrollPane scroll;
@@ -99,6 +146,57 @@ public class PantallaGestionarPedidos extends JFrame {
      */
     private JTextField txtHasta;
 
+    /**
+     * Número de pedidos que se piden por página.
+     */
+    private static final int TAMANIO_PAGINA = 50;
+
+    /**
+     * Filtros de la búsqueda actual; todos en {@code null} equivale a la vista
+     * <b>Todos</b>.
+     */
+    private String filtroFolio;
+    private String filtroTelefono;
+    private LocalDate filtroDesde;
+    private LocalDate filtroHasta;
+
+    /**
+     * Cursor de la siguiente página, o {@code null} si ya se mostró la última.
+     */
+    private CursorPedidos siguienteCursor;
+
+    /**
+     * Botón debajo de la lista que carga la siguiente página.
+     */
+    private JButton btnCargarMas;
+
+    /**
+     * Contenedor de {@link #btnCargarMas}; visible sólo si hay más páginas.
+     */
+    private JPanel panelCargarMas;
+
+    /**
+     * Consulta de página en curso, o {@code null} si no hay ninguna.
+     */
+    private Future<?> cargaActual;
+
+    /**
+     * Barra de acciones para los pedidos seleccionados; visible sólo si hay
+     * más de uno seleccionado.
+     */
+    private JPanel panelSeleccion;
+
+    /**
+     * Texto con el número de pedidos seleccionados.
+     */
+    private JLabel lblSeleccion;
+
+    /**
+     * Botones de {@link #panelSeleccion}; se deshabilitan mientras se aplica un
+     * cambio.
+     */
+    private final List<JButton> botonesSeleccion = new ArrayList<>();
+
     /**
      * <p>
      * Constructor de la pantalla de gestión de pedidos.
@@ -198,17 +296,76 @@ public class PantallaGestionarPedidos extends JFrame {
 
         card.add(north, BorderLayout.NORTH);
 
-        listaCards = new JPanel();
-        listaCards.setOpaque(false);
-        listaCards.setLayout(new BoxLayout(listaCards, BoxLayout.Y_AXIS));
+        renderizador = new RenderizadorCardPedido();
 
-        scroll = new JScrollPane(listaCards);
+        listaPedidos = new JList<>(modelo);
+        listaPedidos.setCellRenderer(renderizador);
+        listaPedidos.setBackground(Color.WHITE);
+        listaPedidos.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        listaPedidos.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                actualizarPanelSeleccion();
+            }
+        });
+        // Con alto y ancho fijos la lista no mide cada pedido al agregar páginas
+        listaPedidos.setFixedCellHeight(ALTO_FILA);
+        listaPedidos.setFixedCellWidth(900);
+
+        MouseAdapter acciones = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int indice = filaEn(e.getPoint());
+                if (indice < 0) {
+                    return;
+                }
+                Pedido pedido = modelo.get(indice);
+                EstadoPedido estado = renderizador.accionEn(pedido, indice,
+                        listaPedidos.getCellBounds(indice, indice), e.getPoint());
+                if (estado != null) {
+                    cambiarEstado(pedido, estado);
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                int indice = filaEn(e.getPoint());
+                boolean sobreBoton = indice >= 0 && renderizador.accionEn(modelo.get(indice), indice,
+                        listaPedidos.getCellBounds(indice, indice), e.getPoint()) != null;
+                listaPedidos.setCursor(sobreBoton
+                        ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR)
+                        : null);
+            }
+        };
+        listaPedidos.addMouseListener(acciones);
+        listaPedidos.addMouseMotionListener(acciones);
+
+        lblVacio = new JLabel("No hay pedidos para mostrar.");
+        lblVacio.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        lblVacio.setForeground(new Color(60, 60, 60));
+        lblVacio.setBorder(new EmptyBorder(10, 10, 10, 10));
+        lblVacio.setVerticalAlignment(SwingConstants.TOP);
+
+        scroll = new JScrollPane(listaPedidos);
         scroll.setBorder(new LineBorder(new Color(60, 60, 60), 2));
         scroll.getViewport().setBackground(Color.WHITE);
         scroll.getVerticalScrollBar().setUnitIncrement(16);
         scroll.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
 
-        card.add(scroll, BorderLayout.CENTER);
+        btnCargarMas = crearBotonAccion("Cargar más", () -> cargarPagina(false));
+
+        panelCargarMas = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
+        panelCargarMas.setOpaque(false);
+        panelCargarMas.setBorder(new EmptyBorder(8, 0, 0, 0));
+        panelCargarMas.add(btnCargarMas);
+        panelCargarMas.setVisible(false);
+
+        JPanel centroLista = new JPanel(new BorderLayout());
+        centroLista.setOpaque(false);
+        centroLista.add(crearPanelSeleccion(), BorderLayout.NORTH);
+        centroLista.add(scroll, BorderLayout.CENTER);
+        centroLista.add(panelCargarMas, BorderLayout.SOUTH);
+
+        card.add(centroLista, BorderLayout.CENTER);
 
         JLabel footer = new JLabel("© 2026 Panadería. Todos los derechos reservados.");
         footer.setFont(new Font("Segoe UI", Font.PLAIN, 11));
@@ -225,207 +382,136 @@ public class PantallaGestionarPedidos extends JFrame {
 
     /**
      * <p>
-     * Recarga la lista completa de pedidos (sin filtros) y repinta las cards.
+     * Quita los filtros y recarga la lista desde la primera página.
+     * </p>
+     */
+    private void refrescar() {
+        filtroFolio = null;
+        filtroTelefono = null;
+        filtroDesde = null;
+        filtroHasta = null;
+        cargarPagina(true);
+    }
+
+    /**
+     * <p>
+     * Carga una página de pedidos con los filtros actuales y la pinta.
      * </p>
      *
      * <p>
-     * Obtiene la información mediante
-     * {@code ctx.getPedidoBO().listarPedidos()}. Si no hay pedidos, muestra un
-     * mensaje informativo.
+     * Sin filtros usa {@code ctx.getPedidoBO().listarPedidosPagina(...)}; con
+     * filtros, {@code ctx.getPedidoBO().listarPedidosFiltroPagina(...)}. En caso
+     * de error de negocio, muestra un {@link JOptionPane}.
      * </p>
      *
      * <p>
-     * En caso de error de negocio, muestra un {@link JOptionPane}.
+     * La consulta corre fuera del hilo de Swing ({@link AccesoAsincrono}).
+     * Reiniciar cancela la carga anterior; pedir la siguiente página mientras
+     * otra carga está en curso no hace nada.
      * </p>
+     *
+     * @param reiniciar {@code true} para empezar desde la primera página y
+     * limpiar la lista; {@code false} para agregar la siguiente página
      */
-    private void refrescar() {
-        listaCards.removeAll();
-
-        try {
-            List<Pedido> pedidos = ctx.getPedidoBO().listarPedidos();
-
-            if (pedidos == null || pedidos.isEmpty()) {
-                JLabel vacio = new JLabel("No hay pedidos para mostrar.");
-                vacio.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-                vacio.setForeground(new Color(60, 60, 60));
-                vacio.setBorder(new EmptyBorder(10, 10, 10, 10));
-                listaCards.add(vacio);
-            } else {
-                int n = 1;
-                for (Pedido p : pedidos) {
-                    listaCards.add(construirCardPedido(p, n++));
-                    listaCards.add(Box.createVerticalStrut(14));
-                }
+    private void cargarPagina(boolean reiniciar) {
+        if (cargaActual != null) {
+            if (!reiniciar) {
+                return; // ya se está cargando; evita pedir dos veces la misma página
             }
-
-        } catch (NegocioException ex) {
-            JOptionPane.showMessageDialog(
-                    this,
-                    ex.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE
-            );
+            ctx.getAccesoAsincrono().cancelar(this, cargaActual);
         }
 
-        listaCards.revalidate();
-        listaCards.repaint();
+        CursorPedidos cursor = reiniciar ? null : siguienteCursor;
+        boolean hayFiltros = filtroFolio != null || filtroTelefono != null
+                || filtroDesde != null || filtroHasta != null;
+
+        String folio = filtroFolio;
+        String telefono = filtroTelefono;
+        LocalDate desde = filtroDesde;
+        LocalDate hasta = filtroHasta;
+
+        btnCargarMas.setEnabled(false);
+        cargaActual = ctx.getAccesoAsincrono().cargar(this,
+                () -> hayFiltros
+                        ? ctx.getPedidoBO().listarPedidosFiltroPagina(
+                                folio, telefono, desde, hasta, TAMANIO_PAGINA, cursor)
+                        : ctx.getPedidoBO().listarPedidosPagina(TAMANIO_PAGINA, cursor),
+                pagina -> {
+                    cargaActual = null;
+                    btnCargarMas.setEnabled(true);
+                    pintarCards(pagina, reiniciar);
+                },
+                ex -> {
+                    cargaActual = null;
+                    btnCargarMas.setEnabled(true);
+                    JOptionPane.showMessageDialog(
+                            this,
+                            ex.getMessage(),
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE
+                    );
+                });
+    }
+
+    /**
+     * Devuelve la fila de la lista que contiene un punto.
+     *
+     * @param punto punto en coordenadas de {@link #listaPedidos}
+     * @return índice de la fila, o -1 si el punto no cae sobre ninguna
+     */
+    private int filaEn(Point punto) {
+        int indice = listaPedidos.locationToIndex(punto);
+        if (indice < 0 || !listaPedidos.getCellBounds(indice, indice).contains(punto)) {
+            return -1;
+        }
+        return indice;
     }
 
     /**
      * <p>
-     * Construye una card visual para un pedido específico.
+     * Crea la barra de acciones para varios pedidos seleccionados.
      * </p>
      *
      * <p>
-     * La card incluye:
+     * Cada botón invoca {@link #cambiarEstadoSeleccion(EstadoPedido)}; el
+     * último quita la selección.
      * </p>
-     * <ul>
-     * <li>Título "Pedido #n" y etiqueta <b>EXPRESS</b> si aplica.</li>
-     * <li>Información de tipo, cliente, folio (solo express), número, estado y
-     * cupón (solo programado).</li>
-     * <li>Fechas de creación/entrega y método de pago.</li>
-     * <li>Total del pedido.</li>
-     * <li>Botones de acción según el {@link EstadoPedido} actual.</li>
-     * </ul>
      *
-     * @param pedido pedido a renderizar
-     * @param numeroVisual número consecutivo mostrado en la card (no
-     * necesariamente el número de pedido real)
-     * @return panel completo de la card
+     * @return panel oculto hasta que se seleccione más de un pedido
      */
-    private JPanel construirCardPedido(Pedido pedido, int numeroVisual) {
-
-        JPanel cont = new JPanel(new BorderLayout(10, 0));
-        cont.setOpaque(true);
-        cont.setBackground(new Color(245, 245, 245));
-        cont.setBorder(new LineBorder(new Color(60, 60, 60), 2));
-        cont.setMaximumSize(new Dimension(Integer.MAX_VALUE, 170));
-        cont.setPreferredSize(new Dimension(1020, 170));
-
-        JPanel izq = new JPanel();
-        izq.setOpaque(false);
-        izq.setBorder(new EmptyBorder(10, 10, 10, 10));
-        izq.setLayout(new BoxLayout(izq, BoxLayout.Y_AXIS));
-
-        JLabel lblPedido = new JLabel("Pedido #" + numeroVisual);
-        lblPedido.setFont(new Font("Segoe UI", Font.BOLD, 15));
-
-        if (pedido instanceof PedidoExpress) {
-            JLabel lblExpress = new JLabel("EXPRESS");
-            lblExpress.setFont(new Font("Segoe UI", Font.BOLD, 13));
-            lblExpress.setForeground(new Color(200, 0, 0));
-
-            JPanel filaTitulo = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 0));
-            filaTitulo.setOpaque(false);
-            filaTitulo.add(lblPedido);
-            filaTitulo.add(lblExpress);
-            izq.add(filaTitulo);
-        } else {
-            izq.add(lblPedido);
-        }
-
-        izq.add(Box.createVerticalStrut(6));
-
-        String tipo = (pedido instanceof PedidoExpress) ? "Express" : "Programado";
-        izq.add(lblInfo("Tipo: " + tipo));
-
-        Cliente c = pedido.getCliente();
-        if (c != null) {
-            izq.add(lblInfo("Cliente: " + nombreCliente(c)));
-        } else {
-            izq.add(lblInfo("Cliente: N/A"));
-        }
-
-        if (pedido instanceof PedidoExpress pe) {
-            izq.add(lblInfo("Folio: " + safe(pe.getFolio())));
-        }
-
-        izq.add(lblInfo("No. pedido: " + pedido.getNumeroPedido()));
-        izq.add(lblInfo("Estado: " + mostrarEnumBonito(pedido.getEstado())));
-
-        if (pedido instanceof PedidoProgramado pp) {
-            izq.add(lblInfo("Cupón: " + (pp.getCupon() == null ? "N/A" : ("#" + pp.getCupon().getId()))));
-        }
-
-        JPanel centro = new JPanel(new GridBagLayout());
-        centro.setOpaque(false);
-        centro.setBorder(new EmptyBorder(18, 0, 10, 0));
-
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.anchor = GridBagConstraints.WEST;
-        gbc.insets = new Insets(6, 0, 6, 0);
-        gbc.gridx = 0;
-        gbc.gridy = 0;
-
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yy  HH:mm");
-
-        String fechaCreacion = (pedido.getFechaCreacion() != null) ? pedido.getFechaCreacion().format(fmt) : "N/A";
-        String fechaEntrega = (pedido.getFechaEntrega() != null) ? pedido.getFechaEntrega().format(fmt) : "N/A";
-
-        MetodoPago mp = pedido.getMetodoPago();
-        String metodoPago = (mp != null) ? mp.toString() : "N/A";
-
-        JPanel fila1 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-        fila1.setOpaque(false);
-        fila1.add(lblInfo("Creación: " + fechaCreacion));
-        centro.add(fila1, gbc);
-        gbc.gridy++;
-
-        JPanel fila2 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-        fila2.setOpaque(false);
-        fila2.add(lblInfo("Entrega: " + fechaEntrega));
-        centro.add(fila2, gbc);
-        gbc.gridy++;
-
-        JPanel fila3 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-        fila3.setOpaque(false);
-        fila3.add(lblInfo("Método de pago: " + metodoPago));
-        centro.add(fila3, gbc);
-        gbc.gridy++;
-
-        JPanel fila4 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-        fila4.setOpaque(false);
-        JLabel lblTotal = new JLabel("Total: $" + Math.round(pedido.getTotal()));
-        lblTotal.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        fila4.add(lblTotal);
-        centro.add(fila4, gbc);
-
-        JPanel der = new JPanel();
-        der.setOpaque(false);
-        der.setBorder(new EmptyBorder(10, 10, 10, 10));
-        der.setPreferredSize(new Dimension(160, 170));
-        der.setLayout(new BoxLayout(der, BoxLayout.Y_AXIS));
-
-        EstadoPedido estado = pedido.getEstado();
-
-        if (estado == EstadoPedido.Pendiente) {
-
-            der.add(crearBotonAccion("Listo", () -> cambiarEstado(pedido, EstadoPedido.Listo)));
-            der.add(Box.createVerticalStrut(10));
-            der.add(crearBotonAccion("Entregado", () -> cambiarEstado(pedido, EstadoPedido.Entregado)));
-            der.add(Box.createVerticalStrut(10));
-            der.add(crearBotonAccion("Cancelar", () -> cambiarEstado(pedido, EstadoPedido.Cancelado)));
-
-        } else if (estado == EstadoPedido.Listo) {
-
-            der.add(crearBotonAccion("Entregado", () -> cambiarEstado(pedido, EstadoPedido.Entregado)));
-            der.add(Box.createVerticalStrut(10));
-            der.add(crearBotonAccion("Cancelar", () -> cambiarEstado(pedido, EstadoPedido.Cancelado)));
-
-        } else {
-            JLabel sin = new JLabel(" ");
-            der.add(sin);
+    private JPanel crearPanelSeleccion() {
+        panelSeleccion = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        panelSeleccion.setOpaque(false);
+        panelSeleccion.setBorder(new EmptyBorder(0, 0, 8, 0));
+
+        lblSeleccion = new JLabel();
+        lblSeleccion.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        panelSeleccion.add(lblSeleccion);
+
+        botonesSeleccion.add(crearBotonAccion("Listo", () -> cambiarEstadoSeleccion(EstadoPedido.Listo)));
+        botonesSeleccion.add(crearBotonAccion("Entregado", () -> cambiarEstadoSeleccion(EstadoPedido.Entregado)));
+        botonesSeleccion.add(crearBotonAccion("Cancelar", () -> cambiarEstadoSeleccion(EstadoPedido.Cancelado)));
+
+        JButton btnQuitar = crearBotonAccion("Quitar selección", () -> listaPedidos.clearSelection());
+        btnQuitar.setPreferredSize(new Dimension(150, 32));
+        btnQuitar.setMaximumSize(new Dimension(150, 32));
+        botonesSeleccion.add(btnQuitar);
+        for (JButton b : botonesSeleccion) {
+            panelSeleccion.add(b);
         }
 
-        JPanel wrapIzq = new JPanel(new FlowLayout(FlowLayout.LEFT, 35, 0));
-        wrapIzq.setOpaque(false);
-        wrapIzq.add(izq);
-
-        cont.add(wrapIzq, BorderLayout.WEST);
-        cont.add(centro, BorderLayout.CENTER);
-        cont.add(der, BorderLayout.EAST);
+        panelSeleccion.setVisible(false);
+        return panelSeleccion;
+    }
 
-        return cont;
+    /**
+     * Muestra {@link #panelSeleccion} con el número de pedidos seleccionados, o
+     * lo oculta si hay uno o ninguno (para uno bastan los botones de su card).
+     */
+    private void actualizarPanelSeleccion() {
+        int seleccionados = listaPedidos.getSelectedIndices().length;
+        lblSeleccion.setText(seleccionados + " pedidos seleccionados:");
+        panelSeleccion.setVisible(seleccionados > 1);
     }
 
     /**
@@ -567,9 +653,8 @@ public class PantallaGestionarPedidos extends JFrame {
      * </ul>
      *
      * <p>
-     * Si hay filtros, consulta con
-     * {@code ctx.getPedidoBO().listarPedidosFiltro(folio, telefono, desde, hasta)}
-     * y repinta con {@link #pintarCards(java.util.List)}.
+     * Si hay filtros, los guarda y carga la primera página con
+     * {@link #cargarPagina(boolean)}.
      * </p>
      */
     private void refrescarConFiltros() {
@@ -609,8 +694,11 @@ public class PantallaGestionarPedidos extends JFrame {
                 return;
             }
 
-            List<Pedido> pedidos = ctx.getPedidoBO().listarPedidosFiltro(folio, telefono, desde, hasta);
-            pintarCards(pedidos);
+            filtroFolio = folio;
+            filtroTelefono = telefono;
+            filtroDesde = desde;
+            filtroHasta = hasta;
+            cargarPagina(true);
 
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this,
@@ -622,35 +710,68 @@ public class PantallaGestionarPedidos extends JFrame {
 
     /**
      * <p>
-     * Pinta la lista de cards a partir de una lista de pedidos ya consultada
-     * (filtrada o completa).
+     * Agrega a la lista una página de pedidos ya consultada (filtrada o
+     * completa).
      * </p>
      *
      * <p>
-     * Si la lista está vacía, muestra un mensaje informativo.
+     * Al reiniciar se vacía el modelo; si no, los pedidos se agregan después de
+     * los ya mostrados. El botón {@link #btnCargarMas} sólo se muestra si hay
+     * más páginas. Si no hay ningún pedido, muestra un mensaje informativo.
      * </p>
      *
-     * @param pedidos lista de pedidos a renderizar
-     */
-    private void pintarCards(List<Pedido> pedidos) {
-        listaCards.removeAll();
-
-        if (pedidos == null || pedidos.isEmpty()) {
-            JLabel vacio = new JLabel("No hay pedidos para mostrar.");
-            vacio.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-            vacio.setForeground(new Color(60, 60, 60));
-            vacio.setBorder(new EmptyBorder(10, 10, 10, 10));
-            listaCards.add(vacio);
-        } else {
-            int n = 1;
-            for (Pedido p : pedidos) {
-                listaCards.add(construirCardPedido(p, n++));
-                listaCards.add(Box.createVerticalStrut(14));
+     * <p>
+     * Los pedidos que ya están en la lista se omiten: al cambiar de estado en
+     * pantalla no se reinicia el paginado, y un pedido entregado reaparecería
+     * en el grupo de 'Entregados'.
+     * </p>
+     *
+     * @param pagina página de pedidos a mostrar
+     * @param reiniciar {@code true} si es la primera página
+     */
+    private void pintarCards(PaginaPedidos pagina, boolean reiniciar) {
+        if (reiniciar) {
+            modelo.clear();
+            idsEnLista.clear();
+            scroll.getVerticalScrollBar().setValue(0);
+        }
+
+        List<Pedido> nuevos = new ArrayList<>(pagina.getPedidos().size());
+        for (Pedido p : pagina.getPedidos()) {
+            if (idsEnLista.add(p.getId())) {
+                nuevos.add(p);
             }
         }
+        modelo.addAll(nuevos);
 
-        listaCards.revalidate();
-        listaCards.repaint();
+        siguienteCursor = pagina.getSiguienteCursor();
+        panelCargarMas.setVisible(pagina.haySiguiente());
+
+        Component vista = modelo.isEmpty() ? lblVacio : listaPedidos;
+        if (scroll.getViewport().getView() != vista) {
+            scroll.setViewportView(vista);
+        }
+    }
+
+    /**
+     * <p>
+     * Refleja el nuevo estado de un pedido sin volver a consultar la lista.
+     * </p>
+     *
+     * <p>
+     * El cambio en el modelo avisa a {@link #listaPedidos} sólo de esa fila, así
+     * que únicamente se repinta la card del pedido.
+     * </p>
+     *
+     * @param pedido pedido que cambió
+     * @param nuevoEstado estado ya guardado en la base de datos
+     */
+    private void actualizarFila(Pedido pedido, EstadoPedido nuevoEstado) {
+        pedido.setEstado(nuevoEstado);
+        int indice = modelo.indexOf(pedido);
+        if (indice >= 0) {
+            modelo.set(indice, pedido);
+        }
     }
 
     /**
@@ -680,6 +801,18 @@ public class PantallaGestionarPedidos extends JFrame {
      * @return botón configurado para la UI de la pantalla
      */
     private JButton crearBotonAccion(String texto, Runnable onClick) {
+        JButton b = crearBoton(texto);
+        b.addActionListener(e -> onClick.run());
+        return b;
+    }
+
+    /**
+     * Crea un botón con el estilo de las cards, sin acción asociada.
+     *
+     * @param texto texto mostrado en el botón
+     * @return botón con estilo
+     */
+    private JButton crearBoton(String texto) {
         JButton b = new JButton(texto);
         b.setPreferredSize(new Dimension(120, 32));
         b.setMaximumSize(new Dimension(120, 32));
@@ -691,8 +824,6 @@ public class PantallaGestionarPedidos extends JFrame {
                 new LineBorder(new Color(60, 60, 60), 2, false),
                 new EmptyBorder(2, 10, 2, 10)
         ));
-
-        b.addActionListener(e -> onClick.run());
         return b;
     }
 
@@ -716,12 +847,12 @@ public class PantallaGestionarPedidos extends JFrame {
      * {@link JOptionPane#showInputDialog(java.awt.Component, java.lang.Object, java.lang.String, int)}.</li>
      * <li>Valida el PIN mediante
      * {@code ctx.getPedidoBO().entregarPedidoExpressConPin(pedido.getId(), pinCapturado)}.</li>
-     * <li>En éxito, invoca {@link #refrescar()}.</li>
+     * <li>En éxito, invoca {@link #actualizarFila(Pedido, EstadoPedido)}.</li>
      * </ul>
      * </li>
      * <li>Para otros casos, actualiza con
      * {@code ctx.getPedidoBO().actualizarEstadoPedido(pedido.getId(), nuevoEstado)}
-     * y refresca.</li>
+     * y actualiza la fila del pedido.</li>
      * </ul>
      *
      * @param pedido pedido a modificar
@@ -761,7 +892,7 @@ public class PantallaGestionarPedidos extends JFrame {
 
             try {
                 ctx.getPedidoBO().entregarPedidoExpressConPin(pedido.getId(), pinCapturado);
-                refrescar();
+                actualizarFila(pedido, nuevoEstado);
             } catch (NegocioException ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -770,7 +901,7 @@ public class PantallaGestionarPedidos extends JFrame {
 
         try {
             ctx.getPedidoBO().actualizarEstadoPedido(pedido.getId(), nuevoEstado);
-            refrescar();
+            actualizarFila(pedido, nuevoEstado);
         } catch (NegocioException ex) {
             JOptionPane.showMessageDialog(
                     this,
@@ -781,6 +912,107 @@ public class PantallaGestionarPedidos extends JFrame {
         }
     }
 
+    /**
+     * <p>
+     * Cambia al mismo estado todos los pedidos seleccionados.
+     * </p>
+     *
+     * <p>
+     * Tras confirmar, aplica el cambio con una sola llamada a
+     * {@code ctx.getPedidoBO().actualizarEstadoPedidos(ids, nuevoEstado)} fuera
+     * del hilo de Swing. Al terminar actualiza las filas de los pedidos que
+     * cambiaron y, si alguno no pudo cambiar, lo informa con su motivo. Los
+     * pedidos express no se entregan por esta vía porque requieren su PIN.
+     * </p>
+     *
+     * @param nuevoEstado estado a asignar
+     */
+    private void cambiarEstadoSeleccion(EstadoPedido nuevoEstado) {
+        List<Pedido> seleccion = listaPedidos.getSelectedValuesList();
+        if (seleccion.isEmpty()) {
+            return;
+        }
+
+        int r = JOptionPane.showConfirmDialog(
+                this,
+                "¿Seguro que deseas cambiar " + seleccion.size() + " pedidos a \"" + mostrarEnumBonito(nuevoEstado) + "\"?",
+                "Confirmar",
+                JOptionPane.YES_NO_OPTION
+        );
+
+        if (r != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        Map<Integer, Pedido> porId = new LinkedHashMap<>();
+        for (Pedido p : seleccion) {
+            porId.put(p.getId(), p);
+        }
+        List<Integer> ids = new ArrayList<>(porId.keySet());
+
+        habilitarBotonesSeleccion(false);
+        ctx.getAccesoAsincrono().cargar(this,
+                () -> ctx.getPedidoBO().actualizarEstadoPedidos(ids, nuevoEstado),
+                resultado -> {
+                    habilitarBotonesSeleccion(true);
+                    for (Integer id : resultado.getAplicados()) {
+                        actualizarFila(porId.get(id), nuevoEstado);
+                    }
+                    listaPedidos.clearSelection();
+
+                    if (resultado.hayRechazados()) {
+                        JOptionPane.showMessageDialog(
+                                this,
+                                resumenRechazados(resultado, porId),
+                                "Algunos pedidos no cambiaron",
+                                JOptionPane.WARNING_MESSAGE
+                        );
+                    }
+                },
+                ex -> {
+                    habilitarBotonesSeleccion(true);
+                    JOptionPane.showMessageDialog(
+                            this,
+                            ex.getMessage(),
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE
+                    );
+                });
+    }
+
+    /**
+     * Arma el mensaje con los pedidos que no cambiaron (hasta 10) y su motivo.
+     *
+     * @param resultado resultado del cambio
+     * @param porId pedidos seleccionados por ID
+     * @return mensaje para el usuario
+     */
+    private String resumenRechazados(ResultadoCambioEstado resultado, Map<Integer, Pedido> porId) {
+        int total = resultado.getAplicados().size() + resultado.getRechazados().size();
+        StringBuilder msg = new StringBuilder()
+                .append("Se cambiaron ").append(resultado.getAplicados().size())
+                .append(" de ").append(total).append(" pedidos.\n\nNo cambiaron:");
+
+        int mostrados = 0;
+        for (Map.Entry<Integer, String> e : resultado.getRechazados().entrySet()) {
+            if (mostrados == 10) {
+                msg.append("\n... y ").append(resultado.getRechazados().size() - mostrados).append(" más.");
+                break;
+            }
+            Pedido p = porId.get(e.getKey());
+            msg.append("\n• No. ").append(p != null ? p.getNumeroPedido() : e.getKey())
+                    .append(": ").append(e.getValue());
+            mostrados++;
+        }
+        return msg.toString();
+    }
+
+    private void habilitarBotonesSeleccion(boolean habilitar) {
+        for (JButton b : botonesSeleccion) {
+            b.setEnabled(habilitar);
+        }
+    }
+
     /**
      * Construye el nombre completo de un cliente usando nombres y apellidos,
      * con manejo de nulos.
@@ -824,4 +1056,240 @@ public class PantallaGestionarPedidos extends JFrame {
         }
         return e.name().replace("_", " ");
     }
+
+    /**
+     * <p>
+     * Renderizador de las cards de pedidos de {@link #listaPedidos}.
+     * </p>
+     *
+     * <p>
+     * Hay un solo juego de componentes que se rellena con los datos de cada
+     * fila justo antes de pintarla, de modo que el costo de la lista no crece
+     * con el número de pedidos cargados. La card incluye:
+     * </p>
+     * <ul>
+     * <li>Título "Pedido #n" y etiqueta <b>EXPRESS</b> si aplica.</li>
+     * <li>Información de tipo, cliente, folio (solo express), número, estado y
+     * cupón (solo programado).</li>
+     * <li>Fechas de creación/entrega y método de pago.</li>
+     * <li>Total del pedido.</li>
+     * <li>Botones de acción según el {@link EstadoPedido} actual.</li>
+     * </ul>
+     *
+     * <p>
+     * Los botones sólo se pintan; el click lo resuelve
+     * {@link #accionEn(Pedido, int, Rectangle, Point)}.
+     * </p>
+     */
+    private final class RenderizadorCardPedido implements ListCellRenderer<Pedido> {
+
+        /**
+         * Propiedad de cada botón con el {@link EstadoPedido} al que lleva.
+         */
+        private static final String PROP_ESTADO = "estadoDestino";
+
+        private final DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yy  HH:mm");
+
+        private final JPanel celda = new JPanel(new BorderLayout());
+
+        private final JLabel lblPedido = new JLabel();
+        private final JLabel lblExpress = new JLabel("EXPRESS");
+        private final JLabel lblTipo = lblInfo("");
+        private final JLabel lblCliente = lblInfo("");
+        private final JLabel lblFolio = lblInfo("");
+        private final JLabel lblNumero = lblInfo("");
+        private final JLabel lblEstado = lblInfo("");
+        private final JLabel lblCupon = lblInfo("");
+
+        private final JLabel lblCreacion = lblInfo("");
+        private final JLabel lblEntrega = lblInfo("");
+        private final JLabel lblMetodo = lblInfo("");
+        private final JLabel lblTotal = new JLabel();
+
+        private final JComponent accionListo;
+        private final JComponent accionEntregado;
+        private final JComponent accionCancelar;
+
+        private final Color fondo = new Color(245, 245, 245);
+        private final Color fondoSeleccionado = new Color(232, 214, 186);
+        private final Border borde = new LineBorder(new Color(60, 60, 60), 2);
+        private final Border bordeSeleccionado = new LineBorder(new Color(30, 30, 30), 3);
+
+        /**
+         * Card visible; cambia de fondo y borde cuando el pedido está seleccionado.
+         */
+        private final JPanel cont = new JPanel(new BorderLayout(10, 0));
+
+        RenderizadorCardPedido() {
+            cont.setOpaque(true);
+            cont.setBackground(fondo);
+            cont.setBorder(borde);
+
+            JPanel izq = new JPanel();
+            izq.setOpaque(false);
+            izq.setBorder(new EmptyBorder(10, 10, 10, 10));
+            izq.setLayout(new BoxLayout(izq, BoxLayout.Y_AXIS));
+
+            lblPedido.setFont(new Font("Segoe UI", Font.BOLD, 15));
+            lblExpress.setFont(new Font("Segoe UI", Font.BOLD, 13));
+            lblExpress.setForeground(new Color(200, 0, 0));
+
+            JPanel filaTitulo = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 0));
+            filaTitulo.setOpaque(false);
+            filaTitulo.setAlignmentX(Component.LEFT_ALIGNMENT);
+            filaTitulo.add(lblPedido);
+            filaTitulo.add(lblExpress);
+
+            izq.add(filaTitulo);
+            izq.add(Box.createVerticalStrut(6));
+            izq.add(lblTipo);
+            izq.add(lblCliente);
+            izq.add(lblFolio);
+            izq.add(lblNumero);
+            izq.add(lblEstado);
+            izq.add(lblCupon);
+
+            JPanel centro = new JPanel(new GridBagLayout());
+            centro.setOpaque(false);
+            centro.setBorder(new EmptyBorder(18, 0, 10, 0));
+
+            GridBagConstraints gbc = new GridBagConstraints();
+            gbc.anchor = GridBagConstraints.WEST;
+            gbc.insets = new Insets(6, 0, 6, 0);
+            gbc.gridx = 0;
+            gbc.gridy = 0;
+
+            lblTotal.setFont(new Font("Segoe UI", Font.BOLD, 16));
+
+            for (JLabel l : new JLabel[]{lblCreacion, lblEntrega, lblMetodo, lblTotal}) {
+                JPanel fila = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+                fila.setOpaque(false);
+                fila.add(l);
+                centro.add(fila, gbc);
+                gbc.gridy++;
+            }
+
+            JPanel der = new JPanel();
+            der.setOpaque(false);
+            der.setBorder(new EmptyBorder(10, 10, 10, 10));
+            der.setPreferredSize(new Dimension(160, 170));
+            der.setLayout(new BoxLayout(der, BoxLayout.Y_AXIS));
+
+            accionListo = crearAccion("Listo", EstadoPedido.Listo, true);
+            accionEntregado = crearAccion("Entregado", EstadoPedido.Entregado, true);
+            accionCancelar = crearAccion("Cancelar", EstadoPedido.Cancelado, false);
+            der.add(accionListo);
+            der.add(accionEntregado);
+            der.add(accionCancelar);
+
+            JPanel wrapIzq = new JPanel(new FlowLayout(FlowLayout.LEFT, 35, 0));
+            wrapIzq.setOpaque(false);
+            wrapIzq.add(izq);
+
+            cont.add(wrapIzq, BorderLayout.WEST);
+            cont.add(centro, BorderLayout.CENTER);
+            cont.add(der, BorderLayout.EAST);
+
+            celda.setBackground(Color.WHITE);
+            celda.setBorder(new EmptyBorder(0, 0, ALTO_FILA - 170, 0));
+            celda.add(cont, BorderLayout.CENTER);
+        }
+
+        /**
+         * Crea un botón de acción con su separación inferior; se muestra u
+         * oculta completo según el estado del pedido.
+         */
+        private JComponent crearAccion(String texto, EstadoPedido destino, boolean separacion) {
+            JButton b = crearBoton(texto);
+            b.putClientProperty(PROP_ESTADO, destino);
+
+            Box caja = Box.createVerticalBox();
+            caja.add(b);
+            if (separacion) {
+                caja.add(Box.createVerticalStrut(10));
+            }
+            return caja;
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Pedido> lista, Pedido pedido,
+                int indice, boolean seleccionado, boolean conFoco) {
+
+            boolean express = pedido instanceof PedidoExpress;
+
+            cont.setBackground(seleccionado ? fondoSeleccionado : fondo);
+            cont.setBorder(seleccionado ? bordeSeleccionado : borde);
+
+            lblPedido.setText("Pedido #" + (indice + 1));
+            lblExpress.setVisible(express);
+
+            lblTipo.setText("Tipo: " + (express ? "Express" : "Programado"));
+
+            Cliente c = pedido.getCliente();
+            lblCliente.setText("Cliente: " + (c != null ? nombreCliente(c) : "N/A"));
+
+            lblFolio.setVisible(express);
+            if (pedido instanceof PedidoExpress pe) {
+                lblFolio.setText("Folio: " + safe(pe.getFolio()));
+            }
+
+            lblNumero.setText("No. pedido: " + pedido.getNumeroPedido());
+            lblEstado.setText("Estado: " + mostrarEnumBonito(pedido.getEstado()));
+
+            lblCupon.setVisible(pedido instanceof PedidoProgramado);
+            if (pedido instanceof PedidoProgramado pp) {
+                lblCupon.setText("Cupón: " + (pp.getCupon() == null ? "N/A" : ("#" + pp.getCupon().getId())));
+            }
+
+            lblCreacion.setText("Creación: " + (pedido.getFechaCreacion() != null ? pedido.getFechaCreacion().format(fmt) : "N/A"));
+            lblEntrega.setText("Entrega: " + (pedido.getFechaEntrega() != null ? pedido.getFechaEntrega().format(fmt) : "N/A"));
+
+            MetodoPago mp = pedido.getMetodoPago();
+            lblMetodo.setText("Método de pago: " + (mp != null ? mp.toString() : "N/A"));
+            lblTotal.setText("Total: $" + Math.round(pedido.getTotal()));
+
+            EstadoPedido estado = pedido.getEstado();
+            accionListo.setVisible(MaquinaEstadosPedido.permite(estado, EstadoPedido.Listo));
+            accionEntregado.setVisible(MaquinaEstadosPedido.permite(estado, EstadoPedido.Entregado));
+            accionCancelar.setVisible(MaquinaEstadosPedido.permite(estado, EstadoPedido.Cancelado));
+
+            return celda;
+        }
+
+        /**
+         * Indica qué botón de la card de un pedido está bajo un punto de la
+         * lista.
+         *
+         * <p>
+         * Rellena la card con el pedido, la acomoda al tamaño de su celda y
+         * busca el componente bajo el punto, igual que si la card fuera real.
+         * </p>
+         *
+         * @param pedido pedido de la fila
+         * @param indice índice de la fila
+         * @param limites límites de la celda en {@link #listaPedidos}
+         * @param punto punto en coordenadas de {@link #listaPedidos}
+         * @return estado al que lleva el botón, o {@code null} si no hay botón
+         */
+        EstadoPedido accionEn(Pedido pedido, int indice, Rectangle limites, Point punto) {
+            getListCellRendererComponent(listaPedidos, pedido, indice, false, false);
+            celda.setBounds(0, 0, limites.width, limites.height);
+            acomodar(celda);
+
+            Component c = SwingUtilities.getDeepestComponentAt(celda, punto.x - limites.x, punto.y - limites.y);
+            if (c instanceof JButton b) {
+                return (EstadoPedido) b.getClientProperty(PROP_ESTADO);
+            }
+            return null;
+        }
+
+        private void acomodar(Component c) {
+            if (c instanceof Container cont) {
+                cont.doLayout();
+                for (Component hijo : cont.getComponents()) {
+                    acomodar(hijo);
+                }
+            }
+        }
+    }
 }
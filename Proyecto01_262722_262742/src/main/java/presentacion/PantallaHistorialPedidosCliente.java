@@ -9,7 +9,9 @@ import java.awt.*;
 import java.awt.event.ActionListener;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <h1>PantallaHistorialPedidosCliente</h1>
@@ -120,6 +122,18 @@ public class PantallaHistorialPedidosCliente extends JFrame {
      */
     private final DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yy");
 
+    /**
+     * Detalles de los pedidos mostrados, por ID de pedido. Se consultan todos
+     * juntos en {@link #consultarDetalles(List)} antes de construir las cards.
+     */
+    private Map<Integer, List<DetallePedido>> detallesPorPedido = Map.of();
+
+    /**
+     * Subtotales de los pedidos programados mostrados, por ID de pedido. Se suman
+     * en memoria a partir de {@link #detallesPorPedido}.
+     */
+    private Map<Integer, Float> subtotalesPorPedido = Map.of();
+
     /**
      * <p>
      * Constructor de la pantalla de historial de pedidos del cliente.
@@ -306,6 +320,8 @@ public class PantallaHistorialPedidosCliente extends JFrame {
                 vacio.setBorder(new EmptyBorder(20, 10, 0, 0));
                 contenedorCards.add(vacio);
             } else {
+                consultarDetalles(pedidos);
+
                 int idx = 1;
                 for (Pedido p : pedidos) {
                     contenedorCards.add(crearCardPedido(idx++, p));
@@ -323,6 +339,35 @@ public class PantallaHistorialPedidosCliente extends JFrame {
         contenedorCards.repaint();
     }
 
+    /**
+     * <p>
+     * Consulta de una sola vez los detalles de todos los pedidos, en lugar de
+     * consultarlos por card. Los subtotales de los programados se suman de esos
+     * mismos detalles, sin otra consulta.
+     * </p>
+     *
+     * @param pedidos pedidos que se van a mostrar
+     * @throws NegocioException si falla la consulta de detalles
+     */
+    private void consultarDetalles(List<Pedido> pedidos) throws NegocioException {
+        List<Integer> ids = pedidos.stream().map(Pedido::getId).toList();
+
+        detallesPorPedido = ctx.getDetallePedidoBO().listarDetallesPorPedidos(ids);
+
+        Map<Integer, Float> subtotales = new HashMap<>();
+        for (Pedido p : pedidos) {
+            if (!(p instanceof PedidoProgramado)) {
+                continue;
+            }
+            float subtotal = 0;
+            for (DetallePedido d : detallesPorPedido.getOrDefault(p.getId(), List.of())) {
+                subtotal += d.getSubtotal();
+            }
+            subtotales.put(p.getId(), subtotal);
+        }
+        subtotalesPorPedido = subtotales;
+    }
+
     /**
      * <p>
      * Construye una tarjeta (card) para visualizar un pedido y sus detalles.
@@ -339,18 +384,16 @@ public class PantallaHistorialPedidosCliente extends JFrame {
      * </ul>
      *
      * <p>
-     * Para pedidos programados, se consulta el subtotal con
-     * {@code ctx.getDetallePedidoBO().obtenerSubtotalPedido(pp.getId())}.
+     * Los detalles y el subtotal (para pedidos programados) se toman de lo ya
+     * consultado por {@link #consultarDetalles(List)}.
      * </p>
      *
      * @param numeroVisual número consecutivo mostrado en la UI (Pedido #1,
      * Pedido #2, ...)
      * @param pedido pedido a renderizar
      * @return panel construido con la card del pedido
-     * @throws NegocioException si ocurre un error al consultar datos
-     * relacionados al pedido
      */
-    private JPanel crearCardPedido(int numeroVisual, Pedido pedido) throws NegocioException {
+    private JPanel crearCardPedido(int numeroVisual, Pedido pedido) {
 
         JPanel card = new JPanel(new BorderLayout());
         card.setBackground(Color.WHITE);
@@ -387,7 +430,7 @@ public class PantallaHistorialPedidosCliente extends JFrame {
             izquierda.add(labelInfo("Número de pedido: " + pp.getNumeroPedido()));
             izquierda.add(labelInfo("Fecha: " + (pp.getFechaCreacion() != null ? pp.getFechaCreacion().format(fmt) : "")));
             izquierda.add(labelInfo("Estado: " + pp.getEstado()));
-            izquierda.add(labelInfo("Subtotal: $" + ctx.getDetallePedidoBO().obtenerSubtotalPedido(pp.getId())));
+            izquierda.add(labelInfo("Subtotal: $" + subtotalesPorPedido.getOrDefault(pp.getId(), 0f)));
 
             String cuponTxt = "N/A";
             if (pp.getCupon() != null && pp.getCupon().getNombre() != null && !pp.getCupon().getNombre().isBlank()) {
@@ -425,7 +468,7 @@ public class PantallaHistorialPedidosCliente extends JFrame {
         lista.setOpaque(false);
         lista.setLayout(new BoxLayout(lista, BoxLayout.Y_AXIS));
 
-        List<DetallePedido> detalles = ctx.getDetallePedidoBO().listarDetallesPorPedido(pedido.getId());
+        List<DetallePedido> detalles = detallesPorPedido.get(pedido.getId());
 
         if (detalles != null) {
             for (DetallePedido d : detalles) {
@@ -600,6 +643,14 @@ public class PantallaHistorialPedidosCliente extends JFrame {
             vacio.setBorder(new EmptyBorder(20, 10, 0, 0));
             contenedorCards.add(vacio);
         } else {
+            try {
+                consultarDetalles(pedidos);
+            } catch (NegocioException ex) {
+                detallesPorPedido = Map.of();
+                subtotalesPorPedido = Map.of();
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+
             int idx = 1;
             for (Pedido p : pedidos) {
                 try {
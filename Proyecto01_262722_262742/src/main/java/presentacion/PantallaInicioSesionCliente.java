@@ -11,7 +11,6 @@ import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import javax.swing.text.JTextComponent;
-import negocio.Excepciones.NegocioException;
 
 /**
  * <h1>PantallaInicioSesionCliente</h1>
@@ -38,7 +37,9 @@ import negocio.Excepciones.NegocioException;
  * <h2>Autenticación</h2>
  * <p>
  * Al presionar <b>Iniciar Sesión</b> se consulta al cliente con
- * {@code ctx.getClienteBO().consultarCliente(usuario, password)}. Si el cliente
+ * {@code ctx.getClienteBO().consultarCliente(usuario, password)} mediante
+ * {@link AccesoAsincrono}, para no congelar la ventana mientras se consulta y se
+ * verifica la contraseña. Si el cliente
  * está {@link EstadoCliente#Inactivo}, se muestra un aviso. En caso contrario,
  * se guarda la sesión con {@code ctx.setClienteActual(cliente)} y se navega a
  * {@link PantallaSesionIniciadaCliente}.
@@ -264,24 +265,30 @@ public class PantallaInicioSesionCliente extends JFrame {
         });
 
         btnIniciar.addActionListener(e -> {
-            try {
-                String usuario = txtUsuario.getText().trim();
-                String password = new String(txtContrasena.getPassword());
-
-                Cliente cliente = ctx.getClienteBO().consultarCliente(usuario, password);
-
-                if (cliente.getEstado() == EstadoCliente.Inactivo) {
-                    JOptionPane.showMessageDialog(this, "Cliente inactivo");
-                } else {
-                    // guardar sesión
-                    ctx.setClienteActual(cliente);
-
-                    new PantallaSesionIniciadaCliente(ctx).setVisible(true);
-                    dispose();
-                }
-            } catch (NegocioException ex) {
-                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            String usuario = txtUsuario.getText().trim();
+            String password = new String(txtContrasena.getPassword());
+
+            // La consulta y la verificación BCrypt corren fuera del hilo de Swing
+            btnIniciar.setEnabled(false);
+            ctx.getAccesoAsincrono().cargar(this,
+                    () -> ctx.getClienteBO().consultarCliente(usuario, password),
+                    cliente -> {
+                        btnIniciar.setEnabled(true);
+
+                        if (cliente.getEstado() == EstadoCliente.Inactivo) {
+                            JOptionPane.showMessageDialog(this, "Cliente inactivo");
+                        } else {
+                            // guardar sesión
+                            ctx.setClienteActual(cliente);
+
+                            new PantallaSesionIniciadaCliente(ctx).setVisible(true);
+                            dispose();
+                        }
+                    },
+                    ex -> {
+                        btnIniciar.setEnabled(true);
+                        JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    });
         });
 
         btnCrear.addActionListener(e -> {
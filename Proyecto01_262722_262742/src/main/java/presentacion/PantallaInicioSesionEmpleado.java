@@ -9,7 +9,6 @@ import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.MouseEvent;
-import negocio.Excepciones.NegocioException;
 
 /**
  * <h1>PantallaInicioSesionEmpleado</h1>
@@ -253,18 +252,23 @@ public class PantallaInicioSesionEmpleado extends JFrame {
                 return;
             }
 
-            try {
-                Empleado emp = ctx.getUsuarioBO().iniciarSesionEmpleado(usuario, contrasenia);
-
-                // guardar sesión
-                ctx.setEmpleadoActual(emp);
-
-                new MenuEmpleado(ctx).setVisible(true);
-                dispose();
-
-            } catch (NegocioException ex) {
-                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            // La consulta y la verificación BCrypt corren fuera del hilo de Swing
+            btnIniciar.setEnabled(false);
+            ctx.getAccesoAsincrono().cargar(this,
+                    () -> ctx.getUsuarioBO().iniciarSesionEmpleado(usuario, contrasenia),
+                    emp -> {
+                        btnIniciar.setEnabled(true);
+
+                        // guardar sesión
+                        ctx.setEmpleadoActual(emp);
+
+                        new MenuEmpleado(ctx).setVisible(true);
+                        dispose();
+                    },
+                    ex -> {
+                        btnIniciar.setEnabled(true);
+                        JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    });
         });
 
         /**
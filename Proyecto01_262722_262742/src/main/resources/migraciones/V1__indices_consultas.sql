@@ -0,0 +1,25 @@
+-- V1: indices secundarios para los predicados frecuentes de los DAOs.
+-- InnoDB agrega la llave primaria (id) al final de cada indice secundario,
+-- por lo que estos indices tambien cubren el id que las consultas necesitan.
+
+-- PedidoDAO.contarPedidosActivosPorCliente:
+--   WHERE id_cliente = ? AND estado NOT IN ('Entregado', 'Cancelado')
+-- El conteo se resuelve solo con el indice (covering), sin leer filas.
+CREATE INDEX idx_pedidos_cliente_estado ON Pedidos(id_cliente, estado);
+
+-- PedidoDAO.listarPedidosPorCliente / listarPedidosPorClienteFiltro:
+--   WHERE id_cliente = ? [AND fecha_creacion BETWEEN ...] ORDER BY fecha_creacion DESC
+CREATE INDEX idx_pedidos_cliente_fecha ON Pedidos(id_cliente, fecha_creacion);
+
+-- Filtros por rango de fechas y paginacion por cursor:
+--   fecha_creacion >= ? AND fecha_creacion <= ?
+--   ORDER BY fecha_creacion DESC, id DESC LIMIT ?
+CREATE INDEX idx_pedidos_fecha_creacion ON Pedidos(fecha_creacion);
+
+-- PedidoDAO.existeFolio y filtro por folio: WHERE folio = ?
+CREATE INDEX idx_pedidos_express_folio ON PedidosExpress(folio);
+
+-- Busqueda de pedidos por telefono: join Telefonos -> Clientes por telefono.
+CREATE INDEX idx_telefonos_telefono ON Telefonos(telefono, id_cliente);
+
+-- Cupones.nombre ya es UNIQUE en el esquema (CuponDAO.consultarCupon usa ese indice).
@@ -0,0 +1,14 @@
+-- V2: tabla de secuencias hi/lo para bases creadas antes de que existiera.
+-- En bases creadas con ScriptPanaderia.sql la tabla y sus filas ya existen
+-- y estas sentencias no cambian nada.
+
+CREATE TABLE IF NOT EXISTS Secuencias(
+	nombre VARCHAR(30) PRIMARY KEY,
+    valor BIGINT NOT NULL
+);
+
+INSERT IGNORE INTO Secuencias(nombre, valor)
+SELECT "numero_pedido", IFNULL(MAX(numero_pedido), 0) FROM Pedidos;
+
+INSERT IGNORE INTO Secuencias(nombre, valor)
+SELECT "folio_express", IFNULL(MAX(CAST(SUBSTRING(folio, 3) AS UNSIGNED)), 0) FROM PedidosExpress;
@@ -0,0 +1,31 @@
+-- V3: busqueda de pedidos por telefono servida desde indices.
+-- Ver persistencia.DAOs.IndiceTelefonos.
+
+-- Telefono normalizado (solo digitos), lo llenan los DAOs al insertar.
+ALTER TABLE Telefonos ADD COLUMN telefono_normalizado VARCHAR(15) NOT NULL DEFAULT '';
+
+UPDATE Telefonos SET telefono_normalizado = LEFT(REGEXP_REPLACE(telefono, '[^0-9]', ''), 15);
+
+CREATE INDEX idx_telefonos_normalizado ON Telefonos(telefono_normalizado, id_cliente);
+
+-- Todos los sufijos de cada telefono normalizado: un fragmento esta contenido en el
+-- numero si es prefijo de alguno de sus sufijos, y la busqueda por prefijo usa el indice.
+-- Un sufijo igual al fragmento completo cubre tambien la busqueda por terminacion.
+CREATE TABLE IF NOT EXISTS TelefonosSufijos(
+	id_telefono INT NOT NULL,
+    sufijo VARCHAR(15) NOT NULL,
+    id_cliente INT NOT NULL,
+    PRIMARY KEY(id_telefono, sufijo),
+    INDEX idx_telefonos_sufijos_sufijo(sufijo, id_cliente),
+    FOREIGN KEY(id_telefono) REFERENCES Telefonos(id) ON DELETE CASCADE
+);
+
+INSERT IGNORE INTO TelefonosSufijos(id_telefono, sufijo, id_cliente)
+WITH RECURSIVE posiciones(n) AS (
+    SELECT 1
+    UNION ALL
+    SELECT n + 1 FROM posiciones WHERE n < 15
+)
+SELECT t.id, SUBSTRING(t.telefono_normalizado, posiciones.n), t.id_cliente
+FROM Telefonos t
+JOIN posiciones ON posiciones.n <= CHAR_LENGTH(t.telefono_normalizado);
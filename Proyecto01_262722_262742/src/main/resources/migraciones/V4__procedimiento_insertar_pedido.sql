@@ -0,0 +1,90 @@
+-- V4: registro de un pedido completo en el servidor, en una sola llamada.
+-- Ver persistencia.DAOs.InsertorPedidoProcedimiento.
+--
+-- Recibe el encabezado y los detalles como arreglo JSON:
+--   [{"id_producto": 1, "cantidad": 2, "precio": 18, "total": 36, "nota": "..."}, ...]
+-- Si p_numero_pedido llega NULL, se toma de la secuencia "numero_pedido".
+-- Devuelve el id y el numero del pedido en los parametros OUT, y los ids de los
+-- detalles (en el orden del arreglo) como resultado.
+--
+-- A diferencia de sp_insertar_empleado no abre su propia transaccion: START
+-- TRANSACTION confirmaria la transaccion del llamador (la unidad de trabajo que
+-- ya cuenta los pedidos activos del cliente). El commit lo hace quien llama.
+
+DROP PROCEDURE IF EXISTS sp_insertar_pedido;
+
+DELIMITER $$
+
+CREATE PROCEDURE sp_insertar_pedido(
+    IN p_tipo VARCHAR(10),
+    IN p_estado VARCHAR(20),
+    IN p_fecha_creacion DATETIME,
+    IN p_fecha_entrega DATETIME,
+    IN p_metodo_pago VARCHAR(10),
+    IN p_total FLOAT,
+    INOUT p_numero_pedido INT,
+    IN p_id_cliente INT,
+    IN p_id_cupon INT,
+    IN p_pin VARCHAR(100),
+    IN p_folio VARCHAR(10),
+    IN p_detalles JSON,
+    OUT p_id_pedido INT
+)
+BEGIN
+
+    IF p_detalles IS NULL OR JSON_LENGTH(p_detalles) = 0 THEN
+        SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'No se puede insertar un pedido sin detalles.';
+    END IF;
+
+    IF p_numero_pedido IS NULL THEN
+        UPDATE Secuencias SET valor = LAST_INSERT_ID(valor + 1) WHERE nombre = 'numero_pedido';
+        SET p_numero_pedido = LAST_INSERT_ID();
+    END IF;
+
+    INSERT INTO Pedidos(estado, fecha_creacion, fecha_entrega, metodo_pago, total, numero_pedido, id_cliente)
+    VALUES (p_estado, p_fecha_creacion, p_fecha_entrega, p_metodo_pago, p_total, p_numero_pedido, p_id_cliente);
+
+    SET p_id_pedido = LAST_INSERT_ID();
+
+    INSERT INTO DetallesPedidos(nota, cantidad, precio, total, id_pedido, id_producto)
+    SELECT d.nota, d.cantidad, d.precio, d.total, p_id_pedido, d.id_producto
+    FROM JSON_TABLE(p_detalles, '$[*]' COLUMNS(
+        orden FOR ORDINALITY,
+        id_producto INT PATH '$.id_producto' ERROR ON EMPTY,
+        cantidad INT PATH '$.cantidad' ERROR ON EMPTY,
+        precio FLOAT PATH '$.precio' ERROR ON EMPTY,
+        total FLOAT PATH '$.total' ERROR ON EMPTY,
+        nota VARCHAR(100) PATH '$.nota'
+    )) d
+    ORDER BY d.orden;
+
+    IF p_tipo = 'Express' THEN
+
+        INSERT INTO PedidosExpress(id_pedido, pin, folio)
+        VALUES (p_id_pedido, p_pin, p_folio);
+
+    ELSE
+
+        -- Mismo canje condicional que el camino del cliente
+        IF p_id_cupon IS NOT NULL THEN
+            UPDATE Cupones SET numero_usos = numero_usos + 1
+            WHERE id = p_id_cupon
+              AND numero_usos < tope_usos
+              AND fecha_inicio <= CURDATE()
+              AND (fecha_vencimiento IS NULL OR fecha_vencimiento > CURDATE());
+
+            IF ROW_COUNT() = 0 THEN
+                SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'El cupón no está vigente o llegó a su límite de usos.';
+            END IF;
+        END IF;
+
+        INSERT INTO PedidosProgramados(id_pedido, id_cupon)
+        VALUES (p_id_pedido, p_id_cupon);
+
+    END IF;
+
+    SELECT id FROM DetallesPedidos WHERE id_pedido = p_id_pedido ORDER BY id;
+
+END $$
+
+DELIMITER ;
@@ -0,0 +1,67 @@
+-- V5: contador de pedidos activos por cliente para la regla de 3 pedidos activos.
+-- Ver PedidoDAO.contarPedidosActivosPorCliente y ReconciliadorPedidosActivos.
+--
+-- Un pedido esta activo si no esta 'Entregado' ni 'Cancelado' (el mismo criterio
+-- que el conteo anterior). Los triggers mantienen el contador en la misma
+-- transaccion que inserta el pedido o cambia su estado, sin importar quien lo haga
+-- (PedidoDAO, sp_insertar_pedido o una sentencia manual).
+
+CREATE TABLE IF NOT EXISTS PedidosActivosClientes(
+	id_cliente INT PRIMARY KEY,
+    activos INT NOT NULL DEFAULT 0,
+    FOREIGN KEY(id_cliente) REFERENCES Usuarios(id)
+);
+
+DROP TRIGGER IF EXISTS trg_pedidos_activos_insertar;
+
+DROP TRIGGER IF EXISTS trg_pedidos_activos_actualizar;
+
+DELIMITER $$
+
+CREATE TRIGGER trg_pedidos_activos_insertar
+AFTER INSERT ON Pedidos
+FOR EACH ROW
+BEGIN
+    IF NEW.id_cliente IS NOT NULL AND NEW.estado NOT IN ('Entregado', 'Cancelado') THEN
+        INSERT INTO PedidosActivosClientes(id_cliente, activos)
+        VALUES (NEW.id_cliente, 1)
+        ON DUPLICATE KEY UPDATE activos = activos + 1;
+    END IF;
+END$$
+
+-- Solo escribe si el pedido cambio de cliente o paso de activo a inactivo (o al
+-- reves); Pendiente -> Listo no toca el contador.
+CREATE TRIGGER trg_pedidos_activos_actualizar
+AFTER UPDATE ON Pedidos
+FOR EACH ROW
+BEGIN
+    IF NOT (OLD.id_cliente <=> NEW.id_cliente)
+       OR (OLD.estado IN ('Entregado', 'Cancelado')) <> (NEW.estado IN ('Entregado', 'Cancelado')) THEN
+
+        IF OLD.id_cliente IS NOT NULL AND OLD.estado NOT IN ('Entregado', 'Cancelado') THEN
+            UPDATE PedidosActivosClientes SET activos = GREATEST(activos - 1, 0)
+            WHERE id_cliente = OLD.id_cliente;
+        END IF;
+
+        IF NEW.id_cliente IS NOT NULL AND NEW.estado NOT IN ('Entregado', 'Cancelado') THEN
+            INSERT INTO PedidosActivosClientes(id_cliente, activos)
+            VALUES (NEW.id_cliente, 1)
+            ON DUPLICATE KEY UPDATE activos = activos + 1;
+        END IF;
+
+    END IF;
+END$$
+
+DELIMITER ;
+
+-- Valores iniciales a partir de los pedidos existentes
+INSERT INTO PedidosActivosClientes(id_cliente, activos)
+SELECT a.id_cliente, a.total
+FROM (
+    SELECT id_cliente, COUNT(*) AS total
+    FROM Pedidos
+    WHERE id_cliente IS NOT NULL
+      AND estado NOT IN ('Entregado', 'Cancelado')
+    GROUP BY id_cliente
+) a
+ON DUPLICATE KEY UPDATE activos = a.total;
@@ -0,0 +1,12 @@
+-- V6: grupo de cada pedido para la paginacion por cursor de los listados.
+-- Ver PedidoDAO.consultarGrupo.
+--
+-- Los listados muestran primero los pedidos no entregados (grupo 0) y despues los
+-- entregados (grupo 1), cada grupo por fecha_creacion DESC, id DESC. Con el filtro
+-- estado <> 'Entregado' ningun indice sirve: se recorre idx_pedidos_fecha_creacion
+-- saltando los entregados, y si hay menos pedidos activos que la pagina se lee la
+-- tabla completa. Con el grupo como columna, cada pagina es un rango del indice.
+
+ALTER TABLE Pedidos ADD COLUMN grupo TINYINT AS (estado = 'Entregado') STORED;
+
+CREATE INDEX idx_pedidos_grupo_fecha ON Pedidos(grupo, fecha_creacion, id);
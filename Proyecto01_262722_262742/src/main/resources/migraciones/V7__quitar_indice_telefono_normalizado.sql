@@ -0,0 +1,6 @@
+-- V7: quita idx_telefonos_normalizado (creado en V3).
+-- La busqueda por telefono se sirve desde TelefonosSufijos (ver
+-- persistencia.DAOs.IndiceTelefonos) y ninguna consulta filtra por
+-- telefono_normalizado, asi que el indice solo encarecia cada insercion.
+
+DROP INDEX idx_telefonos_normalizado ON Telefonos;
@@ -60,7 +60,18 @@ CREATE TABLE Telefonos(
     id_cliente INT NOT NULL,
     FOREIGN KEY(id_cliente) REFERENCES Clientes(id_usuario),
     telefono VARCHAR(15) NOT NULL,
-    etiqueta VARCHAR(20)
+    etiqueta VARCHAR(20),
+    telefono_normalizado VARCHAR(15) NOT NULL DEFAULT ''
+);
+
+-- Tabla TelefonosSufijos (sufijos del telefono normalizado para la busqueda por fragmento, ver migracion V3)
+CREATE TABLE TelefonosSufijos(
+	id_telefono INT NOT NULL,
+    sufijo VARCHAR(15) NOT NULL,
+    id_cliente INT NOT NULL,
+    PRIMARY KEY(id_telefono, sufijo),
+    INDEX idx_telefonos_sufijos_sufijo(sufijo, id_cliente),
+    FOREIGN KEY(id_telefono) REFERENCES Telefonos(id) ON DELETE CASCADE
 );
 
 -- Tabla Empleados
@@ -79,9 +90,13 @@ CREATE TABLE Pedidos(
     total FLOAT NOT NULL,
     numero_pedido INT UNIQUE NOT NULL,
     id_cliente INT,
-    FOREIGN KEY(id_cliente) REFERENCES Clientes(id_usuario) 
+    FOREIGN KEY(id_cliente) REFERENCES Clientes(id_usuario),
+    grupo TINYINT AS (estado = 'Entregado') STORED
 );
 
+-- Paginacion de los listados por grupo (no entregados / entregados), ver migracion V6
+CREATE INDEX idx_pedidos_grupo_fecha ON Pedidos(grupo, fecha_creacion, id);
+
 -- Tabla PedidosExpress
 CREATE TABLE PedidosExpress(
 	id_pedido INT PRIMARY KEY,
@@ -111,6 +126,16 @@ CREATE TABLE DetallesPedidos(
     FOREIGN KEY(id_producto) REFERENCES Productos(id)
 );
 
+-- Tabla Secuencias (reserva de bloques hi/lo para numeros de pedido y folios express)
+CREATE TABLE Secuencias(
+	nombre VARCHAR(30) PRIMARY KEY,
+    valor BIGINT NOT NULL
+);
+INSERT INTO Secuencias(nombre, valor)
+SELECT "numero_pedido", IFNULL(MAX(numero_pedido), 0) FROM Pedidos;
+INSERT INTO Secuencias(nombre, valor)
+SELECT "folio_express", IFNULL(MAX(CAST(SUBSTRING(folio, 3) AS UNSIGNED)), 0) FROM PedidosExpress;
+
 -- Tabla HistorialCambios
 CREATE TABLE HistorialCambios(
 	id INT PRIMARY KEY AUTO_INCREMENT,
@@ -122,6 +147,13 @@ CREATE TABLE HistorialCambios(
     fecha_cambio DATETIME NOT NULL DEFAULT NOW()
 );
 
+-- Tabla PedidosActivosClientes (contador de pedidos activos, lo mantienen los triggers de Pedidos)
+CREATE TABLE PedidosActivosClientes(
+	id_cliente INT PRIMARY KEY,
+    activos INT NOT NULL DEFAULT 0,
+    FOREIGN KEY(id_cliente) REFERENCES Usuarios(id)
+);
+
 DELIMITER $$
 
 CREATE TRIGGER trg_pedidos_set_fecha_entrega
@@ -133,6 +165,40 @@ BEGIN
     END IF;
 END$$
 
+CREATE TRIGGER trg_pedidos_activos_insertar
+AFTER INSERT ON Pedidos
+FOR EACH ROW
+BEGIN
+    IF NEW.id_cliente IS NOT NULL AND NEW.estado NOT IN ('Entregado', 'Cancelado') THEN
+        INSERT INTO PedidosActivosClientes(id_cliente, activos)
+        VALUES (NEW.id_cliente, 1)
+        ON DUPLICATE KEY UPDATE activos = activos + 1;
+    END IF;
+END$$
+
+-- Solo escribe si el pedido cambio de cliente o paso de activo a inactivo (o al
+-- reves); Pendiente -> Listo no toca el contador.
+CREATE TRIGGER trg_pedidos_activos_actualizar
+AFTER UPDATE ON Pedidos
+FOR EACH ROW
+BEGIN
+    IF NOT (OLD.id_cliente <=> NEW.id_cliente)
+       OR (OLD.estado IN ('Entregado', 'Cancelado')) <> (NEW.estado IN ('Entregado', 'Cancelado')) THEN
+
+        IF OLD.id_cliente IS NOT NULL AND OLD.estado NOT IN ('Entregado', 'Cancelado') THEN
+            UPDATE PedidosActivosClientes SET activos = GREATEST(activos - 1, 0)
+            WHERE id_cliente = OLD.id_cliente;
+        END IF;
+
+        IF NEW.id_cliente IS NOT NULL AND NEW.estado NOT IN ('Entregado', 'Cancelado') THEN
+            INSERT INTO PedidosActivosClientes(id_cliente, activos)
+            VALUES (NEW.id_cliente, 1)
+            ON DUPLICATE KEY UPDATE activos = activos + 1;
+        END IF;
+
+    END IF;
+END$$
+
 DELIMITER ;
 
 DELIMITER $$
@@ -157,5 +223,82 @@ END $$
 
 DELIMITER ;
 
+-- Registro de un pedido completo en una sola llamada (ver migracion V4)
+DELIMITER $$
+
+CREATE PROCEDURE sp_insertar_pedido(
+    IN p_tipo VARCHAR(10),
+    IN p_estado VARCHAR(20),
+    IN p_fecha_creacion DATETIME,
+    IN p_fecha_entrega DATETIME,
+    IN p_metodo_pago VARCHAR(10),
+    IN p_total FLOAT,
+    INOUT p_numero_pedido INT,
+    IN p_id_cliente INT,
+    IN p_id_cupon INT,
+    IN p_pin VARCHAR(100),
+    IN p_folio VARCHAR(10),
+    IN p_detalles JSON,
+    OUT p_id_pedido INT
+)
+BEGIN
+
+    IF p_detalles IS NULL OR JSON_LENGTH(p_detalles) = 0 THEN
+        SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'No se puede insertar un pedido sin detalles.';
+    END IF;
+
+    IF p_numero_pedido IS NULL THEN
+        UPDATE Secuencias SET valor = LAST_INSERT_ID(valor + 1) WHERE nombre = 'numero_pedido';
+        SET p_numero_pedido = LAST_INSERT_ID();
+    END IF;
+
+    INSERT INTO Pedidos(estado, fecha_creacion, fecha_entrega, metodo_pago, total, numero_pedido, id_cliente)
+    VALUES (p_estado, p_fecha_creacion, p_fecha_entrega, p_metodo_pago, p_total, p_numero_pedido, p_id_cliente);
+
+    SET p_id_pedido = LAST_INSERT_ID();
+
+    INSERT INTO DetallesPedidos(nota, cantidad, precio, total, id_pedido, id_producto)
+    SELECT d.nota, d.cantidad, d.precio, d.total, p_id_pedido, d.id_producto
+    FROM JSON_TABLE(p_detalles, '$[*]' COLUMNS(
+        orden FOR ORDINALITY,
+        id_producto INT PATH '$.id_producto' ERROR ON EMPTY,
+        cantidad INT PATH '$.cantidad' ERROR ON EMPTY,
+        precio FLOAT PATH '$.precio' ERROR ON EMPTY,
+        total FLOAT PATH '$.total' ERROR ON EMPTY,
+        nota VARCHAR(100) PATH '$.nota'
+    )) d
+    ORDER BY d.orden;
+
+    IF p_tipo = 'Express' THEN
+
+        INSERT INTO PedidosExpress(id_pedido, pin, folio)
+        VALUES (p_id_pedido, p_pin, p_folio);
+
+    ELSE
+
+        -- Mismo canje condicional que el camino del cliente
+        IF p_id_cupon IS NOT NULL THEN
+            UPDATE Cupones SET numero_usos = numero_usos + 1
+            WHERE id = p_id_cupon
+              AND numero_usos < tope_usos
+              AND fecha_inicio <= CURDATE()
+              AND (fecha_vencimiento IS NULL OR fecha_vencimiento > CURDATE());
+
+            IF ROW_COUNT() = 0 THEN
+                SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'El cupón no está vigente o llegó a su límite de usos.';
+            END IF;
+        END IF;
+
+        INSERT INTO PedidosProgramados(id_pedido, id_cupon)
+        VALUES (p_id_pedido, p_id_cupon);
+
+    END IF;
+
+    SELECT id FROM DetallesPedidos WHERE id_pedido = p_id_pedido ORDER BY id;
+
+END $$
+
+DELIMITER ;
+
 INSERT INTO Productos(nombre, tipo, precio, estado, descripcion) values("Concha", "Dulce", 18, "Disponible", "Cocncha de vainilla");
 INSERT INTO Cupones(descuento, fecha_vencimiento, fecha_inicio, nombre, tope_usos) VALUES(10, "2026-03-15", "2026-01-01", "PAN10", 10);